@@ -2,6 +2,13 @@ package org.example;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.aop.UserAuditAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.audit.AuditEventWriter;
+import org.example.metrics.ServiceMethodMetrics;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -19,11 +26,25 @@ import org.springframework.context.annotation.Configuration;
  * и содержит определения бинов, которые будут управляться контейнером Spring.
  * Аннотация {@code @Slf4j} добавляет логгер, который можно использовать для ведения логов
  * внутри этого класса. Аннотация {@code @ComponentScan} указывает на пакет, который необходимо
- * сканировать на наличие компонентов.
+ * сканировать на наличие компонентов. Аннотация {@code @EnableConfigurationProperties} регистрирует
+ * настройки {@link AuditProperties} с префиксом {@code audit}.
  * </p>
  *
  * <p>
- * Метод {@code userAuditAspect()} помечен аннотацией {@code @Bean} и возвращает экземпляр
+ * Метод {@code auditEventWriter(AuditProperties properties)} создаёт {@link AuditEventWriter} с буфером и политикой
+ * переполнения из настроек. Фоновый поток записи запускается при создании бина и останавливается при закрытии
+ * контекста после записи всех принятых событий.
+ * </p>
+ *
+ * <p>
+ * Метод {@code serviceMethodMetrics(ObjectProvider<MeterRegistry> registry, AuditProperties properties)} создаёт
+ * {@link ServiceMethodMetrics}, если свойство {@code audit.metrics.enabled} не равно {@code false}. Метрики публикуются
+ * через {@link MeterRegistry} приложения, например на эндпоинтах Actuator {@code /actuator/metrics/service.method}
+ * и {@code /actuator/prometheus}.
+ * </p>
+ *
+ * <p>
+ * Метод {@code userAuditAspect(AuditEventWriter writer, ObjectProvider<ServiceMethodMetrics> metrics)} помечен аннотацией {@code @Bean} и возвращает экземпляр
  * {@link UserAuditAspect}. Это означает, что данный метод создает и настраивает бин,
  * который будет управляться контейнером Spring.
  * </p>
@@ -31,9 +52,21 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @Slf4j
 @ComponentScan(basePackages = "org.example")
+@EnableConfigurationProperties(AuditProperties.class)
 public class AuditLoggingAutoConfiguration {
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public AuditEventWriter auditEventWriter(AuditProperties properties) {
+        return new AuditEventWriter(LoggerFactory.getLogger(UserAuditAspect.class), properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "audit.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public ServiceMethodMetrics serviceMethodMetrics(ObjectProvider<MeterRegistry> registry, AuditProperties properties) {
+        return new ServiceMethodMetrics(registry, properties.getMetrics());
+    }
+
     @Bean
-    public UserAuditAspect userAuditAspect() {
-        return new UserAuditAspect();
+    public UserAuditAspect userAuditAspect(AuditEventWriter writer, ObjectProvider<ServiceMethodMetrics> metrics) {
+        return new UserAuditAspect(writer, metrics.getIfAvailable());
     }
 }
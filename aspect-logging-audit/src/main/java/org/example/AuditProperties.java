@@ -0,0 +1,50 @@
+package org.example;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки конвейера аудита.
+ * <p>
+ * Свойства задаются с префиксом {@code audit}:
+ * <ul>
+ *     <li>{@code audit.buffer-size} - ёмкость кольцевого буфера событий аудита, округляется вверх до степени двойки
+ *     (по умолчанию {@value #DEFAULT_BUFFER_SIZE}).</li>
+ *     <li>{@code audit.overflow-policy} - поведение при заполненном буфере: {@link OverflowPolicy#DROP} отбрасывает
+ *     событие и учитывает его в счётчике потерянных, {@link OverflowPolicy#BLOCK} ждёт освобождения места
+ *     (по умолчанию {@code DROP}).</li>
+ *     <li>{@code audit.metrics.enabled} - запись таймеров Micrometer по методам сервисов (по умолчанию включена).</li>
+ *     <li>{@code audit.metrics.include}, {@code audit.metrics.exclude} - шаблоны {@code ИмяКласса.имяМетода}
+ *     с подстановкой {@code *}, отбирающие методы для метрик (по умолчанию все методы).</li>
+ *     <li>{@code audit.metrics.percentiles} - публикуемые процентили (по умолчанию {@code 0.5, 0.95, 0.99}).</li>
+ *     <li>{@code audit.metrics.histogram} - публикация гистограммы для расчёта процентилей в Prometheus
+ *     (по умолчанию включена).</li>
+ * </ul>
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "audit")
+public class AuditProperties {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private Metrics metrics = new Metrics();
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    @Data
+    public static class Metrics {
+        private boolean enabled = true;
+        private List<String> include = new ArrayList<>(List.of("*"));
+        private List<String> exclude = new ArrayList<>();
+        private double[] percentiles = {0.5, 0.95, 0.99};
+        private boolean histogram = true;
+    }
+}
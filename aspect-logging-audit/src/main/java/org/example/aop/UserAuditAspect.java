@@ -1,12 +1,13 @@
 package org.example.aop;
 
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.example.audit.AuditArguments;
+import org.example.audit.AuditEventWriter;
+import org.example.metrics.ServiceMethodMetrics;
 
 /**
  * Аспект для аудита действий пользователей и логирования времени выполнения методов.
@@ -19,53 +20,69 @@ import org.aspectj.lang.annotation.Before;
  * <p>
  * Аннотация {@code @Aspect} указывает, что этот класс является аспектом,
  * который можно использовать для внедрения дополнительной функциональности
- * в методы других классов. Аннотация {@code @Slf4j} добавляет логгер для ведения логов.
+ * в методы других классов. Аннотация {@code @Slf4j} добавляет логгер, по уровню которого аспект определяет,
+ * нужно ли записывать события.
  * </p>
  *
  * <p>
- * Метод {@code auditUserAction(JoinPoint joinPoint)} помечен аннотацией {@code @Before},
- * что означает, что он будет выполняться перед каждым вызовом метода, помеченного аннотацией {@code @Service}.
- * Этот метод логирует имя метода и его аргументы, чтобы фиксировать действия пользователей.
- * </p>
- *
- * <p>
- * Метод {@code logExecutionTime(ProceedingJoinPoint joinPoint)} помечен аннотацией {@code @Around},
+ * Метод {@code audit(ProceedingJoinPoint joinPoint)} помечен аннотацией {@code @Around},
  * что означает, что он будет выполняться вокруг вызова метода, помеченного аннотацией {@code @Service}.
- * Этот метод измеряет и логирует время выполнения метода, а затем возвращает результат выполнения метода.
+ * Этот метод измеряет время выполнения метода и передаёт в {@link AuditEventWriter} сигнатуру метода, его аргументы,
+ * время выполнения и исключение, если оно было выброшено. Форматирование и запись в лог выполняются в фоновом потоке,
+ * а если уровни {@code INFO} и {@code ERROR} отключены, событие не создаётся вовсе. Аргументы передаются снимком
+ * {@link AuditArguments#snapshot(Object[])}, снятым в потоке запроса, поэтому изменяемые объекты не читаются
+ * из фонового потока. При включённом {@code INFO} снимок снимается до выполнения метода, и в лог попадает состояние
+ * аргументов на момент вызова. Если {@code INFO} отключён, успешный вызов аргументы не форматирует, а снимок для
+ * события {@code ERROR} снимается только после исключения и показывает аргументы на момент ошибки.
  * </p>
  *
  * <p>
- * Метод {@code logException(JoinPoint joinPoint, Exception ex)} помечен аннотацией {@code @AfterThrowing},
- * что означает, что он будет выполняться после выброса исключения в методе, помеченном аннотацией {@code @Service}.
- * Этот метод логирует информацию о методе, его аргументах и исключении, которое было выброшено.
+ * Если задан {@link ServiceMethodMetrics}, то же измерение записывается в таймер Micrometer метода вместе с признаком
+ * ошибки. Время измеряется {@link System#nanoTime()}.
  * </p>
  */
 
 @Aspect
 @Slf4j
 public class UserAuditAspect {
-    @Before("within(@org.springframework.stereotype.Service *)")
-    public void auditUserAction(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        Object[] args = joinPoint.getArgs();
-        log.info("User action: {} with arguments {}", methodName, args);
-    }
+    private final AuditEventWriter writer;
+    private final ServiceMethodMetrics metrics;
 
-    @Around("within(@org.springframework.stereotype.Service *)")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
-        Object proceed = joinPoint.proceed();
-        long executionTime = System.currentTimeMillis() - startTime;
-        log.info("Method {} executed in {} ms", joinPoint.getSignature(), executionTime);
-        return proceed;
+    public UserAuditAspect(AuditEventWriter writer, ServiceMethodMetrics metrics) {
+        this.writer = writer;
+        this.metrics = metrics;
     }
 
-    @AfterThrowing(pointcut = "within(@org.springframework.stereotype.Service *)", throwing = "ex")
-    public void logException(JoinPoint joinPoint, Exception ex) {
-        log.error("Exception in method {} with arguments {}. Exception: {}",
-                joinPoint.getSignature().getName(),
-                joinPoint.getArgs(),
-                ex.getMessage(), ex);
+    @Around("within(@org.springframework.stereotype.Service *)")
+    public Object audit(ProceedingJoinPoint joinPoint) throws Throwable {
+        final boolean infoEnabled = log.isInfoEnabled();
+        final boolean errorEnabled = log.isErrorEnabled();
+        if (!infoEnabled && !errorEnabled && metrics == null) {
+            return joinPoint.proceed();
+        }
+        final Object[] args = infoEnabled ? AuditArguments.snapshot(joinPoint.getArgs()) : null;
+        final long startTime = System.nanoTime();
+        try {
+            final Object proceed = joinPoint.proceed();
+            final long duration = System.nanoTime() - startTime;
+            if (metrics != null) {
+                metrics.record(((MethodSignature) joinPoint.getSignature()).getMethod(), duration, null);
+            }
+            if (infoEnabled) {
+                writer.publish(joinPoint.getSignature(), args, duration, null);
+            }
+            return proceed;
+        } catch (Throwable ex) {
+            final long duration = System.nanoTime() - startTime;
+            if (metrics != null) {
+                metrics.record(((MethodSignature) joinPoint.getSignature()).getMethod(), duration, ex);
+            }
+            if (errorEnabled) {
+                final Object[] errorArgs = args != null ? args : AuditArguments.snapshot(joinPoint.getArgs());
+                writer.publish(joinPoint.getSignature(), errorArgs, duration, ex);
+            }
+            throw ex;
+        }
     }
 
 }
@@ -0,0 +1,62 @@
+package org.example.audit;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Снимок аргументов метода для события аудита.
+ * <p>
+ * Событие форматируется потоком записи {@link AuditEventWriter} позже, чем вызывается метод, поэтому ссылки
+ * на изменяемые аргументы (сущности JPA, DTO, коллекции) показали бы их состояние на момент записи, изменённое
+ * самим методом или другими запросами, а {@code toString()} прокси Hibernate выполнялся бы вне его сессии и потока.
+ * Метод {@link #snapshot(Object[])} вызывается в потоке запроса до выполнения метода и заменяет такие аргументы
+ * их строковым представлением. Неизменяемые значения ({@code String}, упакованные примитивы, {@link BigDecimal},
+ * {@link BigInteger}, перечисления, {@link UUID}, типы {@code java.time}) сохраняются ссылкой и форматируются
+ * в потоке записи, поэтому для методов с такими аргументами снимок сводится к копированию массива.
+ * </p>
+ */
+public final class AuditArguments {
+    private static final Object[] EMPTY = new Object[0];
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigDecimal.class, BigInteger.class, UUID.class);
+
+    private AuditArguments() {
+    }
+
+    /**
+     * Возвращает массив, который можно форматировать в другом потоке: неизменяемые аргументы сохраняются,
+     * остальные заменяются строками, полученными в текущем потоке.
+     */
+    public static Object[] snapshot(Object[] args) {
+        if (args == null || args.length == 0) {
+            return EMPTY;
+        }
+        final Object[] snapshot = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            snapshot[i] = isImmutable(args[i]) ? args[i] : format(args[i]);
+        }
+        return snapshot;
+    }
+
+    private static boolean isImmutable(Object arg) {
+        return arg == null
+                || IMMUTABLE_TYPES.contains(arg.getClass())
+                || arg instanceof Enum<?>
+                || arg instanceof TemporalAccessor && arg.getClass().getPackageName().startsWith("java.time");
+    }
+
+    private static String format(Object arg) {
+        try {
+            // deepToString форматирует массивы, в том числе примитивных типов, так же, как при записи события
+            final String formatted = Arrays.deepToString(new Object[]{arg});
+            return formatted.substring(1, formatted.length() - 1);
+        } catch (RuntimeException e) {
+            return "[unavailable: " + e + "]";
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.audit;
+
+import org.aspectj.lang.Signature;
+
+/**
+ * Событие аудита — ячейка кольцевого буфера {@link AuditEventBuffer}.
+ * <p>
+ * Экземпляры создаются один раз при создании буфера и переиспользуются: поток запроса записывает в ячейку ссылки
+ * на сигнатуру метода и снимок его аргументов {@link AuditArguments}, время выполнения и исключение, а форматирование выполняет поток записи
+ * {@link AuditEventWriter}, после чего ссылки очищаются.
+ * </p>
+ */
+final class AuditEvent {
+    long timestamp;
+    Signature signature;
+    Object[] args;
+    long durationNanos;
+    Throwable error;
+
+    void clear() {
+        signature = null;
+        args = null;
+        error = null;
+    }
+}
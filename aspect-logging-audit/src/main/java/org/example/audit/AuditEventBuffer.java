@@ -0,0 +1,87 @@
+package org.example.audit;
+
+import org.aspectj.lang.Signature;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный неблокирующий кольцевой буфер событий аудита для многих производителей и одного потребителя.
+ * <p>
+ * Ячейки {@link AuditEvent} выделяются заранее. Каждой ячейке соответствует порядковый номер в {@code sequences}:
+ * производитель занимает позицию {@code tail} через CAS, только если номер ячейки равен этой позиции, заполняет ячейку
+ * и публикует её, записывая номер {@code позиция + 1}. Потребитель читает ячейку, когда её номер равен
+ * {@code head + 1}, и освобождает её для следующего круга, записывая {@code head + capacity}. Поэтому ни публикация,
+ * ни чтение не берут блокировок и не создают объектов. Номер при публикации записывается с полным барьером
+ * ({@code set}), чтобы производитель, проверяющий затем признак ожидания потребителя в {@link AuditEventWriter},
+ * не пропустил уснувший поток записи.
+ * </p>
+ */
+final class AuditEventBuffer {
+    private final AuditEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    AuditEventBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("Audit buffer size must be positive: " + requestedCapacity);
+        }
+        final int capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        slots = new AuditEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new AuditEvent();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Публикует событие. Возвращает {@code false}, если буфер заполнен.
+     */
+    boolean offer(long timestamp, Signature signature, Object[] args, long durationNanos, Throwable error) {
+        long position = tail.get();
+        while (true) {
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    final AuditEvent event = slots[index];
+                    event.timestamp = timestamp;
+                    event.signature = signature;
+                    event.args = args;
+                    event.durationNanos = durationNanos;
+                    event.error = error;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Возвращает следующее опубликованное событие или {@code null}, если буфер пуст. Вызывается только потоком записи;
+     * после обработки событие нужно вернуть в буфер методом {@link #release(AuditEvent)}.
+     */
+    AuditEvent peek() {
+        final int index = (int) (head & mask);
+        return sequences.get(index) == head + 1 ? slots[index] : null;
+    }
+
+    void release(AuditEvent event) {
+        event.clear();
+        sequences.lazySet((int) (head & mask), head + slots.length);
+        head++;
+    }
+}
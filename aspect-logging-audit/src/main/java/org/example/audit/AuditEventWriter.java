@@ -0,0 +1,135 @@
+package org.example.audit;
+
+import org.aspectj.lang.Signature;
+import org.example.AuditProperties;
+import org.slf4j.Logger;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная запись событий аудита.
+ * <p>
+ * Потоки запросов передают события методом {@link #publish(Signature, Object[], long, Throwable)} в кольцевой буфер
+ * {@link AuditEventBuffer}, а фоновый поток {@code audit-writer} забирает их, форматирует и записывает в лог. Поэтому
+ * запись на диск и форматирование неизменяемых аргументов выполняются вне потоков запросов; изменяемые аргументы
+ * форматируются в потоке запроса при создании снимка {@link AuditArguments}.
+ * </p>
+ *
+ * <p>
+ * Если буфер заполнен, событие обрабатывается согласно {@link AuditProperties.OverflowPolicy}: при {@code DROP}
+ * отбрасывается, а количество отброшенных событий периодически записывается в лог предупреждением, при {@code BLOCK}
+ * поток запроса ждёт освобождения места. Метод {@link #stop()} дожидается записи всех опубликованных событий.
+ * </p>
+ *
+ * <p>
+ * Простаивающий поток записи не просыпается по таймеру: он выставляет признак {@code consumerWaiting}, ещё раз
+ * проверяет буфер и засыпает ({@link LockSupport#park(Object)}), а производитель, опубликовав событие и увидев признак,
+ * будит его {@link LockSupport#unpark(Thread)}. Публикация в буфер и запись признака выполняются с полным барьером,
+ * поэтому событие, опубликованное между проверкой буфера и засыпанием, не теряется.
+ * </p>
+ */
+public class AuditEventWriter implements Runnable {
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final Logger log;
+    private final AuditEventBuffer buffer;
+    private final AuditProperties.OverflowPolicy overflowPolicy;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile boolean consumerWaiting;
+
+    public AuditEventWriter(Logger log, AuditProperties properties) {
+        this.log = log;
+        this.buffer = new AuditEventBuffer(properties.getBufferSize());
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.thread = new Thread(this, "audit-writer");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(STOP_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Передаёт событие потоку записи. Ссылки на сигнатуру и аргументы сохраняются без копирования и форматирования,
+     * поэтому аргументы должны быть снимком {@link AuditArguments#snapshot(Object[])}, безопасным для чтения
+     * из потока записи.
+     */
+    public void publish(Signature signature, Object[] args, long durationNanos, Throwable error) {
+        final long timestamp = System.currentTimeMillis();
+        while (!buffer.offer(timestamp, signature, args, durationNanos, error)) {
+            if (overflowPolicy == AuditProperties.OverflowPolicy.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        if (consumerWaiting) {
+            consumerWaiting = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drain() == 0) {
+                consumerWaiting = true;
+                if (buffer.peek() == null && running) {
+                    LockSupport.park(this);
+                }
+                consumerWaiting = false;
+            }
+            reportDropped();
+        }
+        drain();
+        reportDropped();
+    }
+
+    private int drain() {
+        int written = 0;
+        AuditEvent event;
+        while ((event = buffer.peek()) != null) {
+            try {
+                write(event);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write audit event for {}", event.signature, e);
+            } finally {
+                buffer.release(event);
+            }
+            written++;
+        }
+        return written;
+    }
+
+    private void write(AuditEvent event) {
+        final double millis = event.durationNanos / 1_000_000.0;
+        if (event.error == null) {
+            log.info("User action at {}: {} with arguments {} executed in {} ms",
+                    Instant.ofEpochMilli(event.timestamp), event.signature, Arrays.deepToString(event.args), millis);
+        } else {
+            log.error("Exception at {} in method {} with arguments {} after {} ms. Exception: {}",
+                    Instant.ofEpochMilli(event.timestamp), event.signature, Arrays.deepToString(event.args), millis, event.error.getMessage(), event.error);
+        }
+    }
+
+    private void reportDropped() {
+        final long count = dropped.sumThenReset();
+        if (count > 0) {
+            log.warn("Dropped {} audit events: buffer of {} events is full", count, buffer.capacity());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.AuditProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.PatternMatchUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики времени выполнения методов сервисов.
+ * <p>
+ * Для каждого метода создаётся таймер {@value #TIMER_NAME} с тегами {@code class} и {@code method}: он публикует
+ * количество вызовов, суммарное и максимальное время, процентили и гистограмму для Prometheus. Ошибки считаются
+ * счётчиком {@value #ERRORS_NAME} с дополнительным тегом {@code exception}; счётчик создаётся при первой ошибке
+ * каждого класса исключения в методе и затем переиспользуется.
+ * </p>
+ *
+ * <p>
+ * Таймеры кэшируются по {@link Method}, поэтому на каждый вызов приходится одно чтение из {@link ConcurrentHashMap}.
+ * Методы отбираются шаблонами {@code audit.metrics.include} и {@code audit.metrics.exclude} вида
+ * {@code ИмяКласса.имяМетода} с подстановкой {@code *}; решение об исключении метода кэшируется.
+ * {@link MeterRegistry} запрашивается при вызове метода, а не при создании бина, так как аспект создаётся раньше
+ * реестра метрик. Пока реестра нет (например, при вызовах сервисов во время запуска контекста), вызов не записывается
+ * и ничего не кэшируется, поэтому таймер метода создаётся при первом вызове после появления реестра.
+ * </p>
+ */
+public class ServiceMethodMetrics {
+    public static final String TIMER_NAME = "service.method";
+    public static final String ERRORS_NAME = "service.method.errors";
+
+    private static final MethodMeters EXCLUDED = new MethodMeters(null, null, null, null);
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final AuditProperties.Metrics properties;
+    private final ConcurrentHashMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public ServiceMethodMetrics(ObjectProvider<MeterRegistry> registryProvider, AuditProperties.Metrics properties) {
+        this.registryProvider = registryProvider;
+        this.properties = properties;
+    }
+
+    public void record(Method method, long durationNanos, Throwable error) {
+        MethodMeters methodMeters = meters.get(method);
+        if (methodMeters == null) {
+            methodMeters = register(method);
+            if (methodMeters == null) {
+                return;
+            }
+        }
+        if (methodMeters == EXCLUDED) {
+            return;
+        }
+        methodMeters.timer.record(durationNanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            methodMeters.errors(error.getClass()).increment();
+        }
+    }
+
+    /**
+     * Создаёт и кэширует таймер метода или отметку об исключении метода шаблонами. Возвращает {@code null}, ничего
+     * не кэшируя, если реестр метрик ещё недоступен.
+     */
+    private MethodMeters register(Method method) {
+        final String className = method.getDeclaringClass().getSimpleName();
+        if (!matches(className + "." + method.getName())) {
+            meters.putIfAbsent(method, EXCLUDED);
+            return EXCLUDED;
+        }
+        final MeterRegistry registry = registryProvider.getIfAvailable();
+        if (registry == null) {
+            return null;
+        }
+        return meters.computeIfAbsent(method, key -> create(key, className, registry));
+    }
+
+    private MethodMeters create(Method method, String className, MeterRegistry registry) {
+        final Timer.Builder timer = Timer.builder(TIMER_NAME)
+                .description("Execution time of service methods")
+                .tag("class", className)
+                .tag("method", method.getName())
+                .publishPercentileHistogram(properties.isHistogram());
+        if (properties.getPercentiles().length > 0) {
+            timer.publishPercentiles(properties.getPercentiles());
+        }
+        return new MethodMeters(registry, timer.register(registry), className, method.getName());
+    }
+
+    private boolean matches(String name) {
+        return PatternMatchUtils.simpleMatch(properties.getInclude().toArray(String[]::new), name)
+                && !PatternMatchUtils.simpleMatch(properties.getExclude().toArray(String[]::new), name);
+    }
+
+    private static final class MethodMeters {
+        private final MeterRegistry registry;
+        private final Timer timer;
+        private final String className;
+        private final String methodName;
+        private final ConcurrentHashMap<Class<? extends Throwable>, Counter> errors = new ConcurrentHashMap<>();
+
+        private MethodMeters(MeterRegistry registry, Timer timer, String className, String methodName) {
+            this.registry = registry;
+            this.timer = timer;
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        private Counter errors(Class<? extends Throwable> exception) {
+            final Counter counter = errors.get(exception);
+            return counter != null ? counter : errors.computeIfAbsent(exception, key -> Counter.builder(ERRORS_NAME)
+                    .description("Number of service method calls that ended with an exception")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("exception", key.getSimpleName())
+                    .register(registry));
+        }
+    }
+}
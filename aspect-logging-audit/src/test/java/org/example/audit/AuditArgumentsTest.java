@@ -0,0 +1,55 @@
+package org.example.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditArgumentsTest {
+
+    @Test
+    @DisplayName("Immutable arguments are kept by reference")
+    void keepsImmutableArguments() {
+        String name = "BMW";
+        BigDecimal price = new BigDecimal("15000.50");
+        LocalDate date = LocalDate.of(2024, 5, 1);
+
+        Object[] snapshot = AuditArguments.snapshot(new Object[]{name, 7, price, date, Thread.State.NEW, null});
+
+        assertThat(snapshot).containsExactly(name, 7, price, date, Thread.State.NEW, null);
+        assertThat(snapshot[0]).isSameAs(name);
+    }
+
+    @Test
+    @DisplayName("Mutable arguments are formatted at call time and later changes are not logged")
+    void formatsMutableArgumentsAtCallTime() {
+        List<String> roles = new ArrayList<>(List.of("CLIENT"));
+        int[] ids = {1, 2};
+
+        Object[] snapshot = AuditArguments.snapshot(new Object[]{roles, ids});
+        roles.add("ADMINISTRATOR");
+        ids[0] = 42;
+
+        assertThat(snapshot).containsExactly("[CLIENT]", "[1, 2]");
+    }
+
+    @Test
+    @DisplayName("An argument whose toString fails does not fail the call")
+    void toleratesFailingToString() {
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("no session");
+            }
+        };
+
+        Object[] snapshot = AuditArguments.snapshot(new Object[]{broken});
+
+        assertThat((String) snapshot[0]).startsWith("[unavailable:").contains("no session");
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditEventBufferTest {
+
+    @Test
+    @DisplayName("Capacity is rounded up to a power of two and must be positive")
+    void roundsCapacity() {
+        assertThat(new AuditEventBuffer(1).capacity()).isEqualTo(1);
+        assertThat(new AuditEventBuffer(5).capacity()).isEqualTo(8);
+        assertThat(new AuditEventBuffer(8).capacity()).isEqualTo(8);
+        assertThatThrownBy(() -> new AuditEventBuffer(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Events are read in publication order across many laps of the ring")
+    void wrapsAround() {
+        AuditEventBuffer buffer = new AuditEventBuffer(4);
+        assertThat(buffer.peek()).isNull();
+
+        long next = 0;
+        for (int lap = 0; lap < 10; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(lap, null, new Object[]{lap}, next + i, null)).isTrue();
+            }
+            for (int i = 0; i < 3; i++) {
+                AuditEvent event = buffer.peek();
+                assertThat(event).isNotNull();
+                assertThat(event.durationNanos).isEqualTo(next++);
+                assertThat(event.args).containsExactly(lap);
+                buffer.release(event);
+                assertThat(event.args).isNull();
+            }
+            assertThat(buffer.peek()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("A full buffer rejects events until the consumer releases a slot")
+    void rejectsWhenFull() {
+        AuditEventBuffer buffer = new AuditEventBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(0, null, null, i, null)).isTrue();
+        }
+        assertThat(buffer.offer(0, null, null, 4, null)).isFalse();
+
+        AuditEvent event = buffer.peek();
+        assertThat(event.durationNanos).isZero();
+        assertThat(buffer.offer(0, null, null, 4, null)).isFalse();
+        buffer.release(event);
+
+        assertThat(buffer.offer(0, null, null, 4, null)).isTrue();
+        assertThat(buffer.offer(0, null, null, 5, null)).isFalse();
+        for (long expected = 1; expected <= 4; expected++) {
+            event = buffer.peek();
+            assertThat(event.durationNanos).isEqualTo(expected);
+            buffer.release(event);
+        }
+        assertThat(buffer.peek()).isNull();
+    }
+
+    @Test
+    @DisplayName("Events of concurrent producers are delivered exactly once and in order per producer")
+    void deliversEventsOfConcurrentProducers() throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 50_000;
+        AuditEventBuffer buffer = new AuditEventBuffer(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < eventsPerProducer; i++) {
+                        while (!buffer.offer(0, null, null, producer << 32 | i, null)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            long[] nextByProducer = new long[producers];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            for (int received = 0; received < producers * eventsPerProducer; ) {
+                AuditEvent event = buffer.peek();
+                if (event == null) {
+                    assertThat(System.nanoTime()).isLessThan(deadline);
+                    Thread.yield();
+                    continue;
+                }
+                int producer = (int) (event.durationNanos >>> 32);
+                assertThat(event.durationNanos & 0xFFFF_FFFFL).isEqualTo(nextByProducer[producer]);
+                nextByProducer[producer]++;
+                buffer.release(event);
+                received++;
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(nextByProducer).containsOnly(eventsPerProducer);
+            assertThat(buffer.peek()).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
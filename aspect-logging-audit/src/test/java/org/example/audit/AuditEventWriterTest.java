@@ -0,0 +1,154 @@
+package org.example.audit;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.example.AuditProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditEventWriterTest {
+    private final RecordingAppender appender = new RecordingAppender();
+    private final Logger log = logger(appender);
+    private AuditEventWriter writer;
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        appender.open();
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("DROP discards events that do not fit and reports how many were dropped")
+    void dropsWhenFull() throws InterruptedException {
+        writer = new AuditEventWriter(log, properties(2, AuditProperties.OverflowPolicy.DROP));
+        for (int i = 0; i < 5; i++) {
+            writer.publish(null, new Object[]{i}, 0, null);
+        }
+
+        writer.start();
+        writer.stop();
+
+        assertThat(appender.messages(Level.INFO)).hasSize(2);
+        assertThat(appender.messages(Level.WARN)).containsExactly("Dropped 3 audit events: buffer of 2 events is full");
+    }
+
+    @Test
+    @DisplayName("BLOCK makes the publisher wait for a free slot and loses no events")
+    void blocksWhenFull() throws Exception {
+        writer = new AuditEventWriter(log, properties(2, AuditProperties.OverflowPolicy.BLOCK));
+        appender.close();
+        writer.start();
+
+        AtomicInteger published = new AtomicInteger();
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                writer.publish(null, new Object[]{i}, 0, null);
+                published.incrementAndGet();
+            }
+        });
+        publisher.start();
+
+        assertThat(appender.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.join(200);
+        assertThat(publisher.isAlive()).isTrue();
+        assertThat(published.get()).isLessThan(5);
+
+        appender.open();
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(publisher.isAlive()).isFalse();
+        writer.stop();
+
+        assertThat(appender.messages(Level.INFO)).hasSize(5);
+        assertThat(appender.messages(Level.WARN)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("An idle writer is woken up by the next published event")
+    void wakesUpIdleWriter() throws Exception {
+        writer = new AuditEventWriter(log, properties(8, AuditProperties.OverflowPolicy.DROP));
+        writer.start();
+        writer.publish(null, new Object[]{"first"}, 0, null);
+        appender.await(1);
+
+        Thread.sleep(50);
+        writer.publish(null, new Object[]{"second"}, 0, new IllegalStateException("failed"));
+        appender.await(2);
+
+        assertThat(appender.messages(Level.INFO)).hasSize(1);
+        assertThat(appender.messages(Level.ERROR)).singleElement().asString().contains("[second]", "failed");
+    }
+
+    private static AuditProperties properties(int bufferSize, AuditProperties.OverflowPolicy policy) {
+        AuditProperties properties = new AuditProperties();
+        properties.setBufferSize(bufferSize);
+        properties.setOverflowPolicy(policy);
+        return properties;
+    }
+
+    private static Logger logger(RecordingAppender appender) {
+        LoggerContext context = new LoggerContext();
+        appender.setContext(context);
+        appender.start();
+        Logger logger = context.getLogger("audit-test");
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    /**
+     * Appender, запоминающий события и, пока он закрыт, задерживающий поток записи на первом событии.
+     */
+    private static class RecordingAppender extends AppenderBase<ILoggingEvent> {
+        private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        void close() {
+            gate = new CountDownLatch(1);
+        }
+
+        void open() {
+            gate.countDown();
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(events).hasSizeGreaterThanOrEqualTo(count);
+        }
+
+        List<String> messages(Level level) {
+            return events.stream()
+                    .filter(event -> event.getLevel() == level)
+                    .map(ILoggingEvent::getFormattedMessage)
+                    .toList();
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+    }
+}
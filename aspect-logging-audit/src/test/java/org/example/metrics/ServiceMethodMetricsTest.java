@@ -0,0 +1,65 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.AuditProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceMethodMetricsTest {
+    private final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Calls before the registry is available do not disable the method's timer")
+    void registersTimerOnceRegistryIsAvailable() throws Exception {
+        ServiceMethodMetrics metrics = metrics(new AuditProperties.Metrics());
+        Method method = String.class.getMethod("length");
+
+        metrics.record(method, 1_000_000, null);
+        beanFactory.addBean("meterRegistry", registry);
+        metrics.record(method, 1_000_000, null);
+
+        assertThat(registry.get(ServiceMethodMetrics.TIMER_NAME).tag("method", "length").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("One error counter is kept per method and exception class")
+    void reusesErrorCounter() throws Exception {
+        beanFactory.addBean("meterRegistry", registry);
+        ServiceMethodMetrics metrics = metrics(new AuditProperties.Metrics());
+        Method method = String.class.getMethod("length");
+
+        metrics.record(method, 1_000, new IllegalStateException());
+        metrics.record(method, 1_000, new IllegalStateException());
+        metrics.record(method, 1_000, new IllegalArgumentException());
+
+        assertThat(registry.get(ServiceMethodMetrics.ERRORS_NAME).tag("exception", "IllegalStateException")
+                .counter().count()).isEqualTo(2);
+        assertThat(registry.get(ServiceMethodMetrics.ERRORS_NAME).counters()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Excluded methods get no timer")
+    void skipsExcludedMethods() throws Exception {
+        beanFactory.addBean("meterRegistry", registry);
+        AuditProperties.Metrics properties = new AuditProperties.Metrics();
+        properties.setExclude(List.of("String.*"));
+        ServiceMethodMetrics metrics = metrics(properties);
+
+        metrics.record(String.class.getMethod("length"), 1_000, null);
+
+        assertThat(registry.find(ServiceMethodMetrics.TIMER_NAME).timers()).isEmpty();
+    }
+
+    private ServiceMethodMetrics metrics(AuditProperties.Metrics properties) {
+        return new ServiceMethodMetrics(beanFactory.getBeanProvider(MeterRegistry.class), properties);
+    }
+}
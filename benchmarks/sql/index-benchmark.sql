@@ -0,0 +1,130 @@
+-- Бенчмарк индексов из liquibase/v.1.1.car_shop/index.
+--
+-- Скрипт создаёт отдельную схему car_shop_bench с копией таблиц car_shop, заполняет её синтетическими данными
+-- (генератор случайных чисел инициализируется фиксированным значением, поэтому данные повторяются от запуска к запуску),
+-- выполняет запросы репозиториев CarRepository, UserRepository и OrderRepository через EXPLAIN (ANALYZE, BUFFERS)
+-- без индексов, затем создаёт индексы с теми же определениями, что и в changelog, и повторяет запросы.
+--
+-- Запуск (база из docker-compose.yml):
+--   psql -h localhost -U alexandr -d postgres -v cars=200000 -v users=100000 -v orders=1000000 \
+--        -f benchmarks/sql/index-benchmark.sql > index-benchmark.txt
+--
+-- Время выполнения каждого запроса выводится в строке "Execution Time" плана.
+
+\set ON_ERROR_STOP on
+\if :{?cars}
+\else
+    \set cars 200000
+\endif
+\if :{?users}
+\else
+    \set users 100000
+\endif
+\if :{?orders}
+\else
+    \set orders 1000000
+\endif
+
+DROP SCHEMA IF EXISTS car_shop_bench CASCADE;
+CREATE SCHEMA car_shop_bench;
+SET search_path = car_shop_bench;
+
+CREATE TABLE car
+(
+    car_id    INTEGER PRIMARY KEY,
+    brand     TEXT    NOT NULL,
+    model     TEXT    NOT NULL,
+    year      INTEGER NOT NULL,
+    price     NUMERIC NOT NULL,
+    condition TEXT    NOT NULL
+);
+
+CREATE TABLE "user"
+(
+    user_id  INTEGER PRIMARY KEY,
+    login    TEXT,
+    password TEXT,
+    name     TEXT,
+    age      INTEGER,
+    city     TEXT
+);
+
+CREATE TABLE user_roles
+(
+    role_id INTEGER PRIMARY KEY,
+    user_id INTEGER REFERENCES "user" (user_id),
+    role    TEXT
+);
+
+CREATE TABLE orders
+(
+    order_id INTEGER PRIMARY KEY,
+    user_id  INTEGER NOT NULL REFERENCES "user" (user_id),
+    car_id   INTEGER NOT NULL REFERENCES car (car_id),
+    date     DATE,
+    status   SMALLINT
+);
+
+SELECT setseed(0.42);
+
+INSERT INTO car (car_id, brand, model, year, price, condition)
+SELECT g,
+       (ARRAY ['BMW','Volvo','Mercedes','Audi','Toyota','Haval','Kia','Lada','Skoda','Ford'])[1 + (random() * 9)::int],
+       'M' || (random() * 200)::int,
+       1990 + (random() * 34)::int,
+       round((1000 + random() * 99000)::numeric, 2),
+       (ARRAY ['new','good','used','broken'])[1 + (random() * 3)::int]
+FROM generate_series(1, :cars) g;
+
+INSERT INTO "user" (user_id, login, password, name, age, city)
+SELECT g,
+       'user' || g,
+       'password' || g,
+       (ARRAY ['Alexandr','John','Tanya','Valera','Robert','Pavel','Maria','Olga','Ivan','Anna'])[1 + (random() * 9)::int]
+           || (random() * 500)::int,
+       18 + (random() * 80)::int,
+       (ARRAY ['Moscow','London','Milan','New-York','Ivanovo','Paris','Berlin','Kazan'])[1 + (random() * 7)::int]
+           || (random() * 50)::int
+FROM generate_series(1, :users) g;
+
+INSERT INTO user_roles (role_id, user_id, role)
+SELECT g, g, (ARRAY ['ADMINISTRATOR','MANAGER','CLIENT'])[1 + (random() * 2)::int]
+FROM generate_series(1, :users) g;
+
+INSERT INTO orders (order_id, user_id, car_id, date, status)
+SELECT g,
+       1 + (random() * (:users - 1))::int,
+       1 + (random() * (:cars - 1))::int,
+       DATE '2020-01-01' + (random() * 1700)::int,
+       (random() * 4)::int
+FROM generate_series(1, :orders) g;
+
+ANALYZE;
+
+-- Запросы, которые строит Hibernate для методов репозиториев.
+\set run_queries 'EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM car WHERE brand = ''Volvo''; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM car WHERE condition = ''broken''; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM car WHERE price = 25000; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM car WHERE brand = ''Volvo'' AND price BETWEEN 10000 AND 20000 ORDER BY price DESC LIMIT 20; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM car WHERE year BETWEEN 2020 AND 2022 ORDER BY car_id LIMIT 20; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM "user" WHERE name = ''Tanya42''; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM "user" WHERE age = 33; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM "user" WHERE city = ''Moscow7''; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM "user" ORDER BY name, user_id LIMIT 101; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM "user" WHERE age > 50 OR (age = 50 AND user_id > 5000) ORDER BY age, user_id LIMIT 101; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM "user" ORDER BY city, user_id LIMIT 101; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM user_roles WHERE user_id = ANY (ARRAY [1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20]); EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM orders WHERE date = DATE ''2022-06-01''; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM orders WHERE status = 1 LIMIT 100; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM orders WHERE user_id = 4242; EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM orders WHERE car_id = 4242;'
+
+\echo '==================== BEFORE: без индексов ===================='
+:run_queries
+
+-- Те же индексы, что создаются changelog liquibase/v.1.1.car_shop/index.
+CREATE INDEX idx_car_brand_price ON car (brand, price);
+CREATE INDEX idx_car_condition ON car (condition);
+CREATE INDEX idx_car_price ON car (price);
+CREATE INDEX idx_car_year ON car (year);
+CREATE INDEX idx_user_name_id ON "user" (name, user_id);
+CREATE INDEX idx_user_age_id ON "user" (age, user_id);
+CREATE INDEX idx_user_city_id ON "user" (city, user_id);
+CREATE INDEX idx_user_roles_user_id ON user_roles (user_id);
+CREATE INDEX idx_orders_user_id ON orders (user_id);
+CREATE INDEX idx_orders_car_id ON orders (car_id);
+CREATE INDEX idx_orders_date ON orders (date);
+CREATE INDEX idx_orders_status ON orders (status);
+
+ANALYZE;
+
+\echo '==================== AFTER: с индексами ===================='
+:run_queries
+
+RESET search_path;
+DROP SCHEMA car_shop_bench CASCADE;
@@ -0,0 +1,105 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.y_lab.car_shop_spring_boot.model.Car;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.AuditProperties;
+import org.example.aop.UserAuditAspect;
+import org.example.audit.AuditEventWriter;
+import org.example.metrics.ServiceMethodMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк накладных расходов {@link UserAuditAspect} на вызов метода {@code @Service}.
+ * <p>
+ * Сравниваются прямой вызов, вызов через прокси CGLIB без советов и вызов через прокси с аспектом аудита
+ * при уровне логгера {@code auditLevel} и с записью метрик или без неё ({@code metrics}). Логгер аудита отсоединён
+ * от аппендеров, поэтому измеряется стоимость для вызывающего потока, а не запись на диск, которая выполняется
+ * фоновым потоком.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditAspectBenchmark {
+
+    @Param({"OFF", "INFO"})
+    private String auditLevel;
+
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private SampleService direct;
+    private SampleService plainProxy;
+    private SampleService auditedProxy;
+    private AuditEventWriter writer;
+
+    @Setup
+    public void setUp() {
+        final Logger logger = (Logger) LoggerFactory.getLogger(UserAuditAspect.class);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(Level.toLevel(auditLevel));
+
+        final AuditProperties properties = new AuditProperties();
+        writer = new AuditEventWriter(logger, properties);
+        writer.start();
+        final ServiceMethodMetrics methodMetrics = metrics
+                ? new ServiceMethodMetrics(new StaticListableBeanFactory(Map.of("meterRegistry", new SimpleMeterRegistry()))
+                .getBeanProvider(MeterRegistry.class), properties.getMetrics())
+                : null;
+
+        direct = new SampleService();
+
+        final ProxyFactory proxyFactory = new ProxyFactory(new SampleService());
+        proxyFactory.setProxyTargetClass(true);
+        plainProxy = (SampleService) proxyFactory.getProxy();
+
+        final AspectJProxyFactory aspectFactory = new AspectJProxyFactory(new SampleService());
+        aspectFactory.setProxyTargetClass(true);
+        aspectFactory.addAspect(new UserAuditAspect(writer, methodMetrics));
+        auditedProxy = aspectFactory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Benchmark
+    public Car direct() {
+        return direct.getById(1);
+    }
+
+    @Benchmark
+    public Car plainProxy() {
+        return plainProxy.getById(1);
+    }
+
+    @Benchmark
+    public Car auditedProxy() {
+        return auditedProxy.getById(1);
+    }
+
+    @Service
+    public static class SampleService {
+        private final Car car = new Car(1, "BMW", "M4", 2024, 25000, "new");
+
+        public Car getById(int id) {
+            return car;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import com.y_lab.car_shop_spring_boot.model.Car;
+import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import com.y_lab.car_shop_spring_boot.model.Roles;
+import com.y_lab.car_shop_spring_boot.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Генератор синтетических данных для бенчмарков.
+ * <p>
+ * Данные генерируются с фиксированным начальным значением генератора случайных чисел, поэтому повторяются от запуска
+ * к запуску. Если {@code assignIds} равно {@code false}, идентификаторы не заполняются и назначаются базой данных
+ * при сохранении.
+ * </p>
+ */
+final class BenchmarkData {
+    static final String[] BRANDS = {"BMW", "Volvo", "Mercedes", "Audi", "Toyota", "Haval", "Kia", "Lada", "Skoda", "Ford"};
+    static final String[] CONDITIONS = {"new", "good", "used"};
+    static final String[] NAMES = {"Alexandr", "John", "Tanya", "Valera", "Robert", "Pavel", "Maria", "Olga"};
+    static final String[] CITIES = {"Moscow", "London", "Milan", "New-York", "Ivanovo", "Paris", "Berlin", "Kazan"};
+    static final OrderStatus[] STATUSES = {OrderStatus.CREATED, OrderStatus.IN_TRANSIT, OrderStatus.READY};
+
+    private static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    static List<Car> cars(int count, boolean assignIds) {
+        final Random random = new Random(SEED);
+        final List<Car> cars = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cars.add(new Car(assignIds ? i + 1 : 0,
+                    BRANDS[random.nextInt(BRANDS.length)],
+                    "M" + random.nextInt(200),
+                    1990 + random.nextInt(35),
+                    1000 + random.nextInt(99_000),
+                    CONDITIONS[random.nextInt(CONDITIONS.length)]));
+        }
+        return cars;
+    }
+
+    static List<User> users(int count, boolean assignIds) {
+        final Random random = new Random(SEED);
+        final List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Set<Roles> roles = new HashSet<>();
+            roles.add(Roles.values()[random.nextInt(Roles.values().length)]);
+            users.add(new User(assignIds ? i + 1 : 0,
+                    "user" + i,
+                    "password" + i,
+                    NAMES[random.nextInt(NAMES.length)] + random.nextInt(100),
+                    18 + random.nextInt(80),
+                    CITIES[random.nextInt(CITIES.length)],
+                    roles));
+        }
+        return users;
+    }
+
+    static List<Order> orders(int count, int users, int cars, boolean assignIds) {
+        final Random random = new Random(SEED);
+        final LocalDate firstDate = LocalDate.of(2024, 1, 1);
+        final List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(new Order(assignIds ? i + 1 : 0,
+                    1 + random.nextInt(users),
+                    1 + random.nextInt(cars),
+                    firstDate.plusDays(random.nextInt(200)),
+                    STATUSES[random.nextInt(STATUSES.length)]));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,38 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Точка входа для запуска бенчмарков.
+ * <p>
+ * Передаёт аргументы командной строки JMH без изменений, но если формат результатов не задан параметром {@code -rf},
+ * сохраняет результаты в JSON в файл {@value #DEFAULT_RESULT_FILE}, чтобы запуски можно было сравнивать между собой.
+ * </p>
+ *
+ * <p>
+ * Пример запуска:
+ * <pre>
+ *     mvn -pl benchmarks -am package -DskipTests
+ *     java -jar benchmarks/target/benchmarks.jar                       # все бенчмарки
+ *     java -jar benchmarks/target/benchmarks.jar MapperBenchmark -p size=100000
+ *     java -jar benchmarks/target/benchmarks.jar -rf csv -rff run.csv  # другой формат
+ * </pre>
+ * </p>
+ */
+public final class BenchmarkRunner {
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final List<String> arguments = new ArrayList<>(List.of(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(0, List.of("-rf", "json", "-rff", DEFAULT_RESULT_FILE));
+        }
+        Main.main(arguments.toArray(String[]::new));
+    }
+}
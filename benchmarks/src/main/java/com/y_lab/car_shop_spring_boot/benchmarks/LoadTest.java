@@ -0,0 +1,159 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Нагрузочный тест запущенного приложения: пропускная способность и распределение задержек под всплеском запросов.
+ * <p>
+ * {@code clients} клиентов одновременно отправляют запросы на {@code url}, каждый следующий запрос — сразу после ответа
+ * на предыдущий. После прогрева в течение {@code warmup} задержки записываются в течение {@code duration}, затем
+ * выводятся количество запросов в секунду, перцентили задержки успешных ответов и количество ответов по кодам
+ * состояния (при включённом ограничении {@code web.concurrency-limit} лишние запросы получают 503).
+ * </p>
+ *
+ * <p>
+ * Для сравнения режимов приложение запускается дважды — на потоках платформы (по умолчанию) и на виртуальных потоках
+ * (Java 21+) — и тест запускается с одинаковыми параметрами:
+ * <pre>
+ *     java -jar car_app/target/car_app-0.0.1-SNAPSHOT-exec.jar
+ *     java -jar car_app/target/car_app-0.0.1-SNAPSHOT-exec.jar --spring.threads.virtual.enabled=true
+ *
+ *     java -cp benchmarks/target/benchmarks.jar com.y_lab.car_shop_spring_boot.benchmarks.LoadTest \
+ *         url=http://localhost:8080/cars/search?brand=Volvo clients=2000 warmup=10s duration=60s
+ * </pre>
+ * </p>
+ */
+public final class LoadTest {
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "url", "http://localhost:8080/cars?limit=20",
+            "clients", "1000",
+            "warmup", "10s",
+            "duration", "30s",
+            "timeout", "30s");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            final int eq = arg.indexOf('=');
+            if (eq < 0 || !DEFAULTS.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown argument " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        final URI uri = URI.create(options.get("url"));
+        final int clients = Integer.parseInt(options.get("clients"));
+        final Duration warmup = parseDuration(options.get("warmup"));
+        final Duration duration = parseDuration(options.get("duration"));
+        final Duration timeout = parseDuration(options.get("timeout"));
+
+        final HttpClient client = HttpClient.newBuilder().connectTimeout(timeout).build();
+        final HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+        final long start = System.nanoTime();
+        final long measureFrom = start + warmup.toNanos();
+        final long measureTo = measureFrom + duration.toNanos();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        final List<Future<ClientResult>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> run(client, request, measureFrom, measureTo)));
+        }
+        final ClientResult total = new ClientResult();
+        for (Future<ClientResult> future : futures) {
+            total.merge(future.get());
+        }
+        executor.shutdown();
+        print(uri, clients, duration, total);
+    }
+
+    private static ClientResult run(HttpClient client, HttpRequest request, long measureFrom, long measureTo) {
+        final ClientResult result = new ClientResult();
+        long now;
+        while ((now = System.nanoTime()) < measureTo) {
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            }
+            final long end = System.nanoTime();
+            if (now >= measureFrom && end <= measureTo) {
+                result.record(status, end - now);
+            }
+        }
+        return result;
+    }
+
+    private static void print(URI uri, int clients, Duration duration, ClientResult result) {
+        final long[] latencies = result.latencies();
+        Arrays.sort(latencies);
+        final long requests = result.statuses.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("%s, %d clients, %d s%n", uri, clients, duration.toSeconds());
+        System.out.printf("throughput: %.1f req/s (%d requests, %d successful)%n",
+                (double) requests / duration.toSeconds(), requests, latencies.length);
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 1.0));
+        System.out.println("status codes (-1 = connection error or timeout): " + result.statuses);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static Duration parseDuration(String value) {
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+
+    /**
+     * Результаты одного клиента: задержки успешных (2xx) ответов и количество ответов по кодам состояния.
+     */
+    private static final class ClientResult {
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+        private long[] latencies = new long[1024];
+        private int size;
+
+        void record(int status, long latencyNanos) {
+            statuses.merge(status, 1L, Long::sum);
+            if (status / 100 != 2) {
+                return;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+        }
+
+        void merge(ClientResult other) {
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, size + other.size);
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+        }
+
+        long[] latencies() {
+            return Arrays.copyOf(latencies, size);
+        }
+    }
+}
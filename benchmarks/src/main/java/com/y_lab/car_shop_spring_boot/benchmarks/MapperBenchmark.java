@@ -0,0 +1,95 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
+import com.y_lab.car_shop_spring_boot.dto.UserDTO;
+import com.y_lab.car_shop_spring_boot.mapper.CarMapper;
+import com.y_lab.car_shop_spring_boot.mapper.OrderMapper;
+import com.y_lab.car_shop_spring_boot.mapper.UserMapper;
+import com.y_lab.car_shop_spring_boot.model.Car;
+import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.User;
+import com.y_lab.car_shop_spring_boot.service.jpa.CarServiceJpa;
+import com.y_lab.car_shop_spring_boot.service.jpa.OrderServiceJpa;
+import com.y_lab.car_shop_spring_boot.service.jpa.UserServiceJpa;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки преобразований MapStruct между сущностями и DTO.
+ * <p>
+ * Методы {@code *ToDTO} и {@code *ToEntity} измеряют преобразование одного объекта, методы {@code *GetAllDTO} —
+ * преобразование списка из {@code size} элементов методом {@code getAllDTO} сервиса, как это делают контроллеры
+ * при выдаче страницы. Сервисы создаются без репозиториев: {@code getAllDTO} к ним не обращается.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    private List<Car> cars;
+    private List<User> users;
+    private List<Order> orders;
+    private CarDTO carDTO;
+    private CarServiceJpa carService;
+    private UserServiceJpa userService;
+    private OrderServiceJpa orderService;
+
+    @Setup
+    public void setUp() {
+        cars = BenchmarkData.cars(size, true);
+        users = BenchmarkData.users(size, true);
+        orders = BenchmarkData.orders(size, size, size, true);
+        carDTO = CarMapper.INSTANCE.getCarDTO(cars.get(0));
+        carService = new CarServiceJpa(null, null, null, null, null);
+        userService = new UserServiceJpa(null, null, null);
+        orderService = new OrderServiceJpa(null, null, null, null, null);
+    }
+
+    @Benchmark
+    public CarDTO carToDTO() {
+        return CarMapper.INSTANCE.getCarDTO(cars.get(0));
+    }
+
+    @Benchmark
+    public Car carToEntity() {
+        return CarMapper.INSTANCE.getCar(carDTO);
+    }
+
+    @Benchmark
+    public UserDTO userToDTO() {
+        return UserMapper.INSTANCE.getUserDTO(users.get(0));
+    }
+
+    @Benchmark
+    public OrderDTO orderToDTO() {
+        return OrderMapper.INSTANCE.getOdderDTO(orders.get(0));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<CarDTO> carGetAllDTO() {
+        return carService.getAllDTO(cars);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<UserDTO> userGetAllDTO() {
+        return userService.getAllDTO(users);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<OrderDTO> orderGetAllDTO() {
+        return orderService.getAllDTO(orders);
+    }
+}
@@ -0,0 +1,130 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import com.y_lab.car_shop_spring_boot.CarShopSpringBootApplication;
+import com.y_lab.car_shop_spring_boot.dao.CarRepository;
+import com.y_lab.car_shop_spring_boot.dao.OrderRepository;
+import com.y_lab.car_shop_spring_boot.dao.UserRepository;
+import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
+import com.y_lab.car_shop_spring_boot.dto.UserDTO;
+import com.y_lab.car_shop_spring_boot.mapper.CarMapper;
+import com.y_lab.car_shop_spring_boot.service.CarService;
+import com.y_lab.car_shop_spring_boot.service.OrderService;
+import com.y_lab.car_shop_spring_boot.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение чтения списков через сущности и через DTO-проекции репозиториев.
+ * <p>
+ * Методы {@code *Entities} выполняют чтение так, как контроллеры делали до перехода на проекции: загружают сущности
+ * и преобразуют их в DTO через {@code getAllDTO} или MapStruct. Методы {@code *Projection} выполняют тот же запрос
+ * методами {@code *DTO} сервисов или {@code findDTO*} репозиториев, которые выбирают столбцы сразу в DTO.
+ * Страницы читаются размером {@code pageSize}; фильтры {@code carFilter*} и {@code userFilter*} возвращают
+ * около {@code rows / 10} и {@code rows / 8} строк. Фильтр автомобилей вызывается через репозиторий, потому что
+ * результат фильтра в сервисе кэшируется.
+ * </p>
+ *
+ * <p>
+ * Контекст приложения и база данных H2 настраиваются так же, как в {@link ServiceBenchmark}. Объём памяти,
+ * выделяемой на одну операцию, выводится профилировщиком GC (строка {@code gc.alloc.rate.norm}):
+ * <pre>
+ *     java -jar benchmarks/target/benchmarks.jar ProjectionBenchmark -prof gc
+ * </pre>
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CarRepository carRepository;
+    private CarService carService;
+    private UserService userService;
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(CarShopSpringBootApplication.class,
+                "--spring.config.location=classpath:benchmark.properties");
+        carRepository = context.getBean(CarRepository.class);
+        carRepository.saveAll(BenchmarkData.cars(rows, false));
+        context.getBean(UserRepository.class).saveAll(BenchmarkData.users(rows, false));
+        context.getBean(OrderRepository.class).saveAll(BenchmarkData.orders(rows, rows, rows, false));
+
+        carService = context.getBean(CarService.class);
+        userService = context.getBean(UserService.class);
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CarDTO> carPageEntities() {
+        return carService.getAllDTO(carService.getPage(null, pageSize).getContent());
+    }
+
+    @Benchmark
+    public List<CarDTO> carPageProjection() {
+        return carService.getPageDTO(null, pageSize).getContent();
+    }
+
+    @Benchmark
+    public List<CarDTO> carFilterEntities() {
+        return carRepository.findByBrand("Volvo").stream()
+                .map(CarMapper.INSTANCE::getCarDTO)
+                .toList();
+    }
+
+    @Benchmark
+    public List<CarDTO> carFilterProjection() {
+        return carRepository.findDTOByBrand("Volvo");
+    }
+
+    @Benchmark
+    public List<UserDTO> userPageEntities() {
+        return userService.getAllDTO(userService.getPage(null, pageSize).getContent());
+    }
+
+    @Benchmark
+    public List<UserDTO> userPageProjection() {
+        return userService.getPageDTO(null, pageSize).getContent();
+    }
+
+    @Benchmark
+    public List<UserDTO> userFilterEntities() {
+        return userService.getAllDTO(userService.getFilteredUsers("city", "Moscow"));
+    }
+
+    @Benchmark
+    public List<UserDTO> userFilterProjection() {
+        return userService.getFilteredUsersDTO("city", "Moscow");
+    }
+
+    @Benchmark
+    public List<OrderDTO> orderPageEntities() {
+        return orderService.getAllDTO(orderService.getPage(null, pageSize).getContent());
+    }
+
+    @Benchmark
+    public List<OrderDTO> orderPageProjection() {
+        return orderService.getPageDTO(null, pageSize).getContent();
+    }
+}
@@ -0,0 +1,117 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
+import com.y_lab.car_shop_spring_boot.dto.UserDTO;
+import com.y_lab.car_shop_spring_boot.mapper.CarMapper;
+import com.y_lab.car_shop_spring_boot.mapper.OrderMapper;
+import com.y_lab.car_shop_spring_boot.mapper.UserMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки сериализации и десериализации списков DTO в форматах JSON, CBOR и Smile.
+ * <p>
+ * Методы {@code serialize*} записывают список из {@code size} объектов {@link CarDTO}, {@link OrderDTO} или
+ * {@link UserDTO} в массив байтов, как это делают контроллеры при выдаче страницы; методы {@code deserialize*}
+ * читают тот же список обратно, как это делает клиент. {@code ObjectMapper} для каждого формата создаётся
+ * {@link Jackson2ObjectMapperBuilder} с теми же настройками дат, что и в приложении.
+ * </p>
+ *
+ * <p>
+ * Размер сериализованных списков выводится при подготовке каждого набора параметров строкой {@code payload}.
+ * Объём памяти, выделяемой на одну операцию, выводится профилировщиком GC:
+ * <pre>
+ *     java -jar benchmarks/target/benchmarks.jar SerializationBenchmark -prof gc
+ * </pre>
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private List<CarDTO> cars;
+    private List<OrderDTO> orders;
+    private List<UserDTO> users;
+    private JavaType carListType;
+    private JavaType orderListType;
+    private JavaType userListType;
+    private byte[] carBytes;
+    private byte[] orderBytes;
+    private byte[] userBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = mapperBuilder(format)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        cars = BenchmarkData.cars(size, true).stream().map(CarMapper.INSTANCE::getCarDTO).toList();
+        orders = BenchmarkData.orders(size, size, size, true).stream().map(OrderMapper.INSTANCE::getOdderDTO).toList();
+        users = BenchmarkData.users(size, true).stream().map(UserMapper.INSTANCE::getUserDTO).toList();
+        carListType = mapper.getTypeFactory().constructCollectionType(List.class, CarDTO.class);
+        orderListType = mapper.getTypeFactory().constructCollectionType(List.class, OrderDTO.class);
+        userListType = mapper.getTypeFactory().constructCollectionType(List.class, UserDTO.class);
+        carBytes = mapper.writeValueAsBytes(cars);
+        orderBytes = mapper.writeValueAsBytes(orders);
+        userBytes = mapper.writeValueAsBytes(users);
+        System.out.printf("payload %s, %d elements: cars %d B, orders %d B, users %d B%n",
+                format, size, carBytes.length, orderBytes.length, userBytes.length);
+    }
+
+    private static Jackson2ObjectMapperBuilder mapperBuilder(String format) {
+        return switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> throw new IllegalArgumentException("Unexpected format: " + format);
+        };
+    }
+
+    @Benchmark
+    public byte[] serializeCars() throws IOException {
+        return mapper.writeValueAsBytes(cars);
+    }
+
+    @Benchmark
+    public List<CarDTO> deserializeCars() throws IOException {
+        return mapper.readValue(carBytes, carListType);
+    }
+
+    @Benchmark
+    public byte[] serializeOrders() throws IOException {
+        return mapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public List<OrderDTO> deserializeOrders() throws IOException {
+        return mapper.readValue(orderBytes, orderListType);
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() throws IOException {
+        return mapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public List<UserDTO> deserializeUsers() throws IOException {
+        return mapper.readValue(userBytes, userListType);
+    }
+}
@@ -0,0 +1,128 @@
+package com.y_lab.car_shop_spring_boot.benchmarks;
+
+import com.y_lab.car_shop_spring_boot.CarShopSpringBootApplication;
+import com.y_lab.car_shop_spring_boot.dao.CarRepository;
+import com.y_lab.car_shop_spring_boot.dao.OrderRepository;
+import com.y_lab.car_shop_spring_boot.dao.UserRepository;
+import com.y_lab.car_shop_spring_boot.dto.CarFacetsDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import com.y_lab.car_shop_spring_boot.model.Car;
+import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.User;
+import com.y_lab.car_shop_spring_boot.service.CarService;
+import com.y_lab.car_shop_spring_boot.service.OrderService;
+import com.y_lab.car_shop_spring_boot.service.UserService;
+import com.y_lab.car_shop_spring_boot.service.jpa.CarServiceJpa;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки сервисов {@code CarServiceJpa}, {@code UserServiceJpa} и {@code OrderServiceJpa}.
+ * <p>
+ * Запускает контекст приложения без веб-сервера с базой данных H2 в памяти процесса (настройки
+ * {@code benchmark.properties}), заполняет таблицы {@code rows} автомобилями, пользователями и заказами
+ * и измеряет методы сервисов через те же прокси, что и в приложении: транзакции, кэш и аспект аудита
+ * (логгер аудита отключён). Результаты отражают стоимость слоёв приложения и JPA, а не PostgreSQL.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private UserService userService;
+    private OrderService orderService;
+    private CarSearchCriteria criteria;
+    private int id;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(CarShopSpringBootApplication.class,
+                "--spring.config.location=classpath:benchmark.properties");
+        final CarRepository cars = context.getBean(CarRepository.class);
+        final UserRepository users = context.getBean(UserRepository.class);
+        final OrderRepository orders = context.getBean(OrderRepository.class);
+        cars.saveAll(BenchmarkData.cars(rows, false));
+        users.saveAll(BenchmarkData.users(rows, false));
+        orders.saveAll(BenchmarkData.orders(rows, rows, rows, false));
+        context.getBean(CarServiceJpa.class).loadFacetIndex();
+
+        carService = context.getBean(CarService.class);
+        userService = context.getBean(UserService.class);
+        orderService = context.getBean(OrderService.class);
+        criteria = new CarSearchCriteria("Volvo", null, null, 10_000.0, 50_000.0, 2010, null);
+        id = cars.findAll(PageRequest.of(0, 1)).getContent().get(0).getCarId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Car carGetByIdCached() {
+        return carService.getById(id);
+    }
+
+    @Benchmark
+    public CursorPage<Car> carGetPage() {
+        return carService.getPage(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<Car> carSearch() {
+        return carService.search(criteria, PageRequest.of(0, 20, Sort.by("price")));
+    }
+
+    @Benchmark
+    public List<Car> carFilterCached() {
+        return carService.getFilteredCars("brand", "Volvo");
+    }
+
+    @Benchmark
+    public CarFacetsDTO carFacets() {
+        return carService.getFacets(criteria, 5, 10_000);
+    }
+
+    @Benchmark
+    public User userGetById() {
+        return userService.getById(id);
+    }
+
+    @Benchmark
+    public CursorPage<User> userGetPage() {
+        return userService.getPage(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<User> userGetSortedPage() {
+        return userService.getSortedPage("name", null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Order orderGetById() {
+        return orderService.getById(id);
+    }
+
+    @Benchmark
+    public CursorPage<Order> orderGetPage() {
+        return orderService.getPage(null, PAGE_SIZE);
+    }
+}
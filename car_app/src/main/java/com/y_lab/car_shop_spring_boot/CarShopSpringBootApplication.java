@@ -3,7 +3,10 @@ package com.y_lab.car_shop_spring_boot;
 import org.example.EnableSwaggerSpringDoc;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс Spring Boot приложения для управления магазином автомобилей.
@@ -16,11 +19,17 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
  * Аннотация {@link EnableAspectJAutoProxy} активирует поддержку аспектно-ориентированного программирования (AOP),
  * позволяя использовать аспекты в приложении.
  * Аннотация {@link EnableSwaggerSpringDoc} включает поддержку документации API с помощью Swagger SpringDoc.
+ * Аннотация {@link EnableCaching} включает кэширование результатов методов сервисов.
+ * Аннотация {@link EnableScheduling} включает выполнение задач по расписанию, например пересчёт сводки продаж.
+ * Автоконфигурация {@link R2dbcAutoConfiguration} отключена: подключение R2DBC для неблокирующего чтения каталога
+ * создаётся только при включённом свойстве {@code catalog.reactive.enabled}.
  * </p>
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @EnableAspectJAutoProxy
 @EnableSwaggerSpringDoc
+@EnableCaching
+@EnableScheduling
 public class CarShopSpringBootApplication {
     public static void main(String[] args) {
         SpringApplication.run(CarShopSpringBootApplication.class, args);
@@ -0,0 +1,41 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Конфигурация двоичных форматов ответов CBOR и Smile.
+ * <p>
+ * Контроллеры {@code /cars}, {@code /users} и {@code /orders} отдают JSON по умолчанию, а с заголовком
+ * {@code Accept: application/cbor} или {@code Accept: application/x-jackson-smile} — те же объекты в формате CBOR
+ * или Smile. Тела запросов в этих форматах принимаются по заголовку {@code Content-Type}. Двоичные форматы
+ * компактнее JSON и быстрее разбираются клиентом, поэтому предназначены для внутренних сервисов.
+ * </p>
+ *
+ * <p>
+ * Spring MVC регистрирует преобразователи CBOR и Smile сам, если библиотеки Jackson для этих форматов есть
+ * в classpath, но со своим {@code ObjectMapper}. Бины этой конфигурации заменяют их преобразователями с
+ * {@code ObjectMapper}, созданным {@link Jackson2ObjectMapperBuilder} Spring Boot, поэтому свойства
+ * {@code spring.jackson.*} и модули Jackson (например, формат дат) одинаково действуют во всех форматах.
+ * JSON остаётся первым в списке преобразователей и выбирается, если клиент не запросил другой формат.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatConfiguration {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,33 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.y_lab.car_shop_spring_boot.util.ClientKeyResolver;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Конфигурация определения клиента запроса {@link ClientKeyResolver}.
+ * <p>
+ * Ключ API передаётся в заголовке {@code web.client-key.header} и учитывается, только если он указан в списке
+ * зарегистрированных ключей {@code web.client-key.api-keys}; иначе клиент определяется аутентифицированным
+ * пользователем или адресом.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ClientKeyConfiguration.ClientKeyProperties.class)
+public class ClientKeyConfiguration {
+
+    @Bean
+    public ClientKeyResolver clientKeyResolver(ClientKeyProperties properties) {
+        return new ClientKeyResolver(properties.header(), properties.apiKeys());
+    }
+
+    @ConfigurationProperties("web.client-key")
+    public record ClientKeyProperties(@DefaultValue("X-API-Key") String header,
+                                      @DefaultValue List<String> apiKeys) {
+    }
+}
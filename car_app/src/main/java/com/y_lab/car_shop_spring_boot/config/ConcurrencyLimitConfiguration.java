@@ -0,0 +1,50 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.y_lab.car_shop_spring_boot.util.ConnectionPoolLimitFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Конфигурация ограничения количества одновременно обрабатываемых запросов размером пула соединений.
+ * <p>
+ * Включается свойством {@code web.concurrency-limit.enabled=true} (по умолчанию вместе с виртуальными потоками).
+ * Свойства:
+ * <ul>
+ *     <li>{@code web.concurrency-limit.per-connection} - сколько запросов пропускается на одно соединение пула.</li>
+ *     <li>{@code web.concurrency-limit.acquire-timeout} - сколько запрос ждёт разрешения до ответа 503.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * {@link ConnectionPoolLimitFilter} выполняется после {@code RateLimitFilter} и {@code IdempotencyFilter}, чтобы
+ * отклонённые ими запросы и повторы, ждущие первого запроса, не занимали его разрешения.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "web.concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitConfiguration {
+
+    @Bean
+    public ConnectionPoolLimitFilter connectionPoolLimitFilter(
+            DataSource dataSource,
+            @Value("${web.concurrency-limit.per-connection:2}") int perConnection,
+            @Value("${web.concurrency-limit.acquire-timeout:1s}") Duration acquireTimeout) throws SQLException {
+        return new ConnectionPoolLimitFilter(dataSource, perConnection, acquireTimeout);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConnectionPoolLimitFilter> connectionPoolLimitFilterRegistration(
+            ConnectionPoolLimitFilter filter) {
+        FilterRegistrationBean<ConnectionPoolLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+}
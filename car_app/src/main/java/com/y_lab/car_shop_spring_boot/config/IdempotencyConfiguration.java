@@ -0,0 +1,55 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.y_lab.car_shop_spring_boot.dao.IdempotencyRecordRepository;
+import com.y_lab.car_shop_spring_boot.util.ClientKeyResolver;
+import com.y_lab.car_shop_spring_boot.util.IdempotencyFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Конфигурация поддержки заголовка {@code Idempotency-Key}.
+ * <p>
+ * Включается свойством {@code idempotency.enabled=true}. Свойства:
+ * <ul>
+ *     <li>{@code idempotency.paths} - пути, запросы {@code POST} к которым принимают ключ; ключ действует в пределах
+ *     клиента {@link ClientKeyResolver}.</li>
+ *     <li>{@code idempotency.ttl} - срок хранения ответа в памяти и в таблице {@code car_shop.idempotency_key}.</li>
+ *     <li>{@code idempotency.max-entries} - наибольшее количество ответов в памяти.</li>
+ *     <li>{@code idempotency.wait-timeout} - сколько повтор ждёт завершения одновременного запроса с тем же ключом.</li>
+ *     <li>{@code idempotency.cleanup-interval} - как часто из таблицы удаляются устаревшие ответы.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * {@link IdempotencyFilter} выполняется после {@code RateLimitFilter}, но раньше {@code ConnectionPoolLimitFilter},
+ * чтобы повторы, ждущие первого запроса, не занимали его разрешения.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "idempotency.enabled", havingValue = "true")
+public class IdempotencyConfiguration {
+
+    @Bean
+    public IdempotencyFilter idempotencyFilter(IdempotencyRecordRepository repository,
+                                               ClientKeyResolver clientKeyResolver,
+                                               @Value("${idempotency.paths:/orders,/cars}") List<String> paths,
+                                               @Value("${idempotency.ttl:24h}") Duration ttl,
+                                               @Value("${idempotency.max-entries:10000}") int maxEntries,
+                                               @Value("${idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        return new IdempotencyFilter(repository, clientKeyResolver, paths, ttl, maxEntries, waitTimeout);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilterRegistration(IdempotencyFilter filter) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,52 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y_lab.car_shop_spring_boot.service.OrderEventSink;
+import com.y_lab.car_shop_spring_boot.service.sink.FileOrderEventSink;
+import com.y_lab.car_shop_spring_boot.service.sink.InMemoryOrderEventSink;
+import com.y_lab.car_shop_spring_boot.service.sink.WebhookOrderEventSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Конфигурация получателя событий заказов {@link OrderEventSink}.
+ * <p>
+ * Получатель выбирается свойством {@code outbox.sink}:
+ * <ul>
+ *     <li>{@code webhook} - запрос {@code POST} на {@code outbox.webhook.url} с таймаутом {@code outbox.webhook.timeout}.</li>
+ *     <li>{@code file} - дописывание в файл {@code outbox.file.path} в формате NDJSON.</li>
+ *     <li>{@code memory} - список в памяти для тестов; используется, если свойство не задано.</li>
+ * </ul>
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+public class OutboxConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(value = "outbox.sink", havingValue = "webhook")
+    public OrderEventSink webhookOrderEventSink(RestClient.Builder builder,
+                                                @Value("${outbox.webhook.url}") URI url,
+                                                @Value("${outbox.webhook.timeout:5s}") Duration timeout) {
+        return new WebhookOrderEventSink(builder, url, timeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "outbox.sink", havingValue = "file")
+    public OrderEventSink fileOrderEventSink(ObjectMapper objectMapper,
+                                             @Value("${outbox.file.path:log/order-events.ndjson}") Path path) {
+        return new FileOrderEventSink(objectMapper, path);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "outbox.sink", havingValue = "memory", matchIfMissing = true)
+    public InMemoryOrderEventSink inMemoryOrderEventSink() {
+        return new InMemoryOrderEventSink();
+    }
+}
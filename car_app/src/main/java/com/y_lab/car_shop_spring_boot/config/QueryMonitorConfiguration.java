@@ -0,0 +1,103 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.y_lab.car_shop_spring_boot.dto.QueryReportDTO;
+import com.y_lab.car_shop_spring_boot.util.QueryCountFilter;
+import com.y_lab.car_shop_spring_boot.util.QueryMonitor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Конфигурация мониторинга SQL-запросов.
+ * <p>
+ * Включается свойством {@code query-monitor.enabled=true}. Бин {@code dataSource} (пул Hikari или, при включённых
+ * репликах, маршрутизирующий источник {@link ReadReplicaConfiguration}) оборачивается {@link QueryMonitor#wrap(DataSource)},
+ * поэтому учитываются все запросы JPA, Liquibase и Spring Data; {@link QueryCountFilter} считает запросы каждого
+ * HTTP-запроса. Свойства:
+ * <ul>
+ *     <li>{@code query-monitor.slow-threshold} - время, начиная с которого запрос считается медленным.</li>
+ *     <li>{@code query-monitor.explain} - план медленного запроса: {@code analyze}, {@code plan} или {@code off}.</li>
+ *     <li>{@code query-monitor.explain-interval} и {@code query-monitor.explain-timeout} - как часто и как долго
+ *     запрашивается план одного запроса.</li>
+ *     <li>{@code query-monitor.n-plus-one-threshold} - сколько выполнений одного запроса в HTTP-запросе считается N+1.</li>
+ *     <li>{@code query-monitor.max-queries} - наибольшее количество различных запросов в статистике.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Отчёт выдаётся конечной точкой Actuator {@code /actuator/queries} ({@link QueryMonitorEndpoint}); параметр
+ * {@code limit} ограничивает длину списков, запрос {@code DELETE} сбрасывает статистику.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "query-monitor.enabled", havingValue = "true")
+public class QueryMonitorConfiguration {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public QueryMonitor queryMonitor(@Value("${query-monitor.slow-threshold:500ms}") Duration slowThreshold,
+                                     @Value("${query-monitor.explain:analyze}") QueryMonitor.Explain explain,
+                                     @Value("${query-monitor.explain-interval:10m}") Duration explainInterval,
+                                     @Value("${query-monitor.explain-timeout:5s}") Duration explainTimeout,
+                                     @Value("${query-monitor.n-plus-one-threshold:10}") int nPlusOneThreshold,
+                                     @Value("${query-monitor.max-queries:500}") int maxQueries) {
+        return new QueryMonitor(slowThreshold, explain, explainInterval, explainTimeout, nPlusOneThreshold, maxQueries);
+    }
+
+    @Bean
+    public static BeanPostProcessor queryMonitorDataSourcePostProcessor(ObjectProvider<QueryMonitor> monitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return monitor.getObject().wrap(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public QueryCountFilter queryCountFilter(QueryMonitor monitor) {
+        return new QueryCountFilter(monitor);
+    }
+
+    @Bean
+    public QueryMonitorEndpoint queryMonitorEndpoint(QueryMonitor monitor) {
+        return new QueryMonitorEndpoint(monitor);
+    }
+
+    /**
+     * Конечная точка Actuator {@code /actuator/queries} с отчётом {@link QueryReportDTO}.
+     */
+    @Endpoint(id = "queries")
+    public static class QueryMonitorEndpoint {
+        private static final int DEFAULT_LIMIT = 20;
+
+        private final QueryMonitor monitor;
+
+        public QueryMonitorEndpoint(QueryMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        @ReadOperation
+        public QueryReportDTO report(@Nullable Integer limit) {
+            return monitor.report(limit == null ? DEFAULT_LIMIT : limit);
+        }
+
+        @DeleteOperation
+        public void reset() {
+            monitor.reset();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.y_lab.car_shop_spring_boot.util.ClientKeyResolver;
+import com.y_lab.car_shop_spring_boot.util.RateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+/**
+ * Конфигурация ограничения частоты запросов клиентов.
+ * <p>
+ * Включается свойством {@code web.rate-limit.enabled=true}. Маршруты задаются списком
+ * {@code web.rate-limit.routes[i]} со свойствами {@code name}, {@code method}, {@code path}, {@code capacity}
+ * и {@code refill-per-second} (см. {@link RateLimitFilter.Route}); клиент определяется {@link ClientKeyResolver}
+ * (см. {@link ClientKeyConfiguration}), количество корзин каждого маршрута ограничено {@code web.rate-limit.max-clients}.
+ * </p>
+ *
+ * <p>
+ * {@link RateLimitFilter} выполняется раньше остальных фильтров приложения, чтобы отклонённые запросы
+ * не занимали разрешения {@code ConnectionPoolLimitFilter} и соединения с базой данных.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "web.rate-limit.enabled", havingValue = "true")
+@EnableConfigurationProperties(RateLimitConfiguration.RateLimitProperties.class)
+public class RateLimitConfiguration {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitProperties properties, ClientKeyResolver clientKeyResolver,
+                                           MeterRegistry registry) {
+        return new RateLimitFilter(clientKeyResolver, properties.routes(), properties.maxClients(), registry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @ConfigurationProperties("web.rate-limit")
+    public record RateLimitProperties(@DefaultValue("100000") long maxClients,
+                                      @DefaultValue List<RateLimitFilter.Route> routes) {
+    }
+}
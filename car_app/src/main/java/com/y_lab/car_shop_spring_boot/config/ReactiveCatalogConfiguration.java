@@ -0,0 +1,60 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Конфигурация неблокирующего чтения каталога автомобилей через R2DBC.
+ * <p>
+ * Включается свойством {@code catalog.reactive.enabled=true}; подключение задаётся свойствами {@code spring.r2dbc.url},
+ * {@code spring.r2dbc.username} и {@code spring.r2dbc.password} (пул соединений — драйвером {@code r2dbc:pool:}).
+ * Автоконфигурация {@code R2dbcAutoConfiguration} отключена в {@code CarShopSpringBootApplication}, поэтому при
+ * выключенном свойстве соединения с базой данных через R2DBC не открываются.
+ * </p>
+ *
+ * <p>
+ * Фабрика соединений не регистрируется как бин: иначе Spring Boot выполнял бы {@code schema.sql} через R2DBC вместо JDBC
+ * и создавал бы реактивный менеджер транзакций рядом с JPA. Бином является только {@link DatabaseClient}, по которому
+ * Spring Boot настраивает {@code R2dbcEntityTemplate} и репозитории R2DBC. Запись остаётся за JPA.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "catalog.reactive.enabled", havingValue = "true")
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveCatalogConfiguration implements DisposableBean {
+    private final ConnectionFactory connectionFactory;
+
+    public ReactiveCatalogConfiguration(R2dbcProperties properties) {
+        final ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (StringUtils.hasText(properties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        this.connectionFactory = ConnectionFactories.get(options.build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionFactory instanceof Closeable closeable) {
+            Mono.from(closeable.close()).block();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.y_lab.car_shop_spring_boot.util.ClientKeyResolver;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Конфигурация чтения из реплик базы данных.
+ * <p>
+ * Включается свойством {@code datasource.replicas.enabled=true}; адреса реплик задаются списком
+ * {@code datasource.replicas.urls}, имя пользователя, пароль и драйвер — те же, что у основной базы
+ * ({@code spring.datasource.*}). Основной пул Hikari создаётся так же, как автоконфигурацией Spring Boot,
+ * и настраивается свойствами {@code spring.datasource.hikari.*}.
+ * </p>
+ *
+ * <p>
+ * Бином {@code dataSource} становится {@link LazyConnectionDataSourceProxy}: он получает соединение, только когда
+ * выполняется первый запрос, и к этому моменту знает, начата ли транзакция только для чтения. Соединения
+ * транзакций {@code @Transactional(readOnly = true)} выдаёт {@link ReplicaDataSource} (балансировка между
+ * репликами и переход на основную базу при их недоступности), все остальные — основная база. Транзакция только
+ * для чтения, вложенная в транзакцию записи, использует соединение внешней транзакции, то есть основную базу.
+ * Клиент, изменивший данные, читает из основной базы ещё {@code datasource.replicas.sticky-window}, чтобы видеть
+ * свои изменения и в следующих запросах.
+ * Только для чтения выполняются методы получения списков, страниц, фильтрации и сортировки сервисов автомобилей,
+ * пользователей и заказов, а также методы аналитики продаж.
+ * </p>
+ *
+ * <p>
+ * Пулы реплик создаются с {@code initializationFailTimeout = -1}, поэтому приложение запускается и при недоступных
+ * репликах, и с коротким {@code connectionTimeout}, чтобы быстро перейти к следующей реплике. Пулы закрываются
+ * вместе с контекстом приложения.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfiguration implements DisposableBean {
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                 @Value("${datasource.replicas.urls}") List<String> urls,
+                                 @Value("${datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                 @Value("${datasource.replicas.connection-timeout:1s}") Duration connectionTimeout,
+                                 @Value("${datasource.replicas.retry-interval:30s}") Duration retryInterval,
+                                 @Value("${datasource.replicas.sticky-window:5s}") Duration stickyWindow,
+                                 @Value("${datasource.replicas.sticky-max-clients:100000}") long stickyMaxClients,
+                                 ClientKeyResolver clientKeyResolver) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("datasource.replicas.urls must list at least one replica");
+        }
+        for (String url : urls) {
+            final HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setInitializationFailTimeout(-1);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        final ReplicaDataSource replicaDataSource = new ReplicaDataSource(replicas, primaryDataSource, retryInterval,
+                clientKeyResolver, stickyWindow, stickyMaxClients);
+        final LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(replicaDataSource.primary(primaryDataSource));
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
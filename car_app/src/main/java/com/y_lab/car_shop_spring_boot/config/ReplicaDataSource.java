@@ -0,0 +1,189 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.y_lab.car_shop_spring_boot.util.ClientKeyResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Источник соединений для транзакций только для чтения: реплики базы данных с балансировкой и переходом на основную базу.
+ * <p>
+ * Соединения выдаются репликами по очереди (round robin). Если реплика не выдала соединение, она считается
+ * недоступной в течение {@code retryInterval} и пропускается, а соединение запрашивается у следующей реплики.
+ * Если недоступны все реплики, соединение выдаёт основная база данных {@code primary}, поэтому отказ реплик
+ * не прерывает чтение.
+ * </p>
+ *
+ * <p>
+ * Реплики отстают от основной базы данных, поэтому HTTP-запрос, который уже изменял данные в транзакции
+ * чтения-записи, читает только из основной базы: {@link #primary(DataSource)} отмечает такой запрос при получении
+ * соединения для записи, и до конца запроса этот источник выдаёт соединения основной базы. Чтение внутри
+ * транзакции записи и без HTTP-запроса (например, по расписанию) эта отметка не затрагивает: первое выполняется
+ * в соединении транзакции записи, второе — на реплике.
+ * </p>
+ *
+ * <p>
+ * Следующие запросы того же клиента тоже могут не увидеть запись на реплике, поэтому при заданном
+ * {@code stickyWindow} клиент, определённый {@link ClientKeyResolver}, после записи читает из основной базы ещё
+ * {@code stickyWindow} — окно должно превышать обычное отставание реплик. Время записи хранится в кэше Caffeine,
+ * ограниченном {@code maxClients} клиентами, и удаляется по истечении окна.
+ * </p>
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource {
+    static final String PRIMARY_ONLY_ATTRIBUTE = ReplicaDataSource.class.getName() + ".PRIMARY_ONLY";
+
+    private final List<? extends DataSource> replicas;
+    private final DataSource primary;
+    private final long retryIntervalNanos;
+    private final AtomicLongArray unavailableUntil;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ClientKeyResolver clientKeyResolver;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaDataSource(List<? extends DataSource> replicas, DataSource primary, Duration retryInterval) {
+        this(replicas, primary, retryInterval, null, Duration.ZERO, 0, System::nanoTime);
+    }
+
+    public ReplicaDataSource(List<? extends DataSource> replicas, DataSource primary, Duration retryInterval,
+                             ClientKeyResolver clientKeyResolver, Duration stickyWindow, long maxClients) {
+        this(replicas, primary, retryInterval, clientKeyResolver, stickyWindow, maxClients, System::nanoTime);
+    }
+
+    ReplicaDataSource(List<? extends DataSource> replicas, DataSource primary, Duration retryInterval,
+                      ClientKeyResolver clientKeyResolver, Duration stickyWindow, long maxClients,
+                      LongSupplier nanoClock) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.unavailableUntil = new AtomicLongArray(replicas.size());
+        final boolean sticky = clientKeyResolver != null && stickyWindow.toNanos() > 0 && maxClients > 0;
+        this.clientKeyResolver = sticky ? clientKeyResolver : null;
+        this.recentWriters = sticky ? Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterWrite(stickyWindow.toNanos(), TimeUnit.NANOSECONDS)
+                .ticker(nanoClock::getAsLong)
+                .build() : null;
+    }
+
+    /**
+     * Возвращает основной источник соединений, который при получении соединения в транзакции чтения-записи
+     * отмечает текущий HTTP-запрос и его клиента, чтобы последующее чтение в этом запросе и в течение
+     * {@code stickyWindow} в запросах того же клиента выполнялось в основной базе данных.
+     */
+    public DataSource primary(DataSource primary) {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                markPrimaryOnly();
+                return super.getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                markPrimaryOnly();
+                return super.getConnection(username, password);
+            }
+        };
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!isPrimaryOnly()) {
+            final int size = replicas.size();
+            final int start = Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                final int index = (start + i) % size;
+                final long now = System.nanoTime();
+                final long until = unavailableUntil.get(index);
+                if (until != 0 && until - now > 0) {
+                    continue;
+                }
+                try {
+                    final Connection connection = connect(replicas.get(index), username, password);
+                    unavailableUntil.compareAndSet(index, until, 0);
+                    return connection;
+                } catch (SQLException e) {
+                    unavailableUntil.set(index, now + Math.max(retryIntervalNanos, 1));
+                    log.warn("Replica {} is unavailable, retry in {} ms: {}", index,
+                            Duration.ofNanos(retryIntervalNanos).toMillis(), e.getMessage());
+                }
+            }
+        }
+        return connect(primary, username, password);
+    }
+
+    /**
+     * Возвращает количество реплик, которые сейчас не считаются недоступными.
+     */
+    public int getAvailableReplicas() {
+        final long now = System.nanoTime();
+        int available = 0;
+        for (int i = 0; i < unavailableUntil.length(); i++) {
+            final long until = unavailableUntil.get(i);
+            if (until == 0 || until - now <= 0) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    private void markPrimaryOnly() {
+        final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            attributes.setAttribute(PRIMARY_ONLY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            final String client = clientKey(attributes);
+            if (client != null) {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+
+    private boolean isPrimaryOnly() {
+        final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        if (attributes.getAttribute(PRIMARY_ONLY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        final String client = clientKey(attributes);
+        if (client == null || recentWriters.getIfPresent(client) == null) {
+            return false;
+        }
+        attributes.setAttribute(PRIMARY_ONLY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        return true;
+    }
+
+    private String clientKey(RequestAttributes attributes) {
+        return clientKeyResolver != null && attributes instanceof ServletRequestAttributes servletAttributes
+                ? clientKeyResolver.resolve(servletAttributes.getRequest())
+                : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Проверка режима виртуальных потоков {@code spring.threads.virtual.enabled=true}.
+ * <p>
+ * Проект собирается для Java 17, а Spring Boot включает виртуальные потоки только на Java 21 и новее и на более
+ * старой среде выполнения молча продолжает работать на потоках платформы. Чтобы такой запуск не остался
+ * незамеченным, при старте приложения на Java ниже 21 выводится предупреждение.
+ * </p>
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfiguration {
+    private static final int MIN_JAVA_VERSION = 21;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void warnIfUnsupported() {
+        final int version = Runtime.version().feature();
+        if (version < MIN_JAVA_VERSION) {
+            log.warn("spring.threads.virtual.enabled=true is ignored on Java {}: virtual threads require Java {}+, "
+                    + "requests are handled on platform threads", version, MIN_JAVA_VERSION);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.y_lab.car_shop_spring_boot.controller;
+
+import com.y_lab.car_shop_spring_boot.config.BinaryFormatConfiguration;
+import com.y_lab.car_shop_spring_boot.dto.SalesDTO;
+import com.y_lab.car_shop_spring_boot.service.SalesAnalyticsService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Контроллер аналитики продаж.
+ * <p>
+ * Этот контроллер предоставляет REST API для получения количества заказов и выручки (суммы цен заказанных
+ * автомобилей) в разрезе брендов, месяцев и статусов заказов в виде списков {@link SalesDTO}. Данные читаются
+ * из материализованного представления, которое пересчитывается по расписанию и после изменения заказов
+ * (см. {@link SalesAnalyticsService}), поэтому ответы не нагружают таблицы заказов и автомобилей, но могут
+ * отставать от них на интервал пересчёта. Ответы выдаются в форматах JSON, CBOR и Smile, как и в остальных контроллерах.
+ * </p>
+ *
+ * <p>
+ * Метод {@code getSalesByBrand()} обрабатывает GET-запросы на {@code /analytics/sales/by-brand} и возвращает итоги
+ * по брендам в порядке убывания выручки. Метод {@code getSalesByMonth()} обрабатывает GET-запросы на
+ * {@code /analytics/sales/by-month} и возвращает итоги по месяцам в порядке возрастания. Отменённые заказы
+ * в эти итоги не входят.
+ * </p>
+ *
+ * <p>
+ * Метод {@code getSalesByStatus()} обрабатывает GET-запросы на {@code /analytics/sales/by-status} и возвращает
+ * итоги по всем статусам заказов, включая отменённые.
+ * </p>
+ */
+@RestController
+@RequestMapping(value = "/analytics", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatConfiguration.APPLICATION_SMILE_VALUE})
+public class AnalyticsController {
+    private final SalesAnalyticsService service;
+
+    public AnalyticsController(SalesAnalyticsService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/sales/by-brand")
+    public ResponseEntity<List<SalesDTO>> getSalesByBrand() {
+        return ResponseEntity.ok(service.getSalesByBrand());
+    }
+
+    @GetMapping("/sales/by-month")
+    public ResponseEntity<List<SalesDTO>> getSalesByMonth() {
+        return ResponseEntity.ok(service.getSalesByMonth());
+    }
+
+    @GetMapping("/sales/by-status")
+    public ResponseEntity<List<SalesDTO>> getSalesByStatus() {
+        return ResponseEntity.ok(service.getSalesByStatus());
+    }
+}
@@ -1,14 +1,31 @@
 package com.y_lab.car_shop_spring_boot.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y_lab.car_shop_spring_boot.config.BinaryFormatConfiguration;
 import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarFacetsDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarImportReportDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
 import com.y_lab.car_shop_spring_boot.mapper.CarMapper;
 import com.y_lab.car_shop_spring_boot.model.Car;
 import com.y_lab.car_shop_spring_boot.service.CarService;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import com.y_lab.car_shop_spring_boot.util.ETags;
+import com.y_lab.car_shop_spring_boot.util.NdjsonWriter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -25,6 +42,8 @@ import java.util.List;
  * который будет обрабатывать HTTP-запросы и возвращать данные в формате JSON.
  * Аннотация {@code @RequestMapping} с указанием пути {@code /cars} и медиатипа
  * {@code MediaType.APPLICATION_JSON_VALUE} определяет базовый URL и формат данных для всех методов контроллера.
+ * По заголовку {@code Accept} ответы также выдаются в двоичных форматах CBOR ({@code application/cbor}) и Smile
+ * ({@code application/x-jackson-smile}), см. {@link BinaryFormatConfiguration}.
  * </p>
  *
  * <p>
@@ -33,8 +52,24 @@ import java.util.List;
  * </p>
  *
  * <p>
- * Метод {@code getAll()} обрабатывает GET-запросы на {@code /cars} и возвращает список всех автомобилей
- * в виде DTO объектов {@link CarDTO}.
+ * Метод {@code getAll(String after, int limit)} обрабатывает GET-запросы на {@code /cars?after=&limit=} и возвращает
+ * страницу автомобилей в виде DTO объектов {@link CarDTO}, выбранных из базы данных без загрузки сущностей и
+ * упорядоченных по идентификатору. Курсор следующей страницы передаётся в заголовке {@code X-Next-Cursor}; его значение
+ * указывается в параметре {@code after} следующего запроса.
+ * </p>
+ *
+ * <p>
+ * Ответы {@code getAll} и {@code getById} содержат строгий заголовок {@code ETag} (см. {@link ETags}). Если заголовок
+ * {@code If-None-Match} запроса совпадает с текущим {@code ETag}, возвращается ответ 304 (Not Modified) без тела.
+ * {@code ETag} страницы вычисляется запросом версий до загрузки данных, поэтому неизменённая страница не загружается;
+ * если автомобили изменены между этими запросами, клиент получит новые данные со старым {@code ETag} и загрузит их
+ * повторно при следующем запросе. {@code ETag} отдельного автомобиля строится по версии автомобиля, полученного
+ * из кэша {@code getById}, поэтому повторный запрос неизменённого автомобиля не обращается к базе данных.
+ * </p>
+ *
+ * <p>
+ * Метод {@code streamAll()} обрабатывает GET-запросы на {@code /cars} с заголовком {@code Accept: application/x-ndjson}
+ * и выдаёт все автомобили в формате NDJSON по мере чтения из базы данных, не собирая их в памяти.
  * </p>
  *
  * <p>
@@ -44,6 +79,21 @@ import java.util.List;
  * </p>
  *
  * <p>
+ * Метод {@code search(CarSearchCriteria criteria, Pageable pageable)} обрабатывает GET-запросы на {@code /cars/search}
+ * и возвращает страницу автомобилей, удовлетворяющих всем заданным критериям {@link CarSearchCriteria}:
+ * {@code brand}, {@code model}, {@code condition}, {@code priceMin}, {@code priceMax}, {@code yearMin}, {@code yearMax}.
+ * Номер и размер страницы и сортировка задаются параметрами {@code page}, {@code size} и {@code sort}
+ * (например, {@code /cars/search?brand=Volvo&priceMax=20000&sort=price,desc}).
+ * </p>
+ *
+ * <p>
+ * Метод {@code getFacets(CarSearchCriteria criteria, int yearBucket, int priceBucket)} обрабатывает GET-запросы на
+ * {@code /cars/facets} с теми же критериями, что и {@code /cars/search}, и возвращает {@link CarFacetsDTO}: количество
+ * подходящих автомобилей по брендам, состояниям и интервалам года выпуска и цены шириной {@code yearBucket}
+ * и {@code priceBucket} (например, {@code /cars/facets?brand=Volvo&yearBucket=10&priceBucket=5000}).
+ * </p>
+ *
+ * <p>
  * Метод {@code getById(int id)} обрабатывает GET-запросы на {@code /cars/{id}} и возвращает автомобиль
  * по его идентификатору в виде DTO объекта {@link CarDTO}.
  * </p>
@@ -54,8 +104,17 @@ import java.util.List;
  * </p>
  *
  * <p>
- * Метод {@code update(CarDTO carDTO, int id)} обрабатывает PUT-запросы на {@code /cars/{id}} и обновляет
- * существующий автомобиль на основе переданных данных {@link CarDTO} и идентификатора. Возвращает обновленный объект автомобиля.
+ * Метод {@code importCsv(InputStream body)} обрабатывает POST-запросы на {@code /cars/import} с телом в формате
+ * {@code text/csv} (столбцы {@code brand, model, year, price, condition}) и сохраняет автомобили пакетами.
+ * Возвращает {@link CarImportReportDTO} с количеством сохранённых и отклонённых строк и ошибками по строкам.
+ * </p>
+ *
+ * <p>
+ * Метод {@code update(CarDTO carDTO, int id, String ifMatch)} обрабатывает PUT-запросы на {@code /cars/{id}} и обновляет
+ * существующий автомобиль на основе переданных данных {@link CarDTO} и идентификатора. Возвращает обновленный объект
+ * автомобиля и его новый {@code ETag}. С заголовком {@code If-Match} автомобиль обновляется, только если его
+ * {@code ETag} не изменился с момента получения клиентом, иначе возвращается ответ 412 (Precondition Failed);
+ * проверка выполняется в том же запросе {@code UPDATE}, без предварительного чтения автомобиля.
  * </p>
  *
  * <p>
@@ -64,31 +123,61 @@ import java.util.List;
  * </p>
  */
 @RestController
-@RequestMapping(value = "/cars", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/cars", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatConfiguration.APPLICATION_SMILE_VALUE})
 public class CarController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final CarService service;
+    private final ObjectMapper objectMapper;
 
-    public CarController(CarService service) {
+    public CarController(CarService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public ResponseEntity<List<CarDTO>> getAll() {
-        final List<Car> cars = service.getAll();
-        final List<CarDTO> carsDTO = service.getAllDTO(cars);
-        return ResponseEntity.ok(carsDTO);
+    public ResponseEntity<List<CarDTO>> getAll(@RequestParam(value = "after", required = false) String after,
+                                               @RequestParam(value = "limit", defaultValue = CursorPage.DEFAULT_LIMIT) int limit,
+                                               WebRequest request) {
+        if (request.checkNotModified(service.getPageETag(after, limit))) {
+            return null;
+        }
+        final CursorPage<CarDTO> page = service.getPageDTO(after, limit);
+        return page.toResponse(cars -> cars);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = output -> service.streamAllDTO(new NdjsonWriter<>(objectMapper, output));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/filter/{name_filter}/{params}")
     public ResponseEntity<List<CarDTO>> getAllAfterFilter(@PathVariable String name_filter, @PathVariable String params) {
-        List<Car> cars = service.getFilteredCars(name_filter, params);
-        return ResponseEntity.ok(service.getAllDTO(cars));
+        return ResponseEntity.ok(service.getFilteredCarsDTO(name_filter, params));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<PagedModel<CarDTO>> search(CarSearchCriteria criteria,
+                                                     @PageableDefault(size = 20, sort = "carId", direction = Sort.Direction.ASC) Pageable pageable) {
+        Page<Car> cars = service.search(criteria, pageable);
+        return ResponseEntity.ok(new PagedModel<>(cars.map(CarMapper.INSTANCE::getCarDTO)));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<CarFacetsDTO> getFacets(CarSearchCriteria criteria,
+                                                  @RequestParam(value = "yearBucket", defaultValue = CarFacetsDTO.DEFAULT_YEAR_BUCKET) int yearBucket,
+                                                  @RequestParam(value = "priceBucket", defaultValue = CarFacetsDTO.DEFAULT_PRICE_BUCKET) int priceBucket) {
+        return ResponseEntity.ok(service.getFacets(criteria, yearBucket, priceBucket));
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CarDTO> getById(@PathVariable int id) {
+    public ResponseEntity<CarDTO> getById(@PathVariable int id, WebRequest request) {
         Car carById = service.getById(id);
+        if (request.checkNotModified(ETags.of(carById.getVersion()))) {
+            return null;
+        }
         return ResponseEntity.ok(CarMapper.INSTANCE.getCarDTO(carById));
     }
 
@@ -99,13 +188,19 @@ public class CarController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedCar);
     }
 
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<CarImportReportDTO> importCsv(InputStream body) {
+        return ResponseEntity.ok(service.importCsv(body));
+    }
+
     @PutMapping("/{id}")
     @ResponseBody
-    public ResponseEntity<Car> update(@RequestBody CarDTO carDTO, @PathVariable int id) {
+    public ResponseEntity<Car> update(@RequestBody CarDTO carDTO, @PathVariable int id,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Car car = CarMapper.INSTANCE.getCar(carDTO);
         car.setCarId(id);
-        Car updatedCar = service.saveOrUpdate(car);
-        return ResponseEntity.ok(updatedCar);
+        Car updatedCar = service.update(car, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedCar.getVersion())).body(updatedCar);
     }
 
     @DeleteMapping("/{id}")
@@ -1,13 +1,23 @@
 package com.y_lab.car_shop_spring_boot.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y_lab.car_shop_spring_boot.config.BinaryFormatConfiguration;
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateDTO;
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateResultDTO;
 import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
 import com.y_lab.car_shop_spring_boot.mapper.OrderMapper;
 import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
 import com.y_lab.car_shop_spring_boot.service.OrderService;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import com.y_lab.car_shop_spring_boot.util.ETags;
+import com.y_lab.car_shop_spring_boot.util.NdjsonWriter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -24,6 +34,8 @@ import java.util.List;
  * который будет обрабатывать HTTP-запросы и возвращать данные в формате JSON.
  * Аннотация {@code @RequestMapping} с указанием пути {@code /orders} и медиатипа
  * {@code MediaType.APPLICATION_JSON_VALUE} определяет базовый URL и формат данных для всех методов контроллера.
+ * По заголовку {@code Accept} ответы также выдаются в двоичных форматах CBOR ({@code application/cbor}) и Smile
+ * ({@code application/x-jackson-smile}), см. {@link BinaryFormatConfiguration}.
  * </p>
  *
  * <p>
@@ -32,8 +44,14 @@ import java.util.List;
  * </p>
  *
  * <p>
- * Метод {@code getAll()} обрабатывает GET-запросы на {@code /orders} и возвращает список всех заказов
- * в виде DTO объектов {@link OrderDTO}.
+ * Метод {@code getAll(String after, int limit)} обрабатывает GET-запросы на {@code /orders?after=&limit=} и возвращает
+ * страницу заказов в виде DTO объектов {@link OrderDTO}, выбранных из базы данных без загрузки сущностей и
+ * упорядоченных по идентификатору. Курсор следующей страницы передаётся в заголовке {@code X-Next-Cursor}.
+ * </p>
+ *
+ * <p>
+ * Метод {@code streamAll()} обрабатывает GET-запросы на {@code /orders} с заголовком {@code Accept: application/x-ndjson}
+ * и выдаёт все заказы в формате NDJSON по мере чтения из базы данных, не собирая их в памяти.
  * </p>
  *
  * <p>
@@ -48,44 +66,82 @@ import java.util.List;
  * </p>
  *
  * <p>
+ * Ответы {@code getAll} и {@code getById} содержат строгий заголовок {@code ETag} (см. {@link ETags}). Если заголовок
+ * {@code If-None-Match} запроса совпадает с текущим {@code ETag}, возвращается ответ 304 (Not Modified) без тела.
+ * Неизменённая страница при этом не загружается; {@code ETag} отдельного заказа строится по версии заказа,
+ * загруженного тем же запросом, что и тело ответа.
+ * </p>
+ *
+ * <p>
  * Метод {@code create(OrderDTO orderDTO)} обрабатывает POST-запросы на {@code /orders} и создает новый заказ
  * на основе переданных данных {@link OrderDTO}. Возвращает созданный объект заказа в виде DTO с присвоенным идентификатором.
  * </p>
  *
  * <p>
- * Метод {@code canceled(int id)} обрабатывает PUT-запросы на {@code /orders/canceled} и отменяет заказ
+ * Метод {@code canceled(int id, Long version)} обрабатывает PUT-запросы на {@code /orders/canceled} и отменяет заказ
  * на основе переданного идентификатора. Возвращает отмененный объект заказа в виде DTO.
  * </p>
  *
  * <p>
- * Метод {@code changeStatus(int id, String status)} обрабатывает PUT-запросы на {@code /orders/change-status}
+ * Метод {@code changeStatus(int id, String status, Long version)} обрабатывает PUT-запросы на {@code /orders/change-status}
  * и изменяет статус заказа на основе переданного идентификатора и нового статуса. Возвращает обновленный объект заказа в виде DTO.
  * </p>
+ *
+ * <p>
+ * Оба метода принимают необязательный параметр {@code version} — версию заказа из {@link OrderDTO}, полученную
+ * клиентом. Если он задан, а заказ уже изменён другим запросом, возвращается ответ 409 (Conflict) и статус не изменяется.
+ * Ответ 409 возвращается и при недопустимом переходе статуса, например при отмене выданного заказа. Новый статус
+ * {@link OrderStatus} передаётся заголовком или именем константы; при неизвестном статусе возвращается ответ 400 (Bad Request).
+ * </p>
+ *
+ * <p>
+ * Методы {@code bulkChangeStatus(OrderBulkUpdateDTO request)} и {@code bulkCanceled(OrderBulkUpdateDTO request)}
+ * обрабатывают PUT-запросы на {@code /orders/bulk/status} и {@code /orders/bulk/canceled} и изменяют статус всех заказов,
+ * выбранных по списку идентификаторов и/или фильтру по статусу и диапазону дат из тела запроса {@link OrderBulkUpdateDTO}.
+ * Возвращают количество изменённых заказов в виде {@link OrderBulkUpdateResultDTO}. Если не задан ни список
+ * идентификаторов, ни фильтр, возвращается ответ 400 (Bad Request).
+ * </p>
  */
 @RestController
-@RequestMapping(value = "/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/orders", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatConfiguration.APPLICATION_SMILE_VALUE})
 public class OrderController {
     private final OrderService service;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderService service) {
+    public OrderController(OrderService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAll() {
-        List<Order> list = service.getAll();
-        return ResponseEntity.ok(service.getAllDTO(list));
+    public ResponseEntity<List<OrderDTO>> getAll(@RequestParam(value = "after", required = false) String after,
+                                                 @RequestParam(value = "limit", defaultValue = CursorPage.DEFAULT_LIMIT) int limit,
+                                                 WebRequest request) {
+        if (request.checkNotModified(service.getPageETag(after, limit))) {
+            return null;
+        }
+        CursorPage<OrderDTO> page = service.getPageDTO(after, limit);
+        return page.toResponse(orders -> orders);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = output -> service.streamAllDTO(new NdjsonWriter<>(objectMapper, output));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/filter/{name_filter}/{params}")
     public ResponseEntity<List<OrderDTO>> getAllAfterFilter(@PathVariable String name_filter, @PathVariable String params) {
-        List<Order> orders = service.getFilteredOrder(name_filter, params);
-        return ResponseEntity.ok(service.getAllDTO(orders));
+        return ResponseEntity.ok(service.getFilteredOrderDTO(name_filter, params));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDTO> getById(@PathVariable int id) {
+    public ResponseEntity<OrderDTO> getById(@PathVariable int id, WebRequest request) {
         Order orderById = service.getById(id);
+        if (request.checkNotModified(ETags.of(orderById.getVersion()))) {
+            return null;
+        }
         return ResponseEntity.ok(OrderMapper.INSTANCE.getOdderDTO(orderById));
     }
 
@@ -97,16 +153,27 @@ public class OrderController {
     }
 
     @PutMapping("/canceled")
-    public ResponseEntity<OrderDTO> canceled(@RequestParam(value = "id", required = false) int id) {
-        final Order canceledOrder = service.canceled(id);
+    public ResponseEntity<OrderDTO> canceled(@RequestParam(value = "id", required = false) int id,
+                                             @RequestParam(value = "version", required = false) Long version) {
+        final Order canceledOrder = service.canceled(id, version);
         return ResponseEntity.status(HttpStatus.CREATED).body(OrderMapper.INSTANCE.getOdderDTO(canceledOrder));
     }
 
     @PutMapping("/change-status")
     public ResponseEntity<OrderDTO> changeStatus(@RequestParam(value = "id", required = false) int id,
-                                                 @RequestParam(value = "status", required = false) String status) {
-        final Order changeStatusOrder = service.changeStatus(id, status);
+                                                 @RequestParam(value = "status", required = false) String status,
+                                                 @RequestParam(value = "version", required = false) Long version) {
+        final Order changeStatusOrder = service.changeStatus(id, OrderStatus.of(status), version);
         return ResponseEntity.status(HttpStatus.CREATED).body(OrderMapper.INSTANCE.getOdderDTO(changeStatusOrder));
     }
 
+    @PutMapping("/bulk/status")
+    public ResponseEntity<OrderBulkUpdateResultDTO> bulkChangeStatus(@RequestBody OrderBulkUpdateDTO request) {
+        return ResponseEntity.ok(service.bulkChangeStatus(request));
+    }
+
+    @PutMapping("/bulk/canceled")
+    public ResponseEntity<OrderBulkUpdateResultDTO> bulkCanceled(@RequestBody OrderBulkUpdateDTO request) {
+        return ResponseEntity.ok(service.bulkCanceled(request));
+    }
 }
@@ -0,0 +1,60 @@
+package com.y_lab.car_shop_spring_boot.controller;
+
+import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import com.y_lab.car_shop_spring_boot.service.ReactiveCarService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Контроллер для неблокирующего чтения каталога автомобилей.
+ * <p>
+ * Обслуживает те же запросы чтения, что и {@link CarController}, с префиксом {@code /reactive/cars}:
+ * {@code /reactive/cars}, {@code /reactive/cars/{id}}, {@code /reactive/cars/filter/{name_filter}/{params}}
+ * и {@code /reactive/cars/search} с критериями {@link CarSearchCriteria}. Регистрируется только при включённом
+ * свойстве {@code catalog.reactive.enabled}.
+ * </p>
+ *
+ * <p>
+ * Методы возвращают {@link Flux} и {@link Mono} из {@link ReactiveCarService}, поэтому поток запроса освобождается,
+ * пока ответ базы данных не получен. С заголовком {@code Accept: application/x-ndjson} каждый автомобиль записывается
+ * в ответ сразу после чтения из базы данных, а следующий запрашивается только после записи предыдущего; с
+ * {@code Accept: application/json} автомобили собираются в один JSON-массив.
+ * </p>
+ */
+@RestController
+@RequestMapping(value = "/reactive/cars", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+@ConditionalOnProperty(value = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCarController {
+    private final ReactiveCarService service;
+
+    public ReactiveCarController(ReactiveCarService service) {
+        this.service = service;
+    }
+
+    @GetMapping
+    public Flux<CarDTO> getAll() {
+        return service.getAll();
+    }
+
+    @GetMapping("/filter/{name_filter}/{params}")
+    public Flux<CarDTO> getAllAfterFilter(@PathVariable String name_filter, @PathVariable String params) {
+        return service.getFilteredCars(name_filter, params);
+    }
+
+    @GetMapping("/search")
+    public Flux<CarDTO> search(CarSearchCriteria criteria) {
+        return service.search(criteria);
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CarDTO> getById(@PathVariable int id) {
+        return service.getById(id);
+    }
+}
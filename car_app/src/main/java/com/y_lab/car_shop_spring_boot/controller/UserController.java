@@ -1,13 +1,21 @@
 package com.y_lab.car_shop_spring_boot.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y_lab.car_shop_spring_boot.config.BinaryFormatConfiguration;
 import com.y_lab.car_shop_spring_boot.dto.UserDTO;
 import com.y_lab.car_shop_spring_boot.mapper.UserMapper;
 import com.y_lab.car_shop_spring_boot.model.User;
 import com.y_lab.car_shop_spring_boot.service.UserService;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import com.y_lab.car_shop_spring_boot.util.ETags;
+import com.y_lab.car_shop_spring_boot.util.NdjsonWriter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -24,6 +32,8 @@ import java.util.List;
  * который будет обрабатывать HTTP-запросы и возвращать данные в формате JSON.
  * Аннотация {@code @RequestMapping} с указанием пути {@code /users} и медиатипа
  * {@code MediaType.APPLICATION_JSON_VALUE} определяет базовый URL и формат данных для всех методов контроллера.
+ * По заголовку {@code Accept} ответы также выдаются в двоичных форматах CBOR ({@code application/cbor}) и Smile
+ * ({@code application/x-jackson-smile}), см. {@link BinaryFormatConfiguration}.
  * </p>
  *
  * <p>
@@ -32,8 +42,14 @@ import java.util.List;
  * </p>
  *
  * <p>
- * Метод {@code getAll()} обрабатывает GET-запросы на {@code /users} и возвращает список всех пользователей
- * в виде DTO объектов {@link UserDTO}.
+ * Метод {@code getAll(String after, int limit)} обрабатывает GET-запросы на {@code /users?after=&limit=} и возвращает
+ * страницу пользователей в виде DTO объектов {@link UserDTO}, выбранных из базы данных без загрузки сущностей и
+ * упорядоченных по идентификатору. Курсор следующей страницы передаётся в заголовке {@code X-Next-Cursor}.
+ * </p>
+ *
+ * <p>
+ * Метод {@code streamAll()} обрабатывает GET-запросы на {@code /users} с заголовком {@code Accept: application/x-ndjson}
+ * и выдаёт всех пользователей в формате NDJSON по мере чтения из базы данных, не собирая их в памяти.
  * </p>
  *
  * <p>
@@ -43,8 +59,9 @@ import java.util.List;
  * </p>
  *
  * <p>
- * Метод {@code getAllSorted(String params)} обрабатывает GET-запросы на {@code /users/sort/{params}} и возвращает
- * отсортированный список пользователей в виде DTO объектов {@link UserDTO}, основываясь на заданных параметрах сортировки.
+ * Метод {@code getAllSorted(String params, String after, int limit)} обрабатывает GET-запросы на {@code /users/sort/{params}}
+ * и возвращает страницу отсортированного списка пользователей в виде DTO объектов {@link UserDTO}, основываясь на заданных
+ * параметрах сортировки. Постраничная навигация выполняется так же, как в {@code getAll}.
  * </p>
  *
  * <p>
@@ -53,54 +70,81 @@ import java.util.List;
  * </p>
  *
  * <p>
- * Метод {@code update(UserDTO userDTO, int id)} обрабатывает PUT-запросы на {@code /users/{id}} и обновляет
+ * Метод {@code update(UserDTO userDTO, int id, String ifMatch)} обрабатывает PUT-запросы на {@code /users/{id}} и обновляет
  * данные пользователя на основе переданных данных {@link UserDTO} и идентификатора. Обновленный объект пользователя
- * возвращается в виде DTO объекта.
+ * возвращается в виде DTO объекта вместе с новым {@code ETag}. С заголовком {@code If-Match} пользователь обновляется,
+ * только если его {@code ETag} не изменился с момента получения клиентом, иначе возвращается ответ 412
+ * (Precondition Failed); проверка выполняется в том же запросе {@code UPDATE}, без предварительного чтения пользователя.
+ * </p>
+ *
+ * <p>
+ * Ответы {@code getAll} и {@code getById} содержат строгий заголовок {@code ETag} (см. {@link ETags}). Если заголовок
+ * {@code If-None-Match} запроса совпадает с текущим {@code ETag}, возвращается ответ 304 (Not Modified) без тела.
+ * Неизменённая страница при этом не загружается; {@code ETag} отдельного пользователя строится по версии
+ * пользователя, загруженного тем же запросом, что и тело ответа, поэтому на запрос выполняется один запрос к базе данных.
  * </p>
  */
 @RestController
-@RequestMapping(value = "/users", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/users", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatConfiguration.APPLICATION_SMILE_VALUE})
 public class UserController {
 
     private final UserService service;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService service) {
+    public UserController(UserService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAll() {
-        List<User> users = service.getAll();
-        return ResponseEntity.ok(service.getAllDTO(users));
+    public ResponseEntity<List<UserDTO>> getAll(@RequestParam(value = "after", required = false) String after,
+                                                @RequestParam(value = "limit", defaultValue = CursorPage.DEFAULT_LIMIT) int limit,
+                                                WebRequest request) {
+        if (request.checkNotModified(service.getPageETag(after, limit))) {
+            return null;
+        }
+        CursorPage<UserDTO> page = service.getPageDTO(after, limit);
+        return page.toResponse(users -> users);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = output -> service.streamAllDTO(new NdjsonWriter<>(objectMapper, output));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/filter/{name_filter}/{params}")
     public ResponseEntity<List<UserDTO>> getAllFiltered(@PathVariable String name_filter, @PathVariable String params) {
-        List<User> users = service.getFilteredUsers(name_filter, params);
-        return ResponseEntity.ok(service.getAllDTO(users));
+        return ResponseEntity.ok(service.getFilteredUsersDTO(name_filter, params));
     }
 
     @GetMapping("/sort/{params}")
-    public ResponseEntity<List<UserDTO>> getAllSorted(@PathVariable String params) {
-        List<User> users = service.getSortedUsers(params);
-        return ResponseEntity.ok(service.getAllDTO(users));
+    public ResponseEntity<List<UserDTO>> getAllSorted(@PathVariable String params,
+                                                      @RequestParam(value = "after", required = false) String after,
+                                                      @RequestParam(value = "limit", defaultValue = CursorPage.DEFAULT_LIMIT) int limit) {
+        CursorPage<UserDTO> page = service.getSortedPageDTO(params, after, limit);
+        return page.toResponse(users -> users);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getById(@PathVariable int id) {
-        User user = service.getById(id);
+    public ResponseEntity<UserDTO> getById(@PathVariable int id, WebRequest request) {
+        User user = service.getByIdWithRoles(id);
+        if (request.checkNotModified(ETags.of(user.getVersion()))) {
+            return null;
+        }
         return ResponseEntity.ok(UserMapper.INSTANCE.getUserDTO(user));
     }
 
     @PutMapping("/{id}")
     @ResponseBody
-    public ResponseEntity<UserDTO> update(@RequestBody UserDTO userDTO, @PathVariable int id) {
-        User user = service.getById(id);
+    public ResponseEntity<UserDTO> update(@RequestBody UserDTO userDTO, @PathVariable int id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         User updateUser = UserMapper.INSTANCE.getUser(userDTO);
         updateUser.setUserId(id);
-        updateUser.setLogin(user.getLogin());
-        updateUser.setPassword(user.getPassword());
-        User updatedUser = service.update(updateUser);
-        return ResponseEntity.status(HttpStatus.CREATED).body(UserMapper.INSTANCE.getUserDTO(updatedUser));
+        User updatedUser = service.update(updateUser, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(ETags.of(updatedUser.getVersion()))
+                .body(UserMapper.INSTANCE.getUserDTO(updatedUser));
     }
 }
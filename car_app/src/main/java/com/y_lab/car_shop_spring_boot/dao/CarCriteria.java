@@ -0,0 +1,45 @@
+package com.y_lab.car_shop_spring_boot.dao;
+
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import com.y_lab.car_shop_spring_boot.model.CarRow;
+import org.springframework.data.relational.core.query.Criteria;
+
+/**
+ * Условия для поиска строк {@link CarRow} через R2DBC.
+ * <p>
+ * Метод {@code matching(CarSearchCriteria criteria)} строит то же условие {@code WHERE}, что и
+ * {@link CarSpecifications#matching(CarSearchCriteria)} для JPA: равенство для бренда, модели и состояния и диапазоны
+ * для цены и года выпуска. Незаданные критерии пропускаются.
+ * </p>
+ */
+public final class CarCriteria {
+
+    private CarCriteria() {
+    }
+
+    public static Criteria matching(CarSearchCriteria criteria) {
+        Criteria result = Criteria.empty();
+        if (criteria.getBrand() != null) {
+            result = result.and("brand").is(criteria.getBrand());
+        }
+        if (criteria.getModel() != null) {
+            result = result.and("model").is(criteria.getModel());
+        }
+        if (criteria.getCondition() != null) {
+            result = result.and("condition").is(criteria.getCondition());
+        }
+        if (criteria.getPriceMin() != null) {
+            result = result.and("price").greaterThanOrEquals(criteria.getPriceMin());
+        }
+        if (criteria.getPriceMax() != null) {
+            result = result.and("price").lessThanOrEquals(criteria.getPriceMax());
+        }
+        if (criteria.getYearMin() != null) {
+            result = result.and("year").greaterThanOrEquals(criteria.getYearMin());
+        }
+        if (criteria.getYearMax() != null) {
+            result = result.and("year").lessThanOrEquals(criteria.getYearMax());
+        }
+        return result;
+    }
+}
@@ -1,10 +1,21 @@
 package com.y_lab.car_shop_spring_boot.dao;
 
+import com.y_lab.car_shop_spring_boot.dto.CarDTO;
 import com.y_lab.car_shop_spring_boot.model.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для управления сущностями {@link Car}.
@@ -12,6 +23,7 @@ import java.util.List;
  * Этот интерфейс предоставляет методы для взаимодействия с базой данных для сущностей {@code Car}.
  * Он расширяет интерфейс {@link JpaRepository}, который обеспечивает стандартные CRUD операции,
  * а также дополнительные методы для поиска автомобилей по определённым критериям, таким как бренд, состояние и цена.
+ * Интерфейс {@link JpaSpecificationExecutor} позволяет выполнять составной поиск по спецификациям из {@link CarSpecifications}.
  * </p>
  *
  * <p>
@@ -25,12 +37,89 @@ import java.util.List;
  * <p>
  * Метод {@code findByPrice(double price)} возвращает список автомобилей, которые имеют заданную цену.
  * </p>
+ *
+ * <p>
+ * Метод {@code findByCarIdGreaterThanOrderByCarIdAsc(int carId, Limit limit)} возвращает не более {@code limit}
+ * автомобилей с идентификатором больше заданного, упорядоченных по идентификатору. Используется для постраничной выборки по ключу.
+ * </p>
+ *
+ * <p>
+ * Методы {@code findDTO*} выполняют те же запросы, что и соответствующие методы {@code find*}, но выбирают только
+ * нужные столбцы сразу в объекты {@link CarDTO} конструкторным выражением JPQL. Такие объекты не являются сущностями:
+ * они не попадают в контекст персистентности, не требуют снимков состояния для проверки изменений и преобразования
+ * через {@code CarMapper}. Используются запросами чтения списков.
+ * </p>
+ *
+ * <p>
+ * Метод {@code findVersionByCarId(int carId)} возвращает только версию автомобиля, а метод
+ * {@code pageVersionHash(int carId, int limit)} — MD5-хэш идентификаторов и версий не более {@code limit} автомобилей
+ * с идентификатором больше заданного, вычисленный в базе данных. Из них формируются заголовки {@code ETag}, поэтому
+ * неизменённый ресурс можно не загружать.
+ * </p>
+ *
+ * <p>
+ * Методы {@code update(Car car)} и {@code update(Car car, long version)} изменяют автомобиль и увеличивают его версию
+ * одним запросом {@code UPDATE ... RETURNING} и возвращают изменённый автомобиль. Второй метод изменяет автомобиль,
+ * только если его текущая версия равна {@code version}; проверка и изменение выполняются атомарно в базе данных.
+ * Если ни одна строка не изменена, возвращается пустой {@link Optional}. Запросы используют синтаксис PostgreSQL.
+ * </p>
+ *
+ * <p>
+ * Метод {@code streamAll()} возвращает все автомобили в виде потока {@link Stream}, который читает строки из базы данных
+ * порциями по {@value #STREAM_FETCH_SIZE}. Сущности загружаются только для чтения. Поток должен использоваться внутри
+ * транзакции и закрываться после обработки.
+ * </p>
  */
 @Repository
-public interface CarRepository extends JpaRepository<Car, Integer> {
+public interface CarRepository extends JpaRepository<Car, Integer>, JpaSpecificationExecutor<Car> {
+    String STREAM_FETCH_SIZE = "500";
+    String SELECT_CAR_DTO = "SELECT new com.y_lab.car_shop_spring_boot.dto.CarDTO(" +
+            "c.carId, c.brand, c.model, c.year, c.price, c.condition) FROM Car c ";
+
     List<Car> findByBrand(String brand);
 
     List<Car> findByCondition(String condition);
 
     List<Car> findByPrice(double price);
+
+    List<Car> findByCarIdGreaterThanOrderByCarIdAsc(int carId, Limit limit);
+
+    @Query(SELECT_CAR_DTO + "WHERE c.brand = :brand")
+    List<CarDTO> findDTOByBrand(@Param("brand") String brand);
+
+    @Query(SELECT_CAR_DTO + "WHERE c.condition = :condition")
+    List<CarDTO> findDTOByCondition(@Param("condition") String condition);
+
+    @Query(SELECT_CAR_DTO + "WHERE c.price = :price")
+    List<CarDTO> findDTOByPrice(@Param("price") double price);
+
+    @Query(SELECT_CAR_DTO + "WHERE c.carId > :carId ORDER BY c.carId ASC")
+    List<CarDTO> findDTOByCarIdGreaterThan(@Param("carId") int carId, Limit limit);
+
+    @Query("SELECT c FROM Car c ORDER BY c.carId ASC")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Car> streamAll();
+
+    @Query("SELECT c.version FROM Car c WHERE c.carId = :carId")
+    Optional<Long> findVersionByCarId(@Param("carId") int carId);
+
+    @Query(value = "SELECT md5(coalesce(string_agg(car_id || ':' || version, ',' ORDER BY car_id), '')) FROM " +
+            "(SELECT car_id, version FROM car_shop.car WHERE car_id > :carId ORDER BY car_id LIMIT :limit) page",
+            nativeQuery = true)
+    String pageVersionHash(@Param("carId") int carId, @Param("limit") int limit);
+
+    @Transactional
+    @Query(value = "UPDATE car_shop.car SET brand = :#{#car.brand}, model = :#{#car.model}, year = :#{#car.year}, " +
+            "price = :#{#car.price}, condition = :#{#car.condition}, version = version + 1 " +
+            "WHERE car_id = :#{#car.carId} RETURNING *", nativeQuery = true)
+    Optional<Car> update(@Param("car") Car car);
+
+    @Transactional
+    @Query(value = "UPDATE car_shop.car SET brand = :#{#car.brand}, model = :#{#car.model}, year = :#{#car.year}, " +
+            "price = :#{#car.price}, condition = :#{#car.condition}, version = version + 1 " +
+            "WHERE car_id = :#{#car.carId} AND version = :version RETURNING *", nativeQuery = true)
+    Optional<Car> update(@Param("car") Car car, @Param("version") long version);
 }
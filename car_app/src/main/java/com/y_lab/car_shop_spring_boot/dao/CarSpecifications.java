@@ -0,0 +1,51 @@
+package com.y_lab.car_shop_spring_boot.dao;
+
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import com.y_lab.car_shop_spring_boot.model.Car;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Спецификации для поиска сущностей {@link Car} через {@link CarRepository}.
+ * <p>
+ * Метод {@code matching(CarSearchCriteria criteria)} строит одно условие {@code WHERE} из всех заданных критериев поиска:
+ * равенство для бренда, модели и состояния и диапазоны для цены и года выпуска. Незаданные критерии пропускаются,
+ * поэтому база данных может использовать индексы по тем столбцам, которые участвуют в запросе.
+ * </p>
+ */
+public final class CarSpecifications {
+
+    private CarSpecifications() {
+    }
+
+    public static Specification<Car> matching(CarSearchCriteria criteria) {
+        return (root, query, builder) -> {
+            final List<Predicate> predicates = new ArrayList<>();
+            if (criteria.getBrand() != null) {
+                predicates.add(builder.equal(root.get("brand"), criteria.getBrand()));
+            }
+            if (criteria.getModel() != null) {
+                predicates.add(builder.equal(root.get("model"), criteria.getModel()));
+            }
+            if (criteria.getCondition() != null) {
+                predicates.add(builder.equal(root.get("condition"), criteria.getCondition()));
+            }
+            if (criteria.getPriceMin() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("price"), criteria.getPriceMin()));
+            }
+            if (criteria.getPriceMax() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("price"), criteria.getPriceMax()));
+            }
+            if (criteria.getYearMin() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("year"), criteria.getYearMin()));
+            }
+            if (criteria.getYearMax() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("year"), criteria.getYearMax()));
+            }
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.y_lab.car_shop_spring_boot.dao;
+
+import com.y_lab.car_shop_spring_boot.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Репозиторий сохранённых ответов на запросы с заголовком {@code Idempotency-Key} ({@link IdempotencyRecord}).
+ * <p>
+ * Записи идентифицируются ключом клиента и ключом {@code Idempotency-Key} ({@link IdempotencyRecord.Key}).
+ * Метод {@code insert(...)} добавляет ответ запросом {@code INSERT ... ON CONFLICT DO NOTHING}: если ответ того же
+ * клиента с тем же ключом уже сохранён другим экземпляром приложения, строка не изменяется и метод возвращает 0.
+ * В отличие от {@code save()}, запрос не читает строку перед вставкой. Запрос использует синтаксис PostgreSQL.
+ * </p>
+ *
+ * <p>
+ * Метод {@code deleteCreatedBefore(Instant before)} удаляет ответы, сохранённые раньше {@code before},
+ * и возвращает количество удалённых строк.
+ * </p>
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO car_shop.idempotency_key " +
+            "(client_key, idempotency_key, request_hash, status, content_type, body, created_at) " +
+            "VALUES (:clientKey, :key, :requestHash, :status, :contentType, :body, :createdAt) " +
+            "ON CONFLICT (client_key, idempotency_key) DO NOTHING", nativeQuery = true)
+    int insert(@Param("clientKey") String clientKey, @Param("key") String key,
+               @Param("requestHash") String requestHash, @Param("status") short status,
+               @Param("contentType") String contentType, @Param("body") byte[] body,
+               @Param("createdAt") Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,35 @@
+package com.y_lab.car_shop_spring_boot.dao;
+
+import com.y_lab.car_shop_spring_boot.model.OrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Репозиторий таблицы исходящих событий заказов {@link OrderEvent}.
+ * <p>
+ * Метод {@code claimBatch(int limit)} выбирает и блокирует до {@code limit} событий для доставки в порядке
+ * идентификаторов. Выбирается только первое недоставленное событие каждого заказа — с наименьшей версией заказа
+ * {@code order_version}, а не с наименьшим идентификатором, который выдаётся блоками и не отражает порядок
+ * изменений. События, заблокированные
+ * другой транзакцией, пропускаются ({@code FOR UPDATE SKIP LOCKED}). Поэтому несколько экземпляров приложения
+ * доставляют события параллельно, не ожидая друг друга, но следующее событие заказа не может быть выбрано, пока
+ * не доставлено предыдущее, и события одного заказа доставляются по порядку. Запрос использует синтаксис PostgreSQL.
+ * </p>
+ *
+ * <p>
+ * Доставленные события удаляются унаследованным методом {@code deleteAllByIdInBatch} одним запросом {@code DELETE}.
+ * </p>
+ */
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    @Query(value = "SELECT * FROM car_shop.order_outbox WHERE event_id IN " +
+            "(SELECT DISTINCT ON (order_id) event_id FROM car_shop.order_outbox " +
+            "ORDER BY order_id, order_version, event_id) " +
+            "ORDER BY event_id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderEvent> claimBatch(@Param("limit") int limit);
+}
@@ -1,12 +1,24 @@
 package com.y_lab.car_shop_spring_boot.dao;
 
+import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
 import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.PastOrPresent;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
 /**
@@ -23,12 +35,85 @@ import java.util.List;
  * </p>
  *
  * <p>
- * Метод {@code findByStatus(String status)} возвращает список заказов, которые соответствуют заданному статусу.
+ * Метод {@code findByStatus(OrderStatus status)} возвращает список заказов, которые соответствуют заданному статусу.
+ * Статус сравнивается по коду {@code SMALLINT} с использованием индекса {@code idx_orders_status}.
+ * </p>
+ *
+ * <p>
+ * Метод {@code findByOrderIdGreaterThanOrderByOrderIdAsc(int orderId, Limit limit)} возвращает не более {@code limit}
+ * заказов с идентификатором больше заданного, упорядоченных по идентификатору. Используется для постраничной выборки по ключу.
+ * </p>
+ *
+ * <p>
+ * Методы {@code findDTO*} выполняют те же запросы, что и соответствующие методы {@code find*}, но выбирают только
+ * нужные столбцы сразу в объекты {@link OrderDTO} конструкторным выражением JPQL, не загружая сущности в контекст
+ * персистентности. Используются запросами чтения списков.
+ * </p>
+ *
+ * <p>
+ * Метод {@code streamAll()} возвращает все заказы в виде потока {@link Stream}, который читает строки из базы данных
+ * порциями по {@value #STREAM_FETCH_SIZE}. Поток должен использоваться внутри транзакции и закрываться после обработки.
+ * </p>
+ *
+ * <p>
+ * Метод {@code pageVersionHash(int orderId, int limit)} возвращает MD5-хэш идентификаторов и версий не более
+ * {@code limit} заказов с идентификатором больше заданного, вычисленный в базе данных. Из него формируется заголовок
+ * {@code ETag} страницы заказов.
+ * </p>
+ *
+ * <p>
+ * Методы {@code updateStatus(int orderId, short status, Collection<Short> sources)} и
+ * {@code updateStatus(int orderId, short status, Collection<Short> sources, long version)} изменяют статус заказа
+ * и увеличивают его версию одним запросом {@code UPDATE ... RETURNING} и возвращают изменённый заказ. Статусы
+ * передаются кодами {@link OrderStatus#getCode()}; заказ изменяется, только если его текущий статус входит
+ * в {@code sources}. Второй метод изменяет заказ, только если его текущая версия равна {@code version}; проверка
+ * и изменение выполняются атомарно в базе данных, поэтому из двух одновременных изменений одной версии заказа
+ * выполнится только одно.
+ * Если ни одна строка не изменена, возвращается пустой {@link Optional}. Запросы используют синтаксис PostgreSQL.
  * </p>
  */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
+    String STREAM_FETCH_SIZE = "500";
+    String SELECT_ORDER_DTO = "SELECT new com.y_lab.car_shop_spring_boot.dto.OrderDTO(" +
+            "o.orderId, o.userId, o.carId, o.date, o.status, o.version) FROM Order o ";
+
     List<Order> findByDate(@PastOrPresent(message = "Год должен быть не больше текущего года") LocalDate date);
 
-    List<Order> findByStatus(String status);
+    List<Order> findByStatus(OrderStatus status);
+
+    List<Order> findByOrderIdGreaterThanOrderByOrderIdAsc(int orderId, Limit limit);
+
+    @Query(SELECT_ORDER_DTO + "WHERE o.date = :date")
+    List<OrderDTO> findDTOByDate(@Param("date") LocalDate date);
+
+    @Query(SELECT_ORDER_DTO + "WHERE o.status = :status")
+    List<OrderDTO> findDTOByStatus(@Param("status") OrderStatus status);
+
+    @Query(SELECT_ORDER_DTO + "WHERE o.orderId > :orderId ORDER BY o.orderId ASC")
+    List<OrderDTO> findDTOByOrderIdGreaterThan(@Param("orderId") int orderId, Limit limit);
+
+    @Query("SELECT o FROM Order o ORDER BY o.orderId ASC")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Order> streamAll();
+
+    @Query(value = "SELECT md5(coalesce(string_agg(order_id || ':' || version, ',' ORDER BY order_id), '')) FROM " +
+            "(SELECT order_id, version FROM car_shop.orders WHERE order_id > :orderId ORDER BY order_id LIMIT :limit) page",
+            nativeQuery = true)
+    String pageVersionHash(@Param("orderId") int orderId, @Param("limit") int limit);
+
+    @Transactional
+    @Query(value = "UPDATE car_shop.orders SET status = :status, version = version + 1 " +
+            "WHERE order_id = :orderId AND status IN (:sources) RETURNING *", nativeQuery = true)
+    Optional<Order> updateStatus(@Param("orderId") int orderId, @Param("status") short status,
+                                 @Param("sources") Collection<Short> sources);
+
+    @Transactional
+    @Query(value = "UPDATE car_shop.orders SET status = :status, version = version + 1 " +
+            "WHERE order_id = :orderId AND status IN (:sources) AND version = :version RETURNING *", nativeQuery = true)
+    Optional<Order> updateStatus(@Param("orderId") int orderId, @Param("status") short status,
+                                 @Param("sources") Collection<Short> sources, @Param("version") long version);
 }
@@ -0,0 +1,24 @@
+package com.y_lab.car_shop_spring_boot.dao;
+
+import com.y_lab.car_shop_spring_boot.model.CarRow;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Неблокирующий репозиторий для чтения строк {@link CarRow}.
+ * <p>
+ * Расширяет {@link R2dbcRepository} и используется только при включённом свойстве {@code catalog.reactive.enabled}.
+ * Методы возвращают {@link Flux}, который выдаёт строки по мере их получения от PostgreSQL и запрашивает следующие
+ * строки только после того, как подписчик обработал предыдущие.
+ * </p>
+ *
+ * <p>
+ * Метод {@code findAllByOrderByCarIdAsc()} возвращает все автомобили, упорядоченные по идентификатору.
+ * </p>
+ */
+@Repository
+public interface ReactiveCarRepository extends R2dbcRepository<CarRow, Integer> {
+
+    Flux<CarRow> findAllByOrderByCarIdAsc();
+}
@@ -0,0 +1,49 @@
+package com.y_lab.car_shop_spring_boot.dao;
+
+import com.y_lab.car_shop_spring_boot.dto.SalesDTO;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import com.y_lab.car_shop_spring_boot.model.SalesSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Репозиторий для чтения сводки продаж {@link SalesSummary}.
+ * <p>
+ * Методы {@code sumByBrand(OrderStatus excluded)} и {@code sumByMonth(OrderStatus excluded)} суммируют количество
+ * заказов и выручку строк сводки по бренду и по месяцу, пропуская заказы со статусом {@code excluded}, а метод
+ * {@code sumByStatus()} — по статусу заказа. Результаты выбираются сразу в объекты {@link SalesDTO} конструкторным
+ * выражением JPQL. Сводка содержит по одной строке на сочетание бренда, месяца и статуса, поэтому запросы читают
+ * небольшое представление и не обращаются к таблицам {@code orders} и {@code car}.
+ * </p>
+ *
+ * <p>
+ * Метод {@code refresh()} пересчитывает представление командой {@code REFRESH MATERIALIZED VIEW CONCURRENTLY}:
+ * запросы чтения не блокируются и видят прежнюю сводку до окончания пересчёта. Запрос использует синтаксис PostgreSQL.
+ * </p>
+ */
+@Repository
+public interface SalesSummaryRepository extends JpaRepository<SalesSummary, SalesSummary.Key> {
+
+    @Query("SELECT new com.y_lab.car_shop_spring_boot.dto.SalesDTO(s.brand, sum(s.orders), sum(s.revenue)) " +
+            "FROM SalesSummary s WHERE s.status <> :excluded GROUP BY s.brand ORDER BY sum(s.revenue) DESC, s.brand")
+    List<SalesDTO> sumByBrand(@Param("excluded") OrderStatus excluded);
+
+    @Query("SELECT new com.y_lab.car_shop_spring_boot.dto.SalesDTO(s.month, sum(s.orders), sum(s.revenue)) " +
+            "FROM SalesSummary s WHERE s.status <> :excluded GROUP BY s.month ORDER BY s.month")
+    List<SalesDTO> sumByMonth(@Param("excluded") OrderStatus excluded);
+
+    @Query("SELECT new com.y_lab.car_shop_spring_boot.dto.SalesDTO(s.status, sum(s.orders), sum(s.revenue)) " +
+            "FROM SalesSummary s GROUP BY s.status ORDER BY s.status")
+    List<SalesDTO> sumByStatus();
+
+    @Transactional
+    @Modifying
+    @Query(value = "REFRESH MATERIALIZED VIEW CONCURRENTLY car_shop.sales_summary", nativeQuery = true)
+    void refresh();
+}
@@ -1,11 +1,23 @@
 package com.y_lab.car_shop_spring_boot.dao;
 
+import com.y_lab.car_shop_spring_boot.dto.UserDTO;
 import com.y_lab.car_shop_spring_boot.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для управления сущностями {@link User}.
@@ -38,23 +50,182 @@ import java.util.List;
  * <p>
  * Метод {@code getSortByCity()} выполняет запрос и возвращает список всех пользователей, отсортированных по городу в порядке возрастания.
  * </p>
+ *
+ * <p>
+ * Методы с параметром {@link Limit} используются для постраничной выборки по ключу. Сортировка дополняется идентификатором
+ * пользователя, чтобы порядок был однозначным при совпадающих значениях. Методы {@code getSortBy*After} возвращают
+ * пользователей, следующих в порядке сортировки за парой (значение, идентификатор) из курсора. Условие записано
+ * сравнением кортежей {@code (u.name, u.userId) > (:name, :userId)}, которое Hibernate передаёт в PostgreSQL как
+ * сравнение строк {@code ROW(...) > ROW(...)}: в отличие от условия с {@code OR}, оно целиком становится границей
+ * просмотра составных индексов {@code idx_user_name_id}, {@code idx_user_age_id} и {@code idx_user_city_id},
+ * и страница читается из индекса с позиции курсора без сортировки.
+ * </p>
+ *
+ * <p>
+ * Роли пользователя загружаются лениво. Методы, возвращающие полный список пользователей, загружают роли вместе
+ * с пользователями одним запросом с {@code LEFT JOIN} по графу сущности {@code @EntityGraph(attributePaths = "role")}.
+ * Методы с параметром {@link Limit} загружают только пользователей, потому что соединение с коллекцией не позволяет
+ * ограничить число строк в базе данных; роли страницы загружаются вторым запросом
+ * {@code fetchRoles(Collection<Integer> userIds)} в той же транзакции. Метод {@code findWithRoleByUserId(int userId)}
+ * возвращает пользователя вместе с ролями, а {@code findById(Integer id)} — без ролей.
+ * </p>
+ *
+ * <p>
+ * Методы {@code getDTO*}, {@code getSortDTO*} и {@code findDTO*} выполняют те же запросы, что и соответствующие методы
+ * для сущностей, но выбирают только нужные столбцы сразу в объекты {@link UserDTO} конструкторным выражением JPQL,
+ * не загружая сущности в контекст персистентности. Роли в эти объекты не выбираются: их загружает одним запросом
+ * метод {@code findRoles(Collection<Integer> userIds)}, который возвращает пары (идентификатор пользователя, роль).
+ * </p>
+ *
+ * <p>
+ * Метод {@code findVersionByUserId(int userId)} возвращает только версию пользователя, а метод
+ * {@code pageVersionHash(int userId, int limit)} — MD5-хэш идентификаторов и версий не более {@code limit} пользователей
+ * с идентификатором больше заданного, вычисленный в базе данных. Из них формируются заголовки {@code ETag}.
+ * </p>
+ *
+ * <p>
+ * Методы {@code update(User user)} и {@code update(User user, long version)} изменяют имя, возраст и город пользователя
+ * и увеличивают его версию одним запросом {@code UPDATE ... RETURNING}; второй метод — только если текущая версия равна
+ * {@code version}. Если ни одна строка не изменена, возвращается пустой {@link Optional}. Методы
+ * {@code deleteRoles(int userId)} и {@code insertRole(int userId, String role)} заменяют роли пользователя в той же
+ * транзакции. Запросы используют синтаксис PostgreSQL.
+ * </p>
+ *
+ * <p>
+ * Метод {@code streamAll()} возвращает всех пользователей вместе с ролями в виде потока {@link Stream}, который читает
+ * строки из базы данных порциями по {@value #STREAM_FETCH_SIZE}. Поток должен использоваться внутри транзакции
+ * и закрываться после обработки.
+ * </p>
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
+    String STREAM_FETCH_SIZE = "500";
+    String SELECT_USER_DTO = "SELECT new com.y_lab.car_shop_spring_boot.dto.UserDTO(" +
+            "u.userId, u.name, u.age, u.city) FROM User u ";
+
+    @Override
+    @EntityGraph(attributePaths = "role")
+    List<User> findAll();
+
+    @EntityGraph(attributePaths = "role")
+    Optional<User> findWithRoleByUserId(int userId);
+
+    @EntityGraph(attributePaths = "role")
     List<User> getByAge(int age);
 
+    @EntityGraph(attributePaths = "role")
     List<User> getByName(String name);
 
+    @EntityGraph(attributePaths = "role")
     List<User> getByCity(String city);
 
+    @EntityGraph(attributePaths = "role")
     @Query("SELECT u FROM User u ORDER BY u.name ASC")
     List<User> getSortByName();
 
+    @EntityGraph(attributePaths = "role")
     @Query("SELECT u FROM User u ORDER BY u.age ASC")
     List<User> getSortByAge();
 
+    @EntityGraph(attributePaths = "role")
     @Query("SELECT u FROM User u ORDER BY u.city ASC")
     List<User> getSortByCity();
 
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role WHERE u.userId IN :userIds")
+    List<User> fetchRoles(@Param("userIds") Collection<Integer> userIds);
+
+    @Query(SELECT_USER_DTO + "WHERE u.age = :age")
+    List<UserDTO> getDTOByAge(@Param("age") int age);
+
+    @Query(SELECT_USER_DTO + "WHERE u.name = :name")
+    List<UserDTO> getDTOByName(@Param("name") String name);
+
+    @Query(SELECT_USER_DTO + "WHERE u.city = :city")
+    List<UserDTO> getDTOByCity(@Param("city") String city);
+
+    @Query(SELECT_USER_DTO + "WHERE u.userId > :userId ORDER BY u.userId ASC")
+    List<UserDTO> findDTOByUserIdGreaterThan(@Param("userId") int userId, Limit limit);
+
+    @Query(SELECT_USER_DTO + "ORDER BY u.name ASC, u.userId ASC")
+    List<UserDTO> getSortDTOByName(Limit limit);
+
+    @Query(SELECT_USER_DTO + "WHERE (u.name, u.userId) > (:name, :userId) " +
+            "ORDER BY u.name ASC, u.userId ASC")
+    List<UserDTO> getSortDTOByNameAfter(@Param("name") String name, @Param("userId") int userId, Limit limit);
+
+    @Query(SELECT_USER_DTO + "ORDER BY u.age ASC, u.userId ASC")
+    List<UserDTO> getSortDTOByAge(Limit limit);
+
+    @Query(SELECT_USER_DTO + "WHERE (u.age, u.userId) > (:age, :userId) " +
+            "ORDER BY u.age ASC, u.userId ASC")
+    List<UserDTO> getSortDTOByAgeAfter(@Param("age") int age, @Param("userId") int userId, Limit limit);
+
+    @Query(SELECT_USER_DTO + "ORDER BY u.city ASC, u.userId ASC")
+    List<UserDTO> getSortDTOByCity(Limit limit);
+
+    @Query(SELECT_USER_DTO + "WHERE (u.city, u.userId) > (:city, :userId) " +
+            "ORDER BY u.city ASC, u.userId ASC")
+    List<UserDTO> getSortDTOByCityAfter(@Param("city") String city, @Param("userId") int userId, Limit limit);
+
+    @Query("SELECT u.userId, r FROM User u JOIN u.role r WHERE u.userId IN :userIds")
+    List<Object[]> findRoles(@Param("userIds") Collection<Integer> userIds);
+
+    List<User> findByUserIdGreaterThanOrderByUserIdAsc(int userId, Limit limit);
+
+    @Query("SELECT u FROM User u ORDER BY u.name ASC, u.userId ASC")
+    List<User> getSortByName(Limit limit);
+
+    @Query("SELECT u FROM User u WHERE (u.name, u.userId) > (:name, :userId) " +
+            "ORDER BY u.name ASC, u.userId ASC")
+    List<User> getSortByNameAfter(@Param("name") String name, @Param("userId") int userId, Limit limit);
+
+    @Query("SELECT u FROM User u ORDER BY u.age ASC, u.userId ASC")
+    List<User> getSortByAge(Limit limit);
+
+    @Query("SELECT u FROM User u WHERE (u.age, u.userId) > (:age, :userId) " +
+            "ORDER BY u.age ASC, u.userId ASC")
+    List<User> getSortByAgeAfter(@Param("age") int age, @Param("userId") int userId, Limit limit);
+
+    @Query("SELECT u FROM User u ORDER BY u.city ASC, u.userId ASC")
+    List<User> getSortByCity(Limit limit);
+
+    @Query("SELECT u FROM User u WHERE (u.city, u.userId) > (:city, :userId) " +
+            "ORDER BY u.city ASC, u.userId ASC")
+    List<User> getSortByCityAfter(@Param("city") String city, @Param("userId") int userId, Limit limit);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role ORDER BY u.userId ASC")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<User> streamAll();
+
+    @Query("SELECT u.version FROM User u WHERE u.userId = :userId")
+    Optional<Long> findVersionByUserId(@Param("userId") int userId);
+
+    @Query(value = "SELECT md5(coalesce(string_agg(user_id || ':' || version, ',' ORDER BY user_id), '')) FROM " +
+            "(SELECT user_id, version FROM car_shop.\"user\" WHERE user_id > :userId ORDER BY user_id LIMIT :limit) page",
+            nativeQuery = true)
+    String pageVersionHash(@Param("userId") int userId, @Param("limit") int limit);
+
+    @Transactional
+    @Query(value = "UPDATE car_shop.\"user\" SET name = :#{#user.name}, age = :#{#user.age}, city = :#{#user.city}, " +
+            "version = version + 1 WHERE user_id = :#{#user.userId} RETURNING *", nativeQuery = true)
+    Optional<User> update(@Param("user") User user);
+
+    @Transactional
+    @Query(value = "UPDATE car_shop.\"user\" SET name = :#{#user.name}, age = :#{#user.age}, city = :#{#user.city}, " +
+            "version = version + 1 WHERE user_id = :#{#user.userId} AND version = :version RETURNING *", nativeQuery = true)
+    Optional<User> update(@Param("user") User user, @Param("version") long version);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM car_shop.user_roles WHERE user_id = :userId", nativeQuery = true)
+    void deleteRoles(@Param("userId") int userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO car_shop.user_roles (user_id, role) VALUES (:userId, :role)", nativeQuery = true)
+    void insertRole(@Param("userId") int userId, @Param("role") String role);
 }
 
@@ -1,5 +1,6 @@
 package com.y_lab.car_shop_spring_boot.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
@@ -18,6 +19,7 @@ import lombok.NoArgsConstructor;
  * <p>
  * Поля:
  * <ul>
+ *     <li>{@link #carId} - идентификатор автомобиля. Не передаётся в JSON; используется для курсора страницы.</li>
  *     <li>{@link #brand} - бренд автомобиля. Поле не должно быть пустым.</li>
  *     <li>{@link #model} - модель автомобиля. Поле не должно быть пустым.</li>
  *     <li>{@link #year} - год выпуска автомобиля. Поле не должно превышать текущий год.</li>
@@ -41,6 +43,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class CarDTO {
     private static final int CURRENT_YEAR = 2024;
+    @JsonIgnore
+    private int carId;
     @NotBlank(message = "поле бренд не должно быть пустым")
     private String brand;
     @NotBlank(message = "поле модель не должно быть пустым")
@@ -51,4 +55,8 @@ public class CarDTO {
     private double price;
     @NotBlank(message = "поле состояние не должно быть пустым")
     private String condition;
+
+    public CarDTO(String brand, String model, int year, double price, String condition) {
+        this(0, brand, model, year, price, condition);
+    }
 }
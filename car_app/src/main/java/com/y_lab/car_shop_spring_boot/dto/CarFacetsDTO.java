@@ -0,0 +1,58 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) для представления фасетов каталога автомобилей.
+ * <p>
+ * Этот класс используется для передачи результата запроса {@code GET /cars/facets}: количества автомобилей,
+ * удовлетворяющих критериям {@link CarSearchCriteria}, и распределения этих автомобилей по значениям атрибутов.
+ * </p>
+ *
+ * <p>
+ * Поля:
+ * <ul>
+ *     <li>{@link #total} - количество автомобилей, удовлетворяющих всем критериям.</li>
+ *     <li>{@link #brands} - количество автомобилей по брендам.</li>
+ *     <li>{@link #conditions} - количество автомобилей по состояниям.</li>
+ *     <li>{@link #years} - количество автомобилей по интервалам года выпуска.</li>
+ *     <li>{@link #prices} - количество автомобилей по интервалам цены.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Количество по каждому атрибуту считается без учёта критерия по этому же атрибуту, поэтому при выбранном бренде
+ * в {@link #brands} остаются и остальные бренды с количеством автомобилей, которое получится при выборе каждого из них.
+ * Значения и интервалы с нулевым количеством не включаются.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarFacetsDTO {
+    public static final String DEFAULT_YEAR_BUCKET = "5";
+    public static final String DEFAULT_PRICE_BUCKET = "10000";
+
+    private int total;
+    private Map<String, Integer> brands;
+    private Map<String, Integer> conditions;
+    private List<Bucket> years;
+    private List<Bucket> prices;
+
+    /**
+     * Интервал значений атрибута {@code [from, to)} и количество автомобилей в нём.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Bucket {
+        private long from;
+        private long to;
+        private int count;
+    }
+}
@@ -0,0 +1,57 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) для представления результата импорта автомобилей из CSV.
+ * <p>
+ * Этот класс используется для передачи результата запроса {@code POST /cars/import}: количества сохранённых
+ * и отклонённых строк и описания ошибок по каждой отклонённой строке.
+ * </p>
+ *
+ * <p>
+ * Поля:
+ * <ul>
+ *     <li>{@link #imported} - количество сохранённых автомобилей.</li>
+ *     <li>{@link #rejected} - количество отклонённых строк.</li>
+ *     <li>{@link #errors} - ошибки по отклонённым строкам; в отчёт включаются первые {@value #MAX_REPORTED_ERRORS}.</li>
+ * </ul>
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarImportReportDTO {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private int imported;
+    private int rejected;
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    /**
+     * Ошибка в строке CSV: номер строки в файле (заголовок — строка 1) и описание ошибки.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,51 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import com.y_lab.car_shop_spring_boot.util.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Критерии составного поиска автомобилей.
+ * <p>
+ * Этот класс используется для передачи параметров поиска из запроса {@code GET /cars/search} в сервисный слой.
+ * Все поля необязательные: незаданное поле не участвует в поиске, заданные поля объединяются условием "И".
+ * </p>
+ *
+ * <p>
+ * Поля:
+ * <ul>
+ *     <li>{@link #brand} - бренд автомобиля, точное совпадение.</li>
+ *     <li>{@link #model} - модель автомобиля, точное совпадение.</li>
+ *     <li>{@link #condition} - состояние автомобиля, точное совпадение.</li>
+ *     <li>{@link #priceMin}, {@link #priceMax} - диапазон цены, границы включаются.</li>
+ *     <li>{@link #yearMin}, {@link #yearMax} - диапазон года выпуска, границы включаются.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Метод {@link #validate()} проверяет, что нижняя граница каждого диапазона не больше верхней, и генерирует
+ * исключение {@link BadRequestException} в противном случае.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarSearchCriteria {
+    private String brand;
+    private String model;
+    private String condition;
+    private Double priceMin;
+    private Double priceMax;
+    private Integer yearMin;
+    private Integer yearMax;
+
+    public void validate() {
+        if (priceMin != null && priceMax != null && priceMin > priceMax) {
+            throw new BadRequestException("priceMin must not be greater than priceMax");
+        }
+        if (yearMin != null && yearMax != null && yearMin > yearMax) {
+            throw new BadRequestException("yearMin must not be greater than yearMax");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) для массового изменения статуса заказов.
+ * <p>
+ * Этот класс используется для передачи тела запросов {@code PUT /orders/bulk/status} и {@code PUT /orders/bulk/canceled}:
+ * какие заказы изменить и какой статус им установить. Заказы выбираются по списку идентификаторов, по фильтру
+ * или по обоим сразу (тогда изменяются заказы из списка, удовлетворяющие фильтру). Должен быть задан хотя бы
+ * список идентификаторов или одно из условий фильтра.
+ * </p>
+ *
+ * <p>
+ * Поля:
+ * <ul>
+ *     <li>{@link #ids} - идентификаторы заказов.</li>
+ *     <li>{@link #currentStatus} - текущий статус заказов, точное совпадение.</li>
+ *     <li>{@link #dateFrom}, {@link #dateTo} - диапазон даты заказа, границы включаются.</li>
+ *     <li>{@link #status} - новый статус; при отмене заказов не учитывается.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Пример тела запроса для отмены оформленных заказов старше 1 июля 2024 года:
+ * <pre>
+ *     {"currentStatus": "заказ оформлен", "dateTo": "2024-06-30"}
+ * </pre>
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderBulkUpdateDTO {
+    private List<Integer> ids;
+    private OrderStatus currentStatus;
+    private LocalDate dateFrom;
+    private LocalDate dateTo;
+    private OrderStatus status;
+}
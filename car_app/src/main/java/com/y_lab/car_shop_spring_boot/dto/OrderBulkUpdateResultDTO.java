@@ -0,0 +1,18 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) для представления результата массового изменения статуса заказов.
+ * <p>
+ * Поле {@link #updated} содержит количество заказов, статус которых был изменён.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderBulkUpdateResultDTO {
+    private int updated;
+}
@@ -1,6 +1,8 @@
 package com.y_lab.car_shop_spring_boot.dto;
 
-import jakarta.validation.constraints.NotBlank;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -13,7 +15,13 @@ import java.time.LocalDate;
  * Объект передачи данных (DTO) для представления заказа.
  * <p>
  * Этот класс используется для передачи данных о заказе между различными слоями приложения.
- * Он включает информацию о пользователе, автомобиле, дате заказа и статусе заказа.
+ * Он включает информацию о пользователе, автомобиле, дате заказа, статусе заказа и версии заказа.
+ * Версия передаётся клиенту, чтобы при изменении статуса он мог указать, какую версию заказа видел; при создании
+ * заказа версия не учитывается. Идентификатор заказа не передаётся в JSON и используется для курсора страницы.
+ * </p>
+ *
+ * <p>
+ * Статус {@link OrderStatus} передаётся в JSON заголовком статуса, например {@code "заказ оформлен"}.
  * </p>
  *
  * <p>
@@ -30,12 +38,19 @@ import java.time.LocalDate;
 @NoArgsConstructor
 public class OrderDTO {
     private static final int CURRENT_YEAR = 2024;
+    @JsonIgnore
+    private int orderId;
     @Positive(message = "userId должен быть положительным числом")
     private int userId;
     @Positive(message = "carId должен быть положительным числом")
     private int carId;
     @PastOrPresent(message = "Год должен быть не больше текущего года")
     private LocalDate date;
-    @NotBlank(message = "поле статус не должно быть пустым")
-    private String status;
+    @NotNull(message = "поле статус не должно быть пустым")
+    private OrderStatus status;
+    private long version;
+
+    public OrderDTO(int userId, int carId, LocalDate date, OrderStatus status) {
+        this(0, userId, carId, date, status, 0);
+    }
 }
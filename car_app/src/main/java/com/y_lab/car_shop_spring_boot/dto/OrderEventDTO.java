@@ -0,0 +1,32 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.y_lab.car_shop_spring_boot.model.OrderEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Объект передачи данных (DTO) для доставки события заказа внешним системам.
+ * <p>
+ * Содержит идентификатор события {@code eventId}, по которому получатель отбрасывает повторно доставленные
+ * события, идентификатор заказа, версию заказа после изменения {@code orderVersion}, по которой получатель
+ * упорядочивает события заказа, вид изменения {@link OrderEvent.Type}, время изменения и заказ после изменения
+ * {@code order}. Заказ хранится в таблице событий уже в формате JSON и выводится без повторной сериализации
+ * ({@link JsonRawValue}).
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderEventDTO {
+    private long eventId;
+    private int orderId;
+    private long orderVersion;
+    private OrderEvent.Type type;
+    private Instant createdAt;
+    @JsonRawValue
+    private String order;
+}
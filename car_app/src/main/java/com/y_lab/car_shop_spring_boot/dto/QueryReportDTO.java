@@ -0,0 +1,76 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) для представления отчёта о SQL-запросах приложения.
+ * <p>
+ * Этот класс используется для передачи результата запроса {@code GET /actuator/queries}: статистики выполнения
+ * SQL-запросов, накопленной с запуска приложения или последнего сброса отчёта.
+ * </p>
+ *
+ * <p>
+ * Поля:
+ * <ul>
+ *     <li>{@link #statements} - запросы с наибольшим суммарным временем выполнения.</li>
+ *     <li>{@link #repeated} - запросы, которые выполнялись многократно в одном HTTP-запросе (признак проблемы N+1).</li>
+ *     <li>{@link #endpoints} - HTTP-запросы с наибольшим количеством SQL-запросов.</li>
+ * </ul>
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueryReportDTO {
+    private List<Statement> statements;
+    private List<NPlusOne> repeated;
+    private List<Endpoint> endpoints;
+
+    /**
+     * Статистика SQL-запроса: количество выполнений, суммарное, среднее и максимальное время в миллисекундах,
+     * количество медленных выполнений и план последнего медленного выполнения.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Statement {
+        private String sql;
+        private long count;
+        private double totalMillis;
+        private double meanMillis;
+        private double maxMillis;
+        private long slow;
+        private String plan;
+    }
+
+    /**
+     * SQL-запрос, выполнявшийся многократно в одном HTTP-запросе: количество таких HTTP-запросов
+     * и наибольшее количество повторений.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class NPlusOne {
+        private String endpoint;
+        private String sql;
+        private long occurrences;
+        private int maxRepetitions;
+    }
+
+    /**
+     * HTTP-запрос (метод и шаблон пути): количество запросов, среднее и наибольшее количество SQL-запросов в одном запросе.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Endpoint {
+        private String endpoint;
+        private long requests;
+        private double meanStatements;
+        private int maxStatements;
+    }
+}
@@ -0,0 +1,55 @@
+package com.y_lab.car_shop_spring_boot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) для представления продаж одной группы заказов.
+ * <p>
+ * Этот класс используется для передачи результатов запросов {@code GET /analytics/sales/*}. Заполнено одно из полей
+ * группировки — {@link #brand}, {@link #month} (первый день месяца) или {@link #status}; остальные равны {@code null}
+ * и не выводятся в ответ.
+ * </p>
+ *
+ * <p>
+ * Поля:
+ * <ul>
+ *     <li>{@link #orders} - количество заказов в группе.</li>
+ *     <li>{@link #revenue} - сумма цен автомобилей, заказанных в группе.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Конструкторы с полем группировки и итогами используются конструкторными выражениями JPQL
+ * {@code SalesSummaryRepository}.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SalesDTO {
+    private String brand;
+    private LocalDate month;
+    private OrderStatus status;
+    private long orders;
+    private BigDecimal revenue;
+
+    public SalesDTO(String brand, Long orders, BigDecimal revenue) {
+        this(brand, null, null, orders, revenue);
+    }
+
+    public SalesDTO(LocalDate month, Long orders, BigDecimal revenue) {
+        this(null, month, null, orders, revenue);
+    }
+
+    public SalesDTO(OrderStatus status, Long orders, BigDecimal revenue) {
+        this(null, null, status, orders, revenue);
+    }
+}
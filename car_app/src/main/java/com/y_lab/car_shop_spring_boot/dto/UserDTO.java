@@ -1,5 +1,6 @@
 package com.y_lab.car_shop_spring_boot.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.y_lab.car_shop_spring_boot.model.Roles;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -8,13 +9,15 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Объект передачи данных (DTO) для представления пользователя.
  * <p>
  * Этот класс используется для передачи данных о пользователе между различными слоями приложения.
- * Включает информацию о пользователе, его ролях и заказах.
+ * Включает информацию о пользователе, его ролях и заказах. Идентификатор пользователя не передаётся в JSON
+ * и используется для курсора страницы и загрузки ролей при выборке DTO из репозитория.
  * </p>
  *
  * <p>
@@ -30,6 +33,8 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 public class UserDTO {
+    @JsonIgnore
+    private int userId;
     @NotBlank(message = "поле имя не должно быть пустым")
     private String name;
     @Min(value = 18, message = "минимальный возраст 18 лет")
@@ -38,4 +43,12 @@ public class UserDTO {
     @NotBlank(message = "поле город не должно быть пустым")
     private String city;
     private Set<Roles> role;
+
+    public UserDTO(String name, int age, String city, Set<Roles> role) {
+        this(0, name, age, city, role);
+    }
+
+    public UserDTO(int userId, String name, int age, String city) {
+        this(userId, name, age, city, new HashSet<>());
+    }
 }
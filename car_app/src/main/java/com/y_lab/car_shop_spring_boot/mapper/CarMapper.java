@@ -2,11 +2,14 @@ package com.y_lab.car_shop_spring_boot.mapper;
 
 import com.y_lab.car_shop_spring_boot.dto.CarDTO;
 import com.y_lab.car_shop_spring_boot.model.Car;
+import com.y_lab.car_shop_spring_boot.model.CarRow;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 /**
- * Интерфейс для преобразования (маппинга) объектов типа {@link Car} в объекты типа {@link CarDTO} и обратно.
+ * Интерфейс для преобразования (маппинга) объектов типа {@link Car} в объекты типа {@link CarDTO} и обратно,
+ * а также строк {@link CarRow}, прочитанных через R2DBC, в объекты {@link CarDTO}.
  * <p>
  * Этот интерфейс используется для автоматического создания маппера с помощью библиотеки MapStruct.
  * </p>
@@ -25,5 +28,8 @@ public interface CarMapper {
 
     CarDTO getCarDTO(Car car);
 
+    @Mapping(target = "version", ignore = true)
     Car getCar(CarDTO carDTO);
+
+    CarDTO getCarDTO(CarRow carRow);
 }
@@ -0,0 +1,25 @@
+package com.y_lab.car_shop_spring_boot.mapper;
+
+import com.y_lab.car_shop_spring_boot.dto.OrderEventDTO;
+import com.y_lab.car_shop_spring_boot.model.OrderEvent;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+
+import java.util.List;
+
+/**
+ * Интерфейс для преобразования (маппинга) событий {@link OrderEvent} в объекты {@link OrderEventDTO}.
+ * <p>
+ * JSON заказа из поля {@code payload} события передаётся в поле {@code order} без разбора.
+ * </p>
+ */
+@Mapper
+public interface OrderEventMapper {
+    OrderEventMapper INSTANCE = Mappers.getMapper(OrderEventMapper.class);
+
+    @Mapping(source = "payload", target = "order")
+    OrderEventDTO getOrderEventDTO(OrderEvent event);
+
+    List<OrderEventDTO> getOrderEventDTOs(List<OrderEvent> events);
+}
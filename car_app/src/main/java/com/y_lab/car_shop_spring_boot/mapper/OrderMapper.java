@@ -3,6 +3,7 @@ package com.y_lab.car_shop_spring_boot.mapper;
 import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
 import com.y_lab.car_shop_spring_boot.model.Order;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 /**
@@ -25,5 +26,6 @@ public interface OrderMapper {
 
     OrderDTO getOdderDTO(Order order);
 
+    @Mapping(target = "version", ignore = true)
     Order getOrder(OrderDTO orderDTO);
 }
@@ -3,6 +3,7 @@ package com.y_lab.car_shop_spring_boot.mapper;
 import com.y_lab.car_shop_spring_boot.dto.UserDTO;
 import com.y_lab.car_shop_spring_boot.model.User;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 /**
@@ -23,6 +24,7 @@ import org.mapstruct.factory.Mappers;
 public interface UserMapper {
     UserMapper INSTANCE = Mappers.getMapper(UserMapper.class);
 
+    @Mapping(target = "version", ignore = true)
     User getUser(UserDTO userDTO);
 
     UserDTO getUserDTO(User user);
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.io.Serializable;
 import java.util.Objects;
@@ -26,7 +27,9 @@ import java.util.Objects;
  * </p>
  *
  * <p>
- * Поле {@code carId} является идентификатором сущности, который автоматически генерируется базой данных при создании новой записи.
+ * Поле {@code carId} является идентификатором сущности, который берётся из последовательности {@code car_shop.car_car_id_seq}
+ * при создании новой записи. Hibernate резервирует идентификаторы блоками по {@value #ID_ALLOCATION_SIZE}, поэтому
+ * новые автомобили вставляются пакетами JDBC (размер пакета задаётся свойством {@code hibernate.jdbc.batch_size}).
  * </p>
  *
  * <p>
@@ -51,6 +54,13 @@ import java.util.Objects;
  * </p>
  *
  * <p>
+ * Поле {@code version} представляет версию автомобиля. Аннотация {@code @Version} указывает Hibernate проверять версию
+ * при обновлении сущности; автомобиль также обновляется одним условным запросом {@code UPDATE}, который увеличивает
+ * версию (см. {@code CarRepository}). Версия передаётся клиенту в заголовке {@code ETag}. Новый автомобиль получает
+ * версию 0.
+ * </p>
+ *
+ * <p>
  * Константа {@code CURRENT_YEAR} используется для проверки, что год выпуска автомобиля не превышает текущий год.
  * </p>
  */
@@ -62,8 +72,12 @@ import java.util.Objects;
 @Table(name = "car", schema = "car_shop")
 public class Car implements Serializable {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_id_generator")
+    @SequenceGenerator(name = "car_id_generator", schema = "car_shop", sequenceName = "car_car_id_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "car_id")
     private int carId;
 
@@ -93,8 +107,17 @@ public class Car implements Serializable {
     @NotBlank(message = "Condition cannot be null, empty or contain only spaces")
     private String condition;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     private static final int CURRENT_YEAR = 2024;
 
+    public Car(int carId, String brand, String model, int year, double price, String condition) {
+        this(carId, brand, model, year, price, condition, 0);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
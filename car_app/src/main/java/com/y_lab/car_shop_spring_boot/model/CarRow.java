@@ -0,0 +1,43 @@
+package com.y_lab.car_shop_spring_boot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Строка таблицы {@code car_shop.car} для неблокирующего чтения каталога через R2DBC.
+ * <p>
+ * Отображает ту же таблицу, что и сущность JPA {@link Car}, но используется только для чтения: автомобили создаются,
+ * изменяются и удаляются через {@link Car}. Аннотации {@code @Table} и {@code @Column} из Spring Data Relational
+ * (а не JPA) относят этот класс к репозиториям R2DBC.
+ * </p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "car", schema = "car_shop")
+public class CarRow {
+    @Id
+    @Column("car_id")
+    private int carId;
+
+    @Column("brand")
+    private String brand;
+
+    @Column("model")
+    private String model;
+
+    @Column("year")
+    private int year;
+
+    @Column("price")
+    private double price;
+
+    @Column("condition")
+    private String condition;
+}
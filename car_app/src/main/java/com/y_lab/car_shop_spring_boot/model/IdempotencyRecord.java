@@ -0,0 +1,72 @@
+package com.y_lab.car_shop_spring_boot.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Сохранённый ответ на запрос с заголовком {@code Idempotency-Key}.
+ * <p>
+ * Сущность отображает таблицу {@code idempotency_key} в схеме {@code car_shop}, создаваемую миграцией Liquibase
+ * {@code v.1.7}. Строка содержит ключ клиента {@code clientKey} (см. {@code ClientKeyResolver}), ключ, хэш SHA-256
+ * запроса {@code requestHash}, по которому повтор с тем же ключом отличается от другого запроса, а также код ответа,
+ * его тип содержимого и тело. Строки добавляются
+ * {@code IdempotencyRecordRepository.insert} и удаляются по истечении срока хранения.
+ * </p>
+ *
+ * <p>
+ * Строка идентифицируется парой {@link Key} из ключа клиента и ключа {@code Idempotency-Key}, поэтому одинаковые
+ * ключи разных клиентов не совпадают.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_key", schema = "car_shop")
+@IdClass(IdempotencyRecord.Key.class)
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "client_key")
+    private String clientKey;
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(name = "request_hash")
+    private String requestHash;
+
+    @Column(name = "status")
+    private short status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "body")
+    private byte[] body;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    /**
+     * Идентификатор сохранённого ответа: ключ клиента и ключ {@code Idempotency-Key}.
+     */
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String clientKey;
+        private String key;
+    }
+}
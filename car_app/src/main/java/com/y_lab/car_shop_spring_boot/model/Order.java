@@ -1,10 +1,11 @@
 package com.y_lab.car_shop_spring_boot.model;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 import java.io.Serializable;
@@ -42,7 +43,14 @@ import java.util.Objects;
  * </p>
  *
  * <p>
- * Поле {@code status} представляет статус заказа. Оно не может быть пустым и должно содержать текстовое описание текущего состояния заказа.
+ * Поле {@code status} представляет статус заказа {@link OrderStatus}. Оно не может быть пустым и хранится в базе данных
+ * в виде кода {@code SMALLINT} (см. {@link OrderStatusConverter}).
+ * </p>
+ *
+ * <p>
+ * Поле {@code version} представляет версию заказа для оптимистической блокировки. Аннотация {@code @Version} указывает
+ * Hibernate проверять версию при обновлении сущности; статус заказа изменяется одним условным запросом {@code UPDATE},
+ * который увеличивает версию (см. {@code OrderRepository}). Новый заказ получает версию 0.
  * </p>
  */
 @Getter
@@ -70,8 +78,17 @@ public class Order implements Serializable {
     private LocalDate date;
 
     @Column(name = "status")
-    @NotBlank(message = "поле статус не должно быть пустым")
-    private String status;
+    @NotNull(message = "поле статус не должно быть пустым")
+    private OrderStatus status;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    public Order(int orderId, int userId, int carId, LocalDate date, OrderStatus status) {
+        this(orderId, userId, carId, date, status, 0);
+    }
 
     @Override
     public boolean equals(Object o) {
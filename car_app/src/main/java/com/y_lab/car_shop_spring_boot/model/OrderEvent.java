@@ -0,0 +1,71 @@
+package com.y_lab.car_shop_spring_boot.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Событие заказа в таблице исходящих событий {@code order_outbox} схемы {@code car_shop}.
+ * <p>
+ * Событие записывается сервисом заказов в той же транзакции, что и изменение заказа, поэтому оно сохраняется
+ * тогда и только тогда, когда фиксируется само изменение. Поле {@code payload} содержит заказ после изменения
+ * в формате JSON ({@code OrderDTO}), поле {@code type} — вид изменения {@link Type}, поле {@code orderVersion} —
+ * версия заказа после изменения. События одного заказа доставляются получателям {@code OrderOutboxRelay} в порядке
+ * {@code orderVersion} и удаляются после доставки.
+ * </p>
+ *
+ * <p>
+ * Идентификатор события выдаётся последовательностью {@code order_outbox_event_id_seq} блоками по
+ * {@value #ID_ALLOCATION_SIZE}, поэтому события массового изменения статуса вставляются пакетами. Каждый экземпляр
+ * приложения получает свой блок, и более позднее событие заказа может получить меньший идентификатор, чем более
+ * раннее, поэтому идентификатор не задаёт порядок событий. Версия заказа увеличивается каждым изменением под
+ * блокировкой строки заказа и записывается в той же транзакции, поэтому она возрастает в порядке фиксации изменений.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "order_outbox", schema = "car_shop")
+public class OrderEvent {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_event_id_generator")
+    @SequenceGenerator(name = "order_event_id_generator", schema = "car_shop",
+            sequenceName = "order_outbox_event_id_seq", allocationSize = ID_ALLOCATION_SIZE)
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "order_id")
+    private int orderId;
+
+    @Column(name = "order_version")
+    private long orderVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type")
+    private Type type;
+
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    public OrderEvent(int orderId, long orderVersion, Type type, String payload, Instant createdAt) {
+        this(null, orderId, orderVersion, type, payload, createdAt);
+    }
+
+    /**
+     * Вид изменения заказа.
+     */
+    public enum Type {
+        ORDER_CREATED,
+        ORDER_UPDATED,
+        STATUS_CHANGED
+    }
+}
@@ -0,0 +1,66 @@
+package com.y_lab.car_shop_spring_boot.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.y_lab.car_shop_spring_boot.util.BadRequestException;
+import lombok.Getter;
+
+/**
+ * Перечисление, представляющее статусы заказа.
+ *
+ * <p>Каждый статус имеет код, который хранится в столбце {@code status} таблицы {@code orders}
+ * (см. {@link OrderStatusConverter}), и заголовок, который используется в JSON и в параметрах запросов.
+ * Коды не должны меняться: они записаны в базе данных и в ограничении {@code chk_orders_status}.</p>
+ */
+@Getter
+public enum OrderStatus {
+    CREATED((short) 0, "заказ оформлен"),
+    IN_TRANSIT((short) 1, "в пути"),
+    READY((short) 2, "готов к выдаче"),
+    ISSUED((short) 3, "выдан"),
+    CANCELLED((short) 4, "cancelled");
+
+    private final short code;
+    @JsonValue
+    private final String title;
+
+    OrderStatus(short code, String title) {
+        this.code = code;
+        this.title = title;
+    }
+
+    /**
+     * Возвращает статус по заголовку или имени константы без учёта регистра.
+     *
+     * @throws BadRequestException если статус неизвестен
+     */
+    @JsonCreator
+    public static OrderStatus of(String value) {
+        if (value != null) {
+            final String normalized = value.trim();
+            for (OrderStatus status : values()) {
+                if (status.title.equalsIgnoreCase(normalized) || status.name().equalsIgnoreCase(normalized)) {
+                    return status;
+                }
+            }
+        }
+        throw new BadRequestException("Unknown order status: " + value);
+    }
+
+    /**
+     * Возвращает статус по коду, хранящемуся в базе данных.
+     */
+    public static OrderStatus ofCode(short code) {
+        for (OrderStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order status code: " + code);
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
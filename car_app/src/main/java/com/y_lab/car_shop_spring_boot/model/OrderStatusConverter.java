@@ -0,0 +1,24 @@
+package com.y_lab.car_shop_spring_boot.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Преобразует {@link OrderStatus} в код {@code SMALLINT} для хранения в базе данных и обратно.
+ *
+ * <p>Код задаётся явно в {@link OrderStatus#getCode()}, а не порядковым номером константы, поэтому порядок
+ * констант в перечислении можно менять без миграции данных.</p>
+ */
+@Converter(autoApply = true)
+public class OrderStatusConverter implements AttributeConverter<OrderStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(OrderStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public OrderStatus convertToEntityAttribute(Short code) {
+        return code == null ? null : OrderStatus.ofCode(code);
+    }
+}
@@ -0,0 +1,79 @@
+package com.y_lab.car_shop_spring_boot.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Строка материализованного представления {@code car_shop.sales_summary} — сводки продаж для аналитики.
+ * <p>
+ * Каждая строка содержит количество заказов {@code orders} и сумму цен заказанных автомобилей {@code revenue}
+ * для одного сочетания бренда автомобиля, месяца заказа (первого дня месяца) и статуса заказа {@link OrderStatus}.
+ * Представление создаётся миграцией Liquibase {@code v.1.6} и обновляется {@code SalesAnalyticsRefresher};
+ * аннотация {@link Immutable} запрещает Hibernate изменять его строки.
+ * </p>
+ *
+ * <p>
+ * Строки не загружаются как сущности: запросы {@code SalesSummaryRepository} суммируют их по бренду, месяцу
+ * или статусу. Идентификатором служит уникальный ключ представления {@link Key}.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Immutable
+@IdClass(SalesSummary.Key.class)
+@Table(name = "sales_summary", schema = "car_shop")
+public class SalesSummary {
+    @Id
+    @Column(name = "brand")
+    private String brand;
+
+    @Id
+    @Column(name = "month")
+    private LocalDate month;
+
+    @Id
+    @Column(name = "status")
+    private OrderStatus status;
+
+    @Column(name = "orders")
+    private long orders;
+
+    @Column(name = "revenue")
+    private BigDecimal revenue;
+
+    /**
+     * Ключ строки сводки: бренд, месяц и статус заказа.
+     */
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String brand;
+        private LocalDate month;
+        private OrderStatus status;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(brand, key.brand) && Objects.equals(month, key.month)
+                    && status == key.status;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(brand, month, status);
+        }
+    }
+}
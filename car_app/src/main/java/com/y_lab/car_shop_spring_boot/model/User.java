@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.io.Serializable;
 import java.util.HashSet;
@@ -52,7 +53,13 @@ import java.util.Set;
  * </p>
  *
  * <p>
- * Поле {@code role} представляет набор ролей пользователя. Роли хранятся в отдельной таблице {@code user_roles} и загружаются немедленно (EAGER).
+ * Поле {@code role} представляет набор ролей пользователя. Роли хранятся в отдельной таблице {@code user_roles} и загружаются лениво (LAZY), при обращении к набору.
+ * </p>
+ *
+ * <p>
+ * Поле {@code version} представляет версию пользователя. Аннотация {@code @Version} указывает Hibernate проверять версию
+ * при обновлении сущности; изменение ролей также увеличивает версию. Версия передаётся клиенту в заголовке {@code ETag}.
+ * Новый пользователь получает версию 0.
  * </p>
  *
  * <p>
@@ -98,12 +105,21 @@ public class User implements Serializable {
     @Size(max = 100, message = "City must be up to 100 characters long")
     private String city;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(schema = "car_shop", name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
     @Enumerated(EnumType.STRING)
     private Set<Roles> role = new HashSet<>();
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    public User(int userId, String login, String password, String name, int age, String city, Set<Roles> role) {
+        this(userId, login, password, name, age, city, role, 0);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
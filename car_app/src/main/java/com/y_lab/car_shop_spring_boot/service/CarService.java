@@ -1,16 +1,44 @@
 package com.y_lab.car_shop_spring_boot.service;
 
 import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarFacetsDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarImportReportDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
 import com.y_lab.car_shop_spring_boot.model.Car;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления данными об автомобилях в приложении.
  * <p>
  * Интерфейс предоставляет методы для выполнения операций с автомобилями, таких как получение всех автомобилей,
- * преобразование их в объекты {@link CarDTO}, получение автомобиля по идентификатору, сохранение или обновление
- * автомобиля, удаление автомобиля и фильтрация автомобилей.
+ * постраничное получение автомобилей, потоковая выдача всех автомобилей, преобразование их в объекты {@link CarDTO}, получение автомобиля по идентификатору, сохранение или обновление
+ * автомобиля, удаление автомобиля, фильтрация автомобилей, составной поиск автомобилей с постраничной выдачей, подсчёт
+ * фасетов каталога и импорт автомобилей из CSV.
+ * </p>
+ *
+ * <p>
+ * Методы {@code getPageDTO} и {@code getFilteredCarsDTO} возвращают те же автомобили, что и {@code getPage}
+ * и {@code getFilteredCars}, но сразу в виде объектов {@link CarDTO}, выбранных из базы данных без загрузки сущностей.
+ * </p>
+ *
+ * <p>
+ * Метод {@code getPageETag} возвращает {@code ETag} страницы автомобилей, не загружая сами автомобили: по нему
+ * контроллер отвечает на условные запросы {@code If-None-Match} кодом 304 (Not Modified). {@code ETag} отдельного
+ * автомобиля строится по версии автомобиля, возвращённого кэшируемым методом {@code getById}; метод
+ * {@code getVersion} читает текущую версию из базы данных в обход кэша.
+ * </p>
+ *
+ * <p>
+ * Метод {@code update(Car car, Long version)} обновляет автомобиль, не читая его перед изменением, только если его
+ * текущая версия равна {@code version}, и иначе генерирует исключение
+ * {@link com.y_lab.car_shop_spring_boot.util.PreconditionFailedException}. Если {@code version} равен {@code null},
+ * версия не проверяется.
  * </p>
  *
  * <p>
@@ -22,13 +50,33 @@ public interface CarService {
 
     public List<Car> getAll();
 
+    public CursorPage<Car> getPage(String after, int limit);
+
+    public CursorPage<CarDTO> getPageDTO(String after, int limit);
+
     public List<CarDTO> getAllDTO(List<Car> cars);
 
+    public void streamAllDTO(Consumer<CarDTO> consumer);
+
     public Car getById(int id);
 
+    public long getVersion(int id);
+
+    public String getPageETag(String after, int limit);
+
     public Car saveOrUpdate(Car car);
 
+    public Car update(Car car, Long version);
+
     public void delete(int id);
 
     public List<Car> getFilteredCars(String nameFilter, String params);
+
+    public List<CarDTO> getFilteredCarsDTO(String nameFilter, String params);
+
+    public Page<Car> search(CarSearchCriteria criteria, Pageable pageable);
+
+    public CarFacetsDTO getFacets(CarSearchCriteria criteria, int yearBucket, int priceBucket);
+
+    public CarImportReportDTO importCsv(InputStream input);
 }
@@ -0,0 +1,23 @@
+package com.y_lab.car_shop_spring_boot.service;
+
+import com.y_lab.car_shop_spring_boot.dto.OrderEventDTO;
+
+import java.util.List;
+
+/**
+ * Получатель событий заказов из таблицы исходящих событий.
+ * <p>
+ * Метод {@code deliver} получает порцию событий в порядке их идентификаторов и должен либо принять всю порцию,
+ * либо сгенерировать исключение: тогда порция остаётся в таблице и доставляется повторно при следующей попытке.
+ * Доставка выполняется не менее одного раза, поэтому получатель может получить событие повторно и должен
+ * отбрасывать уже обработанные события по {@link OrderEventDTO#getEventId()}.
+ * </p>
+ *
+ * <p>
+ * Реализация выбирается свойством {@code outbox.sink}: {@code webhook}, {@code file} или {@code memory}.
+ * </p>
+ */
+public interface OrderEventSink {
+
+    public void deliver(List<OrderEventDTO> events);
+}
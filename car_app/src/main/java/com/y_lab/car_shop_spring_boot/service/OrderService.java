@@ -1,17 +1,45 @@
 package com.y_lab.car_shop_spring_boot.service;
 
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateDTO;
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateResultDTO;
 import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
 import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления данными о заказах в приложении.
  * <p>
  * Интерфейс предоставляет методы для выполнения операций с заказами, таких как сохранение или обновление заказа,
- * получение всех заказов, преобразование их в объекты {@link OrderDTO}, получение заказа по идентификатору,
- * изменение статуса заказа, отмена заказа и фильтрация заказов.
+ * получение всех заказов, постраничное получение заказов, потоковая выдача всех заказов, преобразование их в объекты {@link OrderDTO}, получение заказа по идентификатору,
+ * изменение статуса заказа, отмена заказа, массовое изменение статуса и отмена заказов и фильтрация заказов.
+ * </p>
+ *
+ * <p>
+ * Методы изменения статуса и отмены заказа с параметром {@code version} изменяют заказ, только если его текущая версия
+ * равна переданной, и иначе генерируют исключение {@link com.y_lab.car_shop_spring_boot.util.ConflictException}.
+ * Если {@code version} равен {@code null}, версия не проверяется. Статус изменяется только по разрешённым переходам
+ * между значениями {@link OrderStatus}; недопустимый переход также приводит к исключению
+ * {@link com.y_lab.car_shop_spring_boot.util.ConflictException}.
+ * </p>
+ *
+ * <p>
+ * Методы {@code getPageDTO} и {@code getFilteredOrderDTO} возвращают те же заказы, что и {@code getPage}
+ * и {@code getFilteredOrder}, но сразу в виде объектов {@link OrderDTO}, выбранных из базы данных без загрузки сущностей.
+ * </p>
+ *
+ * <p>
+ * Методы массового изменения статуса и отмены заказов изменяют заказы, выбранные по идентификаторам и/или фильтру
+ * {@link OrderBulkUpdateDTO}, и возвращают количество изменённых заказов.
+ * </p>
+ *
+ * <p>
+ * Метод {@code getPageETag} возвращает {@code ETag} страницы заказов, не загружая сами заказы: по нему контроллер
+ * отвечает на условные запросы {@code If-None-Match} кодом 304 (Not Modified).
  * </p>
  *
  * <p>
@@ -25,13 +53,31 @@ public interface OrderService {
 
     public List<Order> getAll();
 
+    public CursorPage<Order> getPage(String after, int limit);
+
+    public CursorPage<OrderDTO> getPageDTO(String after, int limit);
+
     public List<OrderDTO> getAllDTO(List<Order> orders);
 
+    public void streamAllDTO(Consumer<OrderDTO> consumer);
+
     public Order getById(int id);
 
-    public Order changeStatus(int id, String status);
+    public String getPageETag(String after, int limit);
+
+    public Order changeStatus(int id, OrderStatus status);
+
+    public Order changeStatus(int id, OrderStatus status, Long version);
 
     public Order canceled(int id);
 
+    public Order canceled(int id, Long version);
+
+    public OrderBulkUpdateResultDTO bulkChangeStatus(OrderBulkUpdateDTO request);
+
+    public OrderBulkUpdateResultDTO bulkCanceled(OrderBulkUpdateDTO request);
+
     public List<Order> getFilteredOrder(String nameFilter, String params);
+
+    public List<OrderDTO> getFilteredOrderDTO(String nameFilter, String params);
 }
@@ -0,0 +1,25 @@
+package com.y_lab.car_shop_spring_boot.service;
+
+import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Сервис для неблокирующего чтения каталога автомобилей.
+ * <p>
+ * Интерфейс предоставляет те же операции чтения, что и {@link CarService}: получение всех автомобилей, получение
+ * автомобиля по идентификатору, фильтрацию и составной поиск. Методы возвращают {@link Flux} и {@link Mono}, которые
+ * выдают автомобили в виде объектов {@link CarDTO} по мере чтения из базы данных, не занимая поток на время ожидания.
+ * </p>
+ */
+public interface ReactiveCarService {
+
+    public Flux<CarDTO> getAll();
+
+    public Mono<CarDTO> getById(int id);
+
+    public Flux<CarDTO> getFilteredCars(String nameFilter, String params);
+
+    public Flux<CarDTO> search(CarSearchCriteria criteria);
+}
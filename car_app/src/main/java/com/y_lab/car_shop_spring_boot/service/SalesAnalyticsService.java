@@ -0,0 +1,34 @@
+package com.y_lab.car_shop_spring_boot.service;
+
+import com.y_lab.car_shop_spring_boot.dto.SalesDTO;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+
+import java.util.List;
+
+/**
+ * Сервис аналитики продаж.
+ * <p>
+ * Интерфейс предоставляет методы для получения количества заказов и выручки (суммы цен заказанных автомобилей)
+ * по брендам, по месяцам и по статусам заказов, а также для пересчёта сводки, из которой они читаются.
+ * </p>
+ *
+ * <p>
+ * Методы {@code getSalesByBrand} и {@code getSalesByMonth} не учитывают отменённые заказы
+ * ({@link OrderStatus#CANCELLED}); метод {@code getSalesByStatus} возвращает все статусы, включая отменённые заказы.
+ * </p>
+ *
+ * <p>
+ * Данные читаются из сводки, которая пересчитывается методом {@code refresh()} по расписанию и после изменения
+ * заказов, поэтому могут отставать от таблицы заказов на интервал пересчёта.
+ * </p>
+ */
+public interface SalesAnalyticsService {
+
+    public List<SalesDTO> getSalesByBrand();
+
+    public List<SalesDTO> getSalesByMonth();
+
+    public List<SalesDTO> getSalesByStatus();
+
+    public void refresh();
+}
@@ -2,15 +2,37 @@ package com.y_lab.car_shop_spring_boot.service;
 
 import com.y_lab.car_shop_spring_boot.dto.UserDTO;
 import com.y_lab.car_shop_spring_boot.model.User;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления данными о пользователях в приложении.
  * <p>
  * Интерфейс предоставляет методы для выполнения операций с пользователями, таких как получение всех пользователей,
  * преобразование их в объекты {@link UserDTO}, получение пользователя по идентификатору, обновление пользователя,
- * получение отсортированных и отфильтрованных списков пользователей.
+ * получение отсортированных и отфильтрованных списков пользователей, а также постраничное получение пользователей
+ * в порядке идентификаторов или в заданном порядке сортировки и потоковая выдача всех пользователей.
+ * </p>
+ *
+ * <p>
+ * Методы {@code getPageDTO}, {@code getSortedPageDTO} и {@code getFilteredUsersDTO} возвращают тех же пользователей,
+ * что и {@code getPage}, {@code getSortedPage} и {@code getFilteredUsers}, но сразу в виде объектов {@link UserDTO}
+ * с ролями, выбранных из базы данных без загрузки сущностей.
+ * </p>
+ *
+ * <p>
+ * Метод {@code getPageETag} возвращает {@code ETag} страницы пользователей, не загружая самих пользователей: по нему
+ * контроллер отвечает на условные запросы {@code If-None-Match} кодом 304 (Not Modified). Метод {@code getVersion}
+ * возвращает текущую версию пользователя, не загружая его.
+ * </p>
+ *
+ * <p>
+ * Метод {@code update(User user, Long version)} изменяет имя, возраст, город и роли пользователя, не читая его перед
+ * изменением, только если его текущая версия равна {@code version}, и иначе генерирует исключение
+ * {@link com.y_lab.car_shop_spring_boot.util.PreconditionFailedException}. Если {@code version} равен {@code null},
+ * версия не проверяется. Логин и пароль пользователя этим методом не изменяются.
  * </p>
  *
  * <p>
@@ -21,13 +43,33 @@ import java.util.List;
 public interface UserService {
     public List<User> getAll();
 
+    public CursorPage<User> getPage(String after, int limit);
+
+    public CursorPage<UserDTO> getPageDTO(String after, int limit);
+
     public List<UserDTO> getAllDTO(List<User> users);
 
+    public void streamAllDTO(Consumer<UserDTO> consumer);
+
     public User getById(int id);
 
+    public User getByIdWithRoles(int id);
+
+    public long getVersion(int id);
+
+    public String getPageETag(String after, int limit);
+
     public User update(User user);
 
+    public User update(User user, Long version);
+
     public List<User> getSortedUsers(String paramsSort);
 
+    public CursorPage<User> getSortedPage(String paramsSort, String after, int limit);
+
+    public CursorPage<UserDTO> getSortedPageDTO(String paramsSort, String after, int limit);
+
     public List<User> getFilteredUsers(String nameFilter, String params);
+
+    public List<UserDTO> getFilteredUsersDTO(String nameFilter, String params);
 }
@@ -0,0 +1,433 @@
+package com.y_lab.car_shop_spring_boot.service.jpa;
+
+import com.y_lab.car_shop_spring_boot.dto.CarFacetsDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import com.y_lab.car_shop_spring_boot.model.Car;
+import org.roaringbitmap.RangeBitmap;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Индекс каталога автомобилей в памяти для фасетного поиска.
+ * <p>
+ * Для каждого значения бренда, модели и состояния индекс хранит сжатое множество идентификаторов автомобилей
+ * ({@link RoaringBitmap}), а для цены и года выпуска — {@link RangeBitmap}, в котором номер строки — идентификатор
+ * автомобиля, а значение — ключ атрибута, сохраняющий порядок. Фильтр по значению атрибута — это пересечение множеств,
+ * фильтр по диапазону и количество автомобилей в интервале считаются по срезам {@link RangeBitmap}
+ * ({@code between}, {@code betweenCardinality}) без перебора идентификаторов и без обращения к базе данных.
+ * </p>
+ *
+ * <p>
+ * Индекс заполняется методом {@link #load(Supplier)} при запуске приложения и обновляется методами
+ * {@link #put(Car)} и {@link #remove(int)} после сохранения и удаления автомобилей. {@link RangeBitmap} неизменяем,
+ * поэтому изменения применяются к нему не сразу: множества значений и количество автомобилей по ключам цены и года
+ * обновляются за O(log N), а изменённые автомобили исключаются из снимка и учитываются поштучно до следующей
+ * пересборки. Метод {@link #rebuildIfChanged()} по расписанию {@code catalog.facets.rebuild-interval} пересобирает
+ * {@link RangeBitmap} из копии индекса в фоне, не блокируя запросы, и подменяет снимок под блокировкой записи.
+ * </p>
+ *
+ * <p>
+ * Доступ к индексу синхронизирован {@link ReentrantReadWriteLock}: запросы выполняются параллельно, изменения —
+ * монопольно. Загрузка удерживает блокировку записи на всё время чтения из базы данных, поэтому изменения,
+ * сделанные во время загрузки, применяются после неё и не теряются.
+ * </p>
+ */
+@Component
+public class CarFacetIndex {
+    private static final int BRAND = 0;
+    private static final int MODEL = 1;
+    private static final int CONDITION = 2;
+    private static final int PRICE = 3;
+    private static final int YEAR = 4;
+
+    private static final ToLongFunction<Entry> PRICE_KEY = entry -> priceKey(entry.price());
+    private static final ToLongFunction<Entry> YEAR_KEY = Entry::year;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> brands = new HashMap<>();
+    private final Map<String, RoaringBitmap> models = new HashMap<>();
+    private final Map<String, RoaringBitmap> conditions = new HashMap<>();
+    private final TreeMap<Long, Integer> priceKeys = new TreeMap<>();
+    private final TreeMap<Long, Integer> yearKeys = new TreeMap<>();
+
+    private Column prices = Column.EMPTY;
+    private Column years = Column.EMPTY;
+    /**
+     * Автомобили, значения которых в {@link #prices} и {@link #years} актуальны. Остальные автомобили из {@link #all}
+     * изменены после снимка и учитываются поштучно.
+     */
+    private RoaringBitmap current = new RoaringBitmap();
+    /**
+     * Автомобили, изменённые во время фоновой пересборки, или {@code null}, если пересборка не выполняется.
+     */
+    private RoaringBitmap changedDuringRebuild;
+    private long generation;
+
+    public void load(Supplier<Stream<Car>> source) {
+        lock.writeLock().lock();
+        try (Stream<Car> cars = source.get()) {
+            entries.clear();
+            all.clear();
+            brands.clear();
+            models.clear();
+            conditions.clear();
+            priceKeys.clear();
+            yearKeys.clear();
+            cars.forEach(this::putLocked);
+            final int[] ids = all.toArray();
+            prices = Column.of(ids, keys(ids, PRICE_KEY));
+            years = Column.of(ids, keys(ids, YEAR_KEY));
+            current = all.clone();
+            changedDuringRebuild = null;
+            generation++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Car car) {
+        lock.writeLock().lock();
+        try {
+            putLocked(car);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int carId) {
+        lock.writeLock().lock();
+        try {
+            final Entry entry = entries.remove(carId);
+            if (entry != null) {
+                removeValues(carId, entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Пересобирает {@link RangeBitmap} цены и года выпуска, если после предыдущей сборки автомобили менялись.
+     * Копия ключей снимается под блокировкой чтения, сборка выполняется без блокировки, а автомобили, изменённые
+     * за время сборки, остаются учтёнными поштучно.
+     */
+    @Scheduled(fixedDelayString = "${catalog.facets.rebuild-interval:PT1S}",
+            initialDelayString = "${catalog.facets.rebuild-interval:PT1S}")
+    public synchronized void rebuildIfChanged() {
+        final long startedGeneration;
+        final int[] ids;
+        final long[] priceSnapshot;
+        final long[] yearSnapshot;
+        lock.readLock().lock();
+        try {
+            if (current.getCardinality() == all.getCardinality() || changedDuringRebuild != null) {
+                return;
+            }
+            startedGeneration = generation;
+            ids = all.toArray();
+            priceSnapshot = keys(ids, PRICE_KEY);
+            yearSnapshot = keys(ids, YEAR_KEY);
+            changedDuringRebuild = new RoaringBitmap();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        final Column newPrices = Column.of(ids, priceSnapshot);
+        final Column newYears = Column.of(ids, yearSnapshot);
+
+        lock.writeLock().lock();
+        try {
+            if (generation == startedGeneration) {
+                prices = newPrices;
+                years = newYears;
+                current = RoaringBitmap.andNot(RoaringBitmap.bitmapOf(ids), changedDuringRebuild);
+                changedDuringRebuild = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы автомобилей, удовлетворяющих всем критериям.
+     */
+    public RoaringBitmap filter(CarSearchCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            final RoaringBitmap matched = intersect(constraints(criteria, changed()), -1);
+            return matched == null ? all.clone() : matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Считает автомобили, удовлетворяющие критериям, по брендам, состояниям и интервалам года выпуска и цены
+     * шириной {@code yearBucket} и {@code priceBucket}. Количество по каждому атрибуту считается без учёта критерия
+     * по этому же атрибуту.
+     */
+    public CarFacetsDTO facets(CarSearchCriteria criteria, int yearBucket, int priceBucket) {
+        lock.readLock().lock();
+        try {
+            final RoaringBitmap changed = changed();
+            final RoaringBitmap[] constraints = constraints(criteria, changed);
+            final RoaringBitmap matched = intersect(constraints, -1);
+            return new CarFacetsDTO(
+                    matched == null ? all.getCardinality() : matched.getCardinality(),
+                    counts(brands, intersect(constraints, BRAND)),
+                    counts(conditions, intersect(constraints, CONDITION)),
+                    buckets(years, yearKeys, YEAR_KEY, key -> Math.floorDiv(key, yearBucket) * yearBucket,
+                            from -> from, yearBucket, intersect(constraints, YEAR), changed),
+                    buckets(prices, priceKeys, PRICE_KEY,
+                            key -> (long) Math.floor(price(key) / priceBucket) * priceBucket,
+                            CarFacetIndex::priceKey, priceBucket, intersect(constraints, PRICE), changed));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Множества автомобилей, удовлетворяющих каждому из критериев, в порядке {@code BRAND, MODEL, CONDITION, PRICE, YEAR};
+     * {@code null} означает, что критерий не задан.
+     */
+    private RoaringBitmap[] constraints(CarSearchCriteria criteria, RoaringBitmap changed) {
+        final RoaringBitmap[] constraints = new RoaringBitmap[5];
+        constraints[BRAND] = valueOf(brands, criteria.getBrand());
+        constraints[MODEL] = valueOf(models, criteria.getModel());
+        constraints[CONDITION] = valueOf(conditions, criteria.getCondition());
+        if (criteria.getPriceMin() != null || criteria.getPriceMax() != null) {
+            constraints[PRICE] = range(prices, PRICE_KEY, changed,
+                    criteria.getPriceMin() == null ? Long.MIN_VALUE : priceKey(criteria.getPriceMin()),
+                    criteria.getPriceMax() == null ? Long.MAX_VALUE : priceKey(criteria.getPriceMax()));
+        }
+        if (criteria.getYearMin() != null || criteria.getYearMax() != null) {
+            constraints[YEAR] = range(years, YEAR_KEY, changed,
+                    criteria.getYearMin() == null ? Long.MIN_VALUE : criteria.getYearMin(),
+                    criteria.getYearMax() == null ? Long.MAX_VALUE : criteria.getYearMax());
+        }
+        return constraints;
+    }
+
+    /**
+     * Автомобили с ключом в диапазоне {@code [from, to]}: из снимка — без изменённых после него, изменённые — поштучно.
+     */
+    private RoaringBitmap range(Column column, ToLongFunction<Entry> key, RoaringBitmap changed, long from, long to) {
+        final RoaringBitmap ids = column.between(from, to);
+        ids.and(current);
+        for (int carId : changed) {
+            final long value = key.applyAsLong(entries.get(carId));
+            if (value >= from && value <= to) {
+                ids.add(carId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Интервалы {@code [from, from + width)} с количеством автомобилей из {@code matched}. Обходит только непустые
+     * интервалы, переходя к следующему существующему ключу по {@code keys}; количество в интервале — это
+     * {@code betweenCardinality} снимка плюс изменённые после него автомобили.
+     *
+     * @param bucketOf начало интервала, в который попадает ключ
+     * @param keyOf    наименьший ключ значения, не меньшего заданной границы интервала
+     */
+    private List<CarFacetsDTO.Bucket> buckets(Column column, TreeMap<Long, Integer> keys, ToLongFunction<Entry> key,
+                                              LongUnaryOperator bucketOf, LongUnaryOperator keyOf, int width,
+                                              RoaringBitmap matched, RoaringBitmap changed) {
+        final RoaringBitmap context = matched == null ? current : RoaringBitmap.and(matched, current);
+        final Map<Long, Integer> changedCounts = new HashMap<>();
+        for (int carId : matched == null ? changed : RoaringBitmap.and(changed, matched)) {
+            changedCounts.merge(bucketOf.applyAsLong(key.applyAsLong(entries.get(carId))), 1, Integer::sum);
+        }
+
+        final List<CarFacetsDTO.Bucket> buckets = new ArrayList<>();
+        Long first = keys.isEmpty() ? null : keys.firstKey();
+        while (first != null) {
+            final long from = bucketOf.applyAsLong(first);
+            final long next = Math.max(keyOf.applyAsLong(from + width), first + 1);
+            final Integer changedCount = changedCounts.remove(from);
+            final long count = column.cardinality(first, next - 1, context)
+                    + (changedCount == null ? 0 : changedCount);
+            if (count > 0) {
+                buckets.add(new CarFacetsDTO.Bucket(from, from + width, (int) count));
+            }
+            first = keys.ceilingKey(next);
+        }
+        return buckets;
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap[] constraints, int skip) {
+        RoaringBitmap result = null;
+        for (int i = 0; i < constraints.length; i++) {
+            if (i == skip || constraints[i] == null) {
+                continue;
+            }
+            result = result == null ? constraints[i].clone() : RoaringBitmap.and(result, constraints[i]);
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> counts(Map<String, RoaringBitmap> values, RoaringBitmap matched) {
+        final Map<String, Integer> counts = new TreeMap<>();
+        values.forEach((value, ids) -> {
+            final int count = matched == null ? ids.getCardinality() : RoaringBitmap.andCardinality(ids, matched);
+            if (count > 0) {
+                counts.put(value, count);
+            }
+        });
+        return counts;
+    }
+
+    private static RoaringBitmap valueOf(Map<String, RoaringBitmap> values, String value) {
+        if (value == null) {
+            return null;
+        }
+        final RoaringBitmap ids = values.get(value);
+        return ids == null ? new RoaringBitmap() : ids;
+    }
+
+    /**
+     * Автомобили, изменённые после снимка {@link #prices} и {@link #years}.
+     */
+    private RoaringBitmap changed() {
+        return RoaringBitmap.andNot(all, current);
+    }
+
+    private long[] keys(int[] ids, ToLongFunction<Entry> key) {
+        final long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = key.applyAsLong(entries.get(ids[i]));
+        }
+        return keys;
+    }
+
+    /**
+     * Ключ цены, упорядоченный так же, как цены: биты {@code double}, у отрицательных чисел инвертированы все биты,
+     * кроме знакового.
+     */
+    private static long priceKey(double price) {
+        final long bits = Double.doubleToLongBits(price);
+        return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+    }
+
+    private static double price(long key) {
+        return Double.longBitsToDouble(key < 0 ? key ^ Long.MAX_VALUE : key);
+    }
+
+    private void putLocked(Car car) {
+        final Entry entry = new Entry(car.getBrand(), car.getModel(), car.getCondition(), car.getYear(), car.getPrice());
+        final Entry previous = entries.put(car.getCarId(), entry);
+        if (previous != null) {
+            removeValues(car.getCarId(), previous);
+        }
+        all.add(car.getCarId());
+        addValue(brands, entry.brand(), car.getCarId());
+        addValue(models, entry.model(), car.getCarId());
+        addValue(conditions, entry.condition(), car.getCarId());
+        priceKeys.merge(PRICE_KEY.applyAsLong(entry), 1, Integer::sum);
+        yearKeys.merge(YEAR_KEY.applyAsLong(entry), 1, Integer::sum);
+        markChanged(car.getCarId());
+    }
+
+    private void removeValues(int carId, Entry entry) {
+        all.remove(carId);
+        removeValue(brands, entry.brand(), carId);
+        removeValue(models, entry.model(), carId);
+        removeValue(conditions, entry.condition(), carId);
+        removeKey(priceKeys, PRICE_KEY.applyAsLong(entry));
+        removeKey(yearKeys, YEAR_KEY.applyAsLong(entry));
+        markChanged(carId);
+    }
+
+    private void markChanged(int carId) {
+        current.remove(carId);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(carId);
+        }
+    }
+
+    private static void addValue(Map<String, RoaringBitmap> values, String value, int carId) {
+        values.computeIfAbsent(value, v -> new RoaringBitmap()).add(carId);
+    }
+
+    private static void removeValue(Map<String, RoaringBitmap> values, String value, int carId) {
+        final RoaringBitmap ids = values.get(value);
+        if (ids != null) {
+            ids.remove(carId);
+            if (ids.isEmpty()) {
+                values.remove(value);
+            }
+        }
+    }
+
+    private static void removeKey(TreeMap<Long, Integer> keys, long key) {
+        keys.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private record Entry(String brand, String model, String condition, int year, double price) {
+    }
+
+    /**
+     * Снимок ключей атрибута: строка {@link RangeBitmap} — идентификатор автомобиля, значение — ключ за вычетом
+     * наименьшего ключа снимка. Строки отсутствующих идентификаторов заполнены нулями и исключаются контекстом
+     * {@link #current}.
+     */
+    private record Column(RangeBitmap bitmap, long min, long max) {
+        static final Column EMPTY = new Column(null, 0, -1);
+
+        static Column of(int[] sortedIds, long[] keys) {
+            if (sortedIds.length == 0) {
+                return EMPTY;
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (long key : keys) {
+                min = Math.min(min, key);
+                max = Math.max(max, key);
+            }
+            final RangeBitmap.Appender appender = RangeBitmap.appender(max - min);
+            int row = 0;
+            for (int i = 0; i < sortedIds.length; i++) {
+                for (; row < sortedIds[i]; row++) {
+                    appender.add(0);
+                }
+                appender.add(keys[i] - min);
+                row++;
+            }
+            return new Column(appender.build(), min, max);
+        }
+
+        RoaringBitmap between(long from, long to) {
+            if (bitmap == null || from > max || to < min || from > to) {
+                return new RoaringBitmap();
+            }
+            return bitmap.between(Math.max(from, min) - min, Math.min(to, max) - min);
+        }
+
+        /**
+         * Пустой контекст проверяется заранее: {@code betweenCardinality} RoaringBitmap 1.3.0 с пустым контекстом
+         * выбрасывает {@link ArrayIndexOutOfBoundsException}.
+         */
+        long cardinality(long from, long to, RoaringBitmap context) {
+            if (bitmap == null || from > max || to < min || from > to || context.isEmpty()) {
+                return 0;
+            }
+            return bitmap.betweenCardinality(Math.max(from, min) - min, Math.min(to, max) - min, context);
+        }
+    }
+}
@@ -1,15 +1,52 @@
 package com.y_lab.car_shop_spring_boot.service.jpa;
 
 import com.y_lab.car_shop_spring_boot.dao.CarRepository;
+import com.y_lab.car_shop_spring_boot.dao.CarSpecifications;
 import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarFacetsDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarImportReportDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
 import com.y_lab.car_shop_spring_boot.mapper.CarMapper;
 import com.y_lab.car_shop_spring_boot.model.Car;
 import com.y_lab.car_shop_spring_boot.service.CarService;
+import com.y_lab.car_shop_spring_boot.util.BadRequestException;
+import com.y_lab.car_shop_spring_boot.util.Cursor;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import com.y_lab.car_shop_spring_boot.util.ETags;
 import com.y_lab.car_shop_spring_boot.util.NotFoundException;
+import com.y_lab.car_shop_spring_boot.util.PreconditionFailedException;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Реализация сервиса для управления автомобилями с использованием JPA.
@@ -22,16 +59,42 @@ import java.util.Optional;
  * Использует {@link CarRepository} для взаимодействия с базой данных. В классе реализованы методы для:
  * <ul>
  *     <li>Получения списка всех автомобилей {@link #getAll()}</li>
+ *     <li>Постраничного получения автомобилей в порядке идентификаторов {@link #getPage(String, int)}
+ *     и {@link #getPageDTO(String, int)}</li>
  *     <li>Преобразования списка автомобилей в список объектов {@link CarDTO} {@link #getAllDTO(List)}</li>
+ *     <li>Потоковой выдачи всех автомобилей в виде объектов {@link CarDTO} {@link #streamAllDTO(Consumer)}</li>
  *     <li>Получения автомобиля по его идентификатору {@link #getById(int)}</li>
+ *     <li>Получения версии автомобиля {@link #getVersion(int)} и {@code ETag} страницы автомобилей
+ *     {@link #getPageETag(String, int)}</li>
  *     <li>Сохранения или обновления автомобиля {@link #saveOrUpdate(Car)}</li>
+ *     <li>Условного обновления автомобиля по версии {@link #update(Car, Long)}</li>
  *     <li>Удаления автомобиля по его идентификатору {@link #delete(int)}</li>
- *     <li>Фильтрации автомобилей по заданному критерию {@link #getFilteredCars(String, String)}</li>
+ *     <li>Фильтрации автомобилей по заданному критерию {@link #getFilteredCars(String, String)}
+ *     и {@link #getFilteredCarsDTO(String, String)}</li>
+ *     <li>Составного поиска автомобилей с постраничной выдачей {@link #search(CarSearchCriteria, Pageable)}</li>
+ *     <li>Подсчёта фасетов каталога {@link #getFacets(CarSearchCriteria, int, int)}</li>
+ *     <li>Импорта автомобилей из CSV {@link #importCsv(InputStream)}</li>
  * </ul>
  * </p>
  *
  * <p>
- * При фильтрации автомобилей, метод {@link #getFilteredCars(String, String)} поддерживает следующие параметры:
+ * Методы {@link #getPageDTO(String, int)} и {@link #getFilteredCarsDTO(String, String)} выбирают автомобили из базы
+ * данных сразу в объекты {@link CarDTO} (методы {@code findDTO*} репозитория), без создания сущностей, их снимков
+ * в контексте персистентности и преобразования через {@link CarMapper}. Ими пользуются запросы чтения списков
+ * контроллера.
+ * </p>
+ *
+ * <p>
+ * Метод {@link #update(Car, Long)} обновляет автомобиль одним запросом {@code UPDATE ... RETURNING} с условием на версию,
+ * не читая автомобиль перед изменением, поэтому из двух клиентов, получивших одну версию, изменение сохранит только
+ * первый. Если автомобиль не изменён, версия читается отдельным запросом: при отсутствии автомобиля генерируется
+ * исключение {@link NotFoundException}, иначе — {@link PreconditionFailedException}. Обновляемый автомобиль проверяется
+ * ограничениями сущности {@link Car}; при ошибке генерируется исключение {@link BadRequestException}.
+ * </p>
+ *
+ * <p>
+ * При фильтрации автомобилей, методы {@link #getFilteredCars(String, String)} и {@link #getFilteredCarsDTO(String, String)}
+ * поддерживают следующие параметры:
  * <ul>
  *     <li><b>brand</b> - фильтрация по бренду</li>
  *     <li><b>condition</b> - фильтрация по состоянию</li>
@@ -40,23 +103,103 @@ import java.util.Optional;
  * </p>
  *
  * <p>
+ * Метод {@link #search(CarSearchCriteria, Pageable)} объединяет все заданные критерии в один SQL-запрос.
+ * Сортировка допускается только по полям автомобиля; при некорректных параметрах поиска или сортировки
+ * генерируется исключение {@link BadRequestException}.
+ * </p>
+ *
+ * <p>
+ * Метод {@link #streamAllDTO(Consumer)} читает автомобили из базы данных порциями, преобразует каждый в {@link CarDTO},
+ * передаёт его получателю и сразу отсоединяет сущность от контекста персистентности, поэтому объём используемой памяти
+ * не зависит от количества автомобилей.
+ * </p>
+ *
+ * <p>
+ * Результаты методов {@link #getById(int)}, {@link #getFilteredCars(String, String)} и
+ * {@link #getFilteredCarsDTO(String, String)} кэшируются в кэшах {@value #CAR_CACHE} и {@value #CAR_FILTER_CACHE}
+ * (ключи результатов DTO имеют префикс {@code dto:}) (Caffeine, ограничение по размеру и времени жизни записей задаётся
+ * свойством {@code spring.cache.caffeine.spec}). При сохранении автомобиля запись в кэше {@value #CAR_CACHE} заменяется
+ * сохранённым (или обновлённым методом {@link #update(Car, Long)}) автомобилем, при удалении — удаляется; кэш результатов фильтрации в обоих случаях очищается, так как
+ * изменённый автомобиль мог входить в любой из них. Статистика попаданий, промахов и вытеснений доступна через Actuator
+ * в метриках {@code cache.gets} и {@code cache.evictions}.
+ * </p>
+ *
+ * <p>
+ * Метод {@link #getFacets(CarSearchCriteria, int, int)} отвечает из индекса {@link CarFacetIndex} в памяти, не обращаясь
+ * к базе данных. Индекс загружается при запуске приложения и обновляется методами {@link #saveOrUpdate(Car)}
+ * и {@link #delete(int)} после фиксации транзакции, поэтому изменения, отменённые откатом, в индекс не попадают.
+ * </p>
+ *
+ * <p>
+ * Метод {@link #importCsv(InputStream)} читает CSV построчно, в формате {@code liquibase/data/car-data.csv}: первая строка —
+ * заголовок со столбцами {@code brand, model, year, price, condition} в любом порядке. Поля разбираются по RFC 4180:
+ * поле в двойных кавычках может содержать запятые, а кавычка внутри него записывается двумя кавычками {@code ""};
+ * перевод строки внутри поля не поддерживается, и такая строка отклоняется. Каждая строка проверяется
+ * ограничениями сущности {@link Car}; строки с ошибками не сохраняются и попадают в отчёт {@link CarImportReportDTO}
+ * с номером строки. Корректные строки сохраняются порциями по {@value #IMPORT_CHUNK_SIZE}, каждая порция — в отдельной
+ * транзакции пакетными вставками JDBC, после чего контекст персистентности очищается. Поэтому при ошибке базы данных
+ * уже сохранённые порции остаются в базе.
+ * </p>
+ *
+ * <p>
  * В случае если запрашиваемый автомобиль не найден, генерируется исключение {@link NotFoundException}.
  * </p>
  */
 @Service
 public class CarServiceJpa implements CarService {
+    public static final String CAR_CACHE = "cars";
+    public static final String CAR_FILTER_CACHE = "carFilters";
+    public static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final List<String> CSV_COLUMNS = List.of("brand", "model", "year", "price", "condition");
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("carId", "brand", "model", "year", "price", "condition");
 
     private final CarRepository repository;
+    private final EntityManager entityManager;
+    private final CarFacetIndex facetIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
 
-    public CarServiceJpa(CarRepository repository) {
+    public CarServiceJpa(CarRepository repository, EntityManager entityManager, CarFacetIndex facetIndex,
+                         TransactionTemplate transactionTemplate, Validator validator) {
         this.repository = repository;
+        this.entityManager = entityManager;
+        this.facetIndex = facetIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadFacetIndex() {
+        facetIndex.load(() -> repository.streamAll().peek(entityManager::detach));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Car> getAll() {
         return repository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Car> getPage(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final List<Car> cars = repository.findByCarIdGreaterThanOrderByCarIdAsc(
+                cursor == null ? 0 : cursor.getId(), Limit.of(pageSize + 1));
+        return CursorPage.of(cars, pageSize, car -> new Cursor(car.getCarId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CarDTO> getPageDTO(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final List<CarDTO> cars = repository.findDTOByCarIdGreaterThan(
+                cursor == null ? 0 : cursor.getId(), Limit.of(pageSize + 1));
+        return CursorPage.of(cars, pageSize, car -> new Cursor(car.getCarId()));
+    }
+
     @Override
     public List<CarDTO> getAllDTO(List<Car> cars) {
         return cars.stream()
@@ -65,6 +208,18 @@ public class CarServiceJpa implements CarService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void streamAllDTO(Consumer<CarDTO> consumer) {
+        try (Stream<Car> cars = repository.streamAll()) {
+            cars.forEach(car -> {
+                consumer.accept(CarMapper.INSTANCE.getCarDTO(car));
+                entityManager.detach(car);
+            });
+        }
+    }
+
+    @Override
+    @Cacheable(cacheNames = CAR_CACHE, key = "#id")
     public Car getById(int id) {
         final Optional<Car> optionalCar = repository.findById(id);
         if (optionalCar.isPresent()) {
@@ -74,16 +229,52 @@ public class CarServiceJpa implements CarService {
     }
 
     @Override
+    public long getVersion(int id) {
+        return repository.findVersionByCarId(id)
+                .orElseThrow(() -> new NotFoundException("Car with id " + id + " not found"));
+    }
+
+    @Override
+    public String getPageETag(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        return ETags.quote(repository.pageVersionHash(cursor == null ? 0 : cursor.getId(),
+                CursorPage.normalizeLimit(limit) + 1));
+    }
+
+    @Override
+    @Caching(put = @CachePut(cacheNames = CAR_CACHE, key = "#result.carId"),
+            evict = @CacheEvict(cacheNames = CAR_FILTER_CACHE, allEntries = true))
     public Car saveOrUpdate(Car car) {
-        return repository.save(car);
+        final Car savedCar = repository.save(car);
+        afterCommit(() -> facetIndex.put(savedCar));
+        return savedCar;
     }
 
     @Override
+    @Caching(put = @CachePut(cacheNames = CAR_CACHE, key = "#result.carId"),
+            evict = @CacheEvict(cacheNames = CAR_FILTER_CACHE, allEntries = true))
+    public Car update(Car car, Long version) {
+        validate(car);
+        final Car updatedCar = (version == null ? repository.update(car) : repository.update(car, version))
+                .orElseThrow(() -> new PreconditionFailedException("Car with id " + car.getCarId()
+                        + " was modified, expected version " + version + " but was " + getVersion(car.getCarId())));
+        afterCommit(() -> facetIndex.put(updatedCar));
+        return updatedCar;
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CAR_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CAR_FILTER_CACHE, allEntries = true)
+    })
     public void delete(int id) {
         repository.deleteById(id);
+        afterCommit(() -> facetIndex.remove(id));
     }
 
     @Override
+    @Cacheable(cacheNames = CAR_FILTER_CACHE, key = "#nameFilter + ':' + #params")
+    @Transactional(readOnly = true)
     public List<Car> getFilteredCars(String nameFilter, String params) {
         return switch (nameFilter) {
             case "brand" -> repository.findByBrand(params);
@@ -92,4 +283,223 @@ public class CarServiceJpa implements CarService {
             default -> throw new NotFoundException("Unexpected value: " + nameFilter);
         };
     }
+
+    @Override
+    @Cacheable(cacheNames = CAR_FILTER_CACHE, key = "'dto:' + #nameFilter + ':' + #params")
+    @Transactional(readOnly = true)
+    public List<CarDTO> getFilteredCarsDTO(String nameFilter, String params) {
+        return switch (nameFilter) {
+            case "brand" -> repository.findDTOByBrand(params);
+            case "condition" -> repository.findDTOByCondition(params);
+            case "price" -> repository.findDTOByPrice(Double.parseDouble(params));
+            default -> throw new NotFoundException("Unexpected value: " + nameFilter);
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Car> search(CarSearchCriteria criteria, Pageable pageable) {
+        criteria.validate();
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new BadRequestException("Unexpected sort property: " + order.getProperty());
+            }
+        }
+        return repository.findAll(CarSpecifications.matching(criteria), pageable);
+    }
+
+    @Override
+    public CarFacetsDTO getFacets(CarSearchCriteria criteria, int yearBucket, int priceBucket) {
+        criteria.validate();
+        if (yearBucket <= 0 || priceBucket <= 0) {
+            throw new BadRequestException("yearBucket and priceBucket must be positive");
+        }
+        return facetIndex.facets(criteria, yearBucket, priceBucket);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CAR_FILTER_CACHE, allEntries = true)
+    public CarImportReportDTO importCsv(InputStream input) {
+        final CarImportReportDTO report = new CarImportReportDTO();
+        final List<Car> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            final int[] columns = csvColumns(reader.readLine());
+            long line = 1;
+            String row;
+            while ((row = reader.readLine()) != null) {
+                line++;
+                if (row.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(parseCsvRow(row, columns));
+                } catch (IllegalArgumentException e) {
+                    report.reject(line, e.getMessage());
+                    continue;
+                }
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    saveChunk(chunk, report);
+                }
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Cannot read CSV: " + e.getMessage(), e);
+        }
+        saveChunk(chunk, report);
+        return report;
+    }
+
+    /**
+     * Возвращает позиции столбцов {@code brand, model, year, price, condition} в строке заголовка CSV.
+     */
+    private static int[] csvColumns(String header) {
+        if (header == null) {
+            throw new BadRequestException("CSV is empty");
+        }
+        final List<String> names;
+        try {
+            names = csvFields(header.replace("\uFEFF", "")).stream()
+                    .map(name -> name.trim().toLowerCase())
+                    .toList();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid CSV header: " + e.getMessage());
+        }
+        final int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new BadRequestException("CSV header must contain columns " + CSV_COLUMNS);
+            }
+        }
+        return columns;
+    }
+
+    private Car parseCsvRow(String row, int[] columns) {
+        final List<String> fields = csvFields(row);
+        for (int column : columns) {
+            if (column >= fields.size()) {
+                throw new IllegalArgumentException("Expected at least " + (column + 1) + " columns but found "
+                        + fields.size());
+            }
+        }
+        final Car car = new Car(0, fields.get(columns[0]).trim(), fields.get(columns[1]).trim(),
+                parseNumber(fields.get(columns[2]), "year", Integer::parseInt),
+                parseNumber(fields.get(columns[3]), "price", Double::parseDouble),
+                fields.get(columns[4]).trim());
+        final String violations = violations(car);
+        if (violations != null) {
+            throw new IllegalArgumentException(violations);
+        }
+        return car;
+    }
+
+    /**
+     * Разбирает строку CSV на поля по RFC 4180: поле в кавычках может содержать запятые, {@code ""} внутри него
+     * означает одну кавычку. Кавычка внутри поля без кавычек, символ после закрывающей кавычки и незакрытая
+     * кавычка считаются ошибкой строки.
+     */
+    private static List<String> csvFields(String row) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            if (i < row.length() && row.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i == row.length()) {
+                        throw new IllegalArgumentException("Unterminated quoted field in column "
+                                + (fields.size() + 1));
+                    }
+                    final char c = row.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < row.length() && row.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < row.length() && row.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after closing quote in column "
+                            + (fields.size() + 1));
+                }
+            } else {
+                while (i < row.length() && row.charAt(i) != ',') {
+                    final char c = row.charAt(i++);
+                    if (c == '"') {
+                        throw new IllegalArgumentException("Quote in unquoted field in column " + (fields.size() + 1));
+                    }
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            if (i == row.length()) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private void validate(Car car) {
+        final String violations = violations(car);
+        if (violations != null) {
+            throw new BadRequestException(violations);
+        }
+    }
+
+    /**
+     * Возвращает нарушения ограничений сущности {@link Car} одной строкой или {@code null}, если их нет.
+     */
+    private String violations(Car car) {
+        final Set<ConstraintViolation<Car>> violations = validator.validate(car);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static <N> N parseNumber(String value, String column, Function<String, N> parser) {
+        try {
+            return parser.apply(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + ": '" + value + "' is not a number");
+        }
+    }
+
+    /**
+     * Сохраняет порцию автомобилей в отдельной транзакции и очищает её.
+     */
+    private void saveChunk(List<Car> chunk, CarImportReportDTO report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            final List<Car> savedCars = repository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+            afterCommit(() -> savedCars.forEach(facetIndex::put));
+        });
+        report.addImported(chunk.size());
+        chunk.clear();
+    }
+
+    /**
+     * Выполняет действие после фиксации текущей транзакции или сразу, если транзакции нет.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,54 @@
+package com.y_lab.car_shop_spring_boot.service.jpa;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.y_lab.car_shop_spring_boot.dao.OrderEventRepository;
+import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
+import com.y_lab.car_shop_spring_boot.model.OrderEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Запись событий заказов в таблицу исходящих событий {@code car_shop.order_outbox}.
+ * <p>
+ * Методы вызываются сервисом заказов внутри транзакции, изменяющей заказ ({@link Propagation#MANDATORY}), поэтому
+ * событие фиксируется вместе с изменением или не сохраняется вовсе, если транзакция откатывается. Заказ после
+ * изменения сериализуется в JSON ({@link OrderDTO}), его версия задаёт порядок доставки событий заказа; доставкой
+ * событий занимается {@link OrderOutboxRelay}.
+ * </p>
+ */
+@Component
+public class OrderOutbox {
+    private final OrderEventRepository repository;
+    private final ObjectWriter writer;
+
+    public OrderOutbox(OrderEventRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.writer = objectMapper.writerFor(OrderDTO.class);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OrderEvent.Type type, OrderDTO order) {
+        repository.save(event(type, order, Instant.now()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(OrderEvent.Type type, List<OrderDTO> orders) {
+        final Instant now = Instant.now();
+        repository.saveAll(orders.stream().map(order -> event(type, order, now)).toList());
+    }
+
+    private OrderEvent event(OrderEvent.Type type, OrderDTO order, Instant createdAt) {
+        try {
+            return new OrderEvent(order.getOrderId(), order.getVersion(), type, writer.writeValueAsString(order),
+                    createdAt);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Order " + order.getOrderId() + " cannot be serialized", e);
+        }
+    }
+}
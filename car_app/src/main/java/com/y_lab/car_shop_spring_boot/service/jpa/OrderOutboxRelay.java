@@ -0,0 +1,88 @@
+package com.y_lab.car_shop_spring_boot.service.jpa;
+
+import com.y_lab.car_shop_spring_boot.dao.OrderEventRepository;
+import com.y_lab.car_shop_spring_boot.mapper.OrderEventMapper;
+import com.y_lab.car_shop_spring_boot.model.OrderEvent;
+import com.y_lab.car_shop_spring_boot.service.OrderEventSink;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Доставка событий заказов из таблицы исходящих событий получателю {@link OrderEventSink}.
+ * <p>
+ * Метод {@link #relay()} выполняется с интервалом {@code outbox.relay.poll-interval} и доставляет порции по
+ * {@code outbox.relay.batch-size} событий, пока таблица не опустеет, но не более {@code outbox.relay.max-batches}
+ * порций за запуск. Каждая порция обрабатывается в отдельной транзакции ({@link #dispatchBatch()}): события
+ * выбираются с блокировкой {@code FOR UPDATE SKIP LOCKED} ({@link OrderEventRepository#claimBatch(int)}),
+ * передаются получателю и удаляются одним запросом. Если получатель сгенерировал исключение, транзакция
+ * откатывается, и порция доставляется повторно при следующем запуске, поэтому доставка выполняется не менее
+ * одного раза. Событие, доставленное перед сбоем приложения, но не удалённое, также доставляется повторно.
+ * </p>
+ *
+ * <p>
+ * В порцию попадает только первое недоставленное событие каждого заказа по версии заказа, поэтому события одного
+ * заказа доставляются по порядку, в том числе при доставке несколькими экземплярами приложения. Доставка по расписанию
+ * отключается свойством {@code outbox.relay.enabled=false}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+    private final OrderEventRepository repository;
+    private final OrderEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public OrderOutboxRelay(OrderEventRepository repository, OrderEventSink sink,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${outbox.relay.enabled:true}") boolean enabled,
+                            @Value("${outbox.relay.batch-size:100}") int batchSize,
+                            @Value("${outbox.relay.max-batches:50}") int maxBatches) {
+        this.repository = repository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval:PT1S}",
+            initialDelayString = "${outbox.relay.poll-interval:PT1S}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (int batch = 0; batch < maxBatches; batch++) {
+                if (dispatchBatch() == 0) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Order events delivery failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Доставляет одну порцию событий и возвращает количество доставленных событий.
+     */
+    public int dispatchBatch() {
+        final Integer delivered = transactionTemplate.execute(transaction -> {
+            final List<OrderEvent> events = repository.claimBatch(batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            sink.deliver(OrderEventMapper.INSTANCE.getOrderEventDTOs(events));
+            repository.deleteAllByIdInBatch(events.stream().map(OrderEvent::getEventId).toList());
+            return events.size();
+        });
+        return delivered == null ? 0 : delivered;
+    }
+}
@@ -1,16 +1,44 @@
 package com.y_lab.car_shop_spring_boot.service.jpa;
 
 import com.y_lab.car_shop_spring_boot.dao.OrderRepository;
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateDTO;
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateResultDTO;
 import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
 import com.y_lab.car_shop_spring_boot.mapper.OrderMapper;
 import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.OrderEvent;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
 import com.y_lab.car_shop_spring_boot.service.OrderService;
+import com.y_lab.car_shop_spring_boot.util.BadRequestException;
+import com.y_lab.car_shop_spring_boot.util.ConflictException;
+import com.y_lab.car_shop_spring_boot.util.Cursor;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import com.y_lab.car_shop_spring_boot.util.ETags;
 import com.y_lab.car_shop_spring_boot.util.NotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.y_lab.car_shop_spring_boot.model.OrderStatus.*;
 
 /**
  * Реализация сервиса для управления заказами с использованием JPA.
@@ -24,16 +52,30 @@ import java.util.Optional;
  * <ul>
  *     <li>Сохранения или обновления заказа {@link #saveOrUpdate(Order)}</li>
  *     <li>Получения списка всех заказов {@link #getAll()}</li>
+ *     <li>Постраничного получения заказов в порядке идентификаторов {@link #getPage(String, int)}
+ *     и {@link #getPageDTO(String, int)}</li>
  *     <li>Преобразования списка заказов в список объектов {@link OrderDTO} {@link #getAllDTO(List)}</li>
+ *     <li>Потоковой выдачи всех заказов в виде объектов {@link OrderDTO} {@link #streamAllDTO(Consumer)}</li>
  *     <li>Получения заказа по его идентификатору {@link #getById(int)}</li>
- *     <li>Изменения статуса заказа {@link #changeStatus(int, String)}</li>
- *     <li>Отмены заказа {@link #canceled(int)}</li>
- *     <li>Фильтрации заказов по заданному критерию {@link #getFilteredOrder(String, String)}</li>
+ *     <li>Получения {@code ETag} страницы заказов {@link #getPageETag(String, int)}</li>
+ *     <li>Изменения статуса заказа {@link #changeStatus(int, OrderStatus, Long)}</li>
+ *     <li>Отмены заказа {@link #canceled(int, Long)}</li>
+ *     <li>Массового изменения статуса и отмены заказов {@link #bulkChangeStatus(OrderBulkUpdateDTO)},
+ *     {@link #bulkCanceled(OrderBulkUpdateDTO)}</li>
+ *     <li>Фильтрации заказов по заданному критерию {@link #getFilteredOrder(String, String)}
+ *     и {@link #getFilteredOrderDTO(String, String)}</li>
  * </ul>
  * </p>
  *
  * <p>
- * Метод {@link #getFilteredOrder(String, String)} поддерживает следующие параметры фильтрации:
+ * Методы {@link #getPageDTO(String, int)} и {@link #getFilteredOrderDTO(String, String)} выбирают заказы из базы
+ * данных сразу в объекты {@link OrderDTO} (методы {@code findDTO*} репозитория), без создания сущностей
+ * и преобразования через {@link OrderMapper}.
+ * </p>
+ *
+ * <p>
+ * Методы {@link #getFilteredOrder(String, String)} и {@link #getFilteredOrderDTO(String, String)} поддерживают
+ * следующие параметры фильтрации:
  * <ul>
  *     <li><b>date</b> - фильтрация по дате заказа</li>
  *     <li><b>status</b> - фильтрация по статусу заказа</li>
@@ -41,36 +83,139 @@ import java.util.Optional;
  * </p>
  *
  * <p>
- * При изменении статуса заказа метод {@link #changeOrderStatus(int, String)} обновляет статус заказа
- * и сохраняет изменения. Если заказ с указанным идентификатором не найден, генерируется исключение
- * {@link NotFoundException}.
+ * При изменении статуса заказа метод {@link #changeStatus(int, OrderStatus, Long)} обновляет статус заказа и увеличивает его
+ * версию одним запросом {@code UPDATE}, без предварительного чтения заказа. Если передана версия, заказ изменяется,
+ * только если его версия в базе данных совпадает с переданной, поэтому одновременные изменения одного заказа
+ * не перезаписывают друг друга. Если заказ не изменён, проверяется, существует ли он: для существующего заказа
+ * генерируется исключение {@link ConflictException}, иначе {@link NotFoundException}.
+ * </p>
+ *
+ * <p>
+ * Допустимые переходы между статусами {@link OrderStatus} заданы конечным автоматом {@link #TRANSITIONS}:
+ * оформленный заказ может быть отправлен, готов к выдаче или отменён, заказ в пути — готов к выдаче или отменён,
+ * готовый заказ — выдан или отменён; выданный и отменённый заказы не изменяются. Запрос {@code UPDATE} изменяет заказ,
+ * только если его текущий статус допускает переход в новый, поэтому проверка перехода не требует предварительного
+ * чтения заказа и не нарушается одновременными изменениями. При недопустимом переходе генерируется исключение
+ * {@link ConflictException}.
+ * </p>
+ *
+ * <p>
+ * Новый заказ всегда создаётся в статусе {@link OrderStatus#CREATED}: если статус не передан, он устанавливается,
+ * а любой другой статус отклоняется исключением {@link BadRequestException}. При обновлении заказа методом
+ * {@link #saveOrUpdate(Order)} статус не меняется: для этого есть {@link #changeStatus(int, OrderStatus, Long)},
+ * а попытка изменить его обновлением отклоняется исключением {@link ConflictException}. Поэтому конечный автомат
+ * статусов нельзя обойти ни при создании, ни при обновлении заказа.
  * </p>
  *
  * <p>
- * При отмене заказа метод {@link #canceled(int)} устанавливает статус заказа в "cancelled" и
- * сохраняет изменения. Если заказ с указанным идентификатором не найден, также генерируется
- * исключение {@link NotFoundException}.
+ * При отмене заказа метод {@link #canceled(int, Long)} устанавливает статус заказа {@link OrderStatus#CANCELLED} тем же способом.
+ * </p>
+ *
+ * <p>
+ * Массовое изменение статуса выполняется порциями по {@link #BULK_CHUNK_SIZE} заказов: для каждой порции в отдельной
+ * короткой транзакции заказы, для которых переход в новый статус допустим, выбираются с блокировкой строк, и один
+ * запрос {@code UPDATE ... WHERE order_id IN (...)} изменяет их статус и увеличивает версию, поэтому блокировки строк
+ * удерживаются только на время обработки порции. При выборе
+ * заказов по фильтру идентификаторы очередной порции читаются по возрастанию после последнего идентификатора
+ * предыдущей порции. Условия фильтра повторяются в запросе {@code UPDATE}, поэтому заказы, изменённые другим запросом
+ * после чтения порции, не затрагиваются. Если выполнение прервано ошибкой, уже обработанные порции остаются изменёнными.
+ * Если в новый статус не допускает перехода ни один статус (например, {@link OrderStatus#CREATED}), генерируется
+ * исключение {@link ConflictException}, как и при изменении статуса одного заказа.
+ * </p>
+ *
+ * <p>
+ * После создания заказа и изменения статуса заказов сводка продаж отмечается устаревшей
+ * ({@link SalesAnalyticsRefresher#markStale()}) и пересчитывается при следующей проверке по расписанию.
+ * </p>
+ *
+ * <p>
+ * О создании, изменении и изменении статуса заказа в той же транзакции записывается событие в таблицу исходящих
+ * событий ({@link OrderOutbox}), которое затем доставляется внешним системам {@link OrderOutboxRelay}. При массовом
+ * изменении статуса заказы порции сначала выбираются с блокировкой строк, а затем изменяются, поэтому события
+ * записываются ровно для изменённых заказов. Событие содержит версию заказа после изменения, которая задаёт порядок
+ * доставки событий заказа, поэтому {@link #saveOrUpdate(Order)} сохраняет заказ с немедленной синхронизацией
+ * ({@code saveAndFlush}), чтобы версия была увеличена до записи события.
  * </p>
  */
 @Service
 public class OrderServiceJpa implements OrderService {
+    public static final int BULK_CHUNK_SIZE = 500;
+    static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(Map.of(
+            CREATED, EnumSet.of(IN_TRANSIT, READY, CANCELLED),
+            IN_TRANSIT, EnumSet.of(READY, CANCELLED),
+            READY, EnumSet.of(ISSUED, CANCELLED),
+            ISSUED, EnumSet.noneOf(OrderStatus.class),
+            CANCELLED, EnumSet.noneOf(OrderStatus.class)));
+    private static final Map<OrderStatus, Set<OrderStatus>> SOURCES = sources(TRANSITIONS);
 
     private final OrderRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesAnalyticsRefresher analyticsRefresher;
+    private final OrderOutbox outbox;
 
-    public OrderServiceJpa(OrderRepository repository) {
+    public OrderServiceJpa(OrderRepository repository, EntityManager entityManager,
+                           TransactionTemplate transactionTemplate, SalesAnalyticsRefresher analyticsRefresher,
+                           OrderOutbox outbox) {
         this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.analyticsRefresher = analyticsRefresher;
+        this.outbox = outbox;
     }
 
     @Override
+    @Transactional
     public Order saveOrUpdate(Order order) {
-        return repository.save(order);
+        final OrderEvent.Type type = order.getOrderId() == 0 ? OrderEvent.Type.ORDER_CREATED : OrderEvent.Type.ORDER_UPDATED;
+        if (type == OrderEvent.Type.ORDER_CREATED) {
+            if (order.getStatus() == null) {
+                order.setStatus(CREATED);
+            } else if (order.getStatus() != CREATED) {
+                throw new BadRequestException("New order must have status '" + CREATED + "', got '"
+                        + order.getStatus() + "'");
+            }
+        } else {
+            repository.findById(order.getOrderId())
+                    .filter(existing -> existing.getStatus() != order.getStatus())
+                    .ifPresent(existing -> {
+                        throw new ConflictException("Order with id " + order.getOrderId()
+                                + " cannot change status from '" + existing.getStatus() + "' to '"
+                                + order.getStatus() + "' on update");
+                    });
+        }
+        final Order savedOrder = repository.saveAndFlush(order);
+        outbox.append(type, OrderMapper.INSTANCE.getOdderDTO(savedOrder));
+        analyticsRefresher.markStale();
+        return savedOrder;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Order> getAll() {
         return repository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getPage(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final List<Order> orders = repository.findByOrderIdGreaterThanOrderByOrderIdAsc(
+                cursor == null ? 0 : cursor.getId(), Limit.of(pageSize + 1));
+        return CursorPage.of(orders, pageSize, order -> new Cursor(order.getOrderId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getPageDTO(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final List<OrderDTO> orders = repository.findDTOByOrderIdGreaterThan(
+                cursor == null ? 0 : cursor.getId(), Limit.of(pageSize + 1));
+        return CursorPage.of(orders, pageSize, order -> new Cursor(order.getOrderId()));
+    }
+
     @Override
     public List<OrderDTO> getAllDTO(List<Order> orders) {
         return orders.stream()
@@ -78,6 +223,17 @@ public class OrderServiceJpa implements OrderService {
                 .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllDTO(Consumer<OrderDTO> consumer) {
+        try (Stream<Order> orders = repository.streamAll()) {
+            orders.forEach(order -> {
+                consumer.accept(OrderMapper.INSTANCE.getOdderDTO(order));
+                entityManager.detach(order);
+            });
+        }
+    }
+
     @Override
     public Order getById(int id) {
         final Optional<Order> optionalOrder = repository.findById(id);
@@ -88,32 +244,216 @@ public class OrderServiceJpa implements OrderService {
     }
 
     @Override
-    public Order changeStatus(int id, String status) {
-        return changeOrderStatus(id, status);
+    public String getPageETag(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        return ETags.quote(repository.pageVersionHash(cursor == null ? 0 : cursor.getId(),
+                CursorPage.normalizeLimit(limit) + 1));
     }
 
     @Override
+    @Transactional
+    public Order changeStatus(int id, OrderStatus status) {
+        return changeStatus(id, status, null);
+    }
+
+    @Override
+    @Transactional
+    public Order changeStatus(int id, OrderStatus status, Long version) {
+        return changeOrderStatus(id, status, version);
+    }
+
+    @Override
+    @Transactional
     public Order canceled(int id) {
-        return changeOrderStatus(id, "cancelled");
+        return canceled(id, null);
+    }
+
+    @Override
+    @Transactional
+    public Order canceled(int id, Long version) {
+        return changeOrderStatus(id, CANCELLED, version);
     }
 
     @Override
+    public OrderBulkUpdateResultDTO bulkChangeStatus(OrderBulkUpdateDTO request) {
+        if (request.getStatus() == null) {
+            throw new BadRequestException("status must not be null");
+        }
+        return bulkUpdateStatus(request, request.getStatus());
+    }
+
+    @Override
+    public OrderBulkUpdateResultDTO bulkCanceled(OrderBulkUpdateDTO request) {
+        return bulkUpdateStatus(request, CANCELLED);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Order> getFilteredOrder(String nameFilter, String params) {
         return switch (nameFilter) {
             case "date" -> repository.findByDate(LocalDate.parse(params));
-            case "status" -> repository.findByStatus(params);
+            case "status" -> repository.findByStatus(OrderStatus.of(params));
             default -> throw new NotFoundException("Unexpected value: " + nameFilter);
         };
     }
 
-    private Order changeOrderStatus(int id, String status) {
-        final Optional<Order> optionalOrder = repository.findById(id);
-        if(optionalOrder.isPresent()){
-            final Order order = optionalOrder.get();
-            order.setStatus(status);
-            return saveOrUpdate(order);
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDTO> getFilteredOrderDTO(String nameFilter, String params) {
+        return switch (nameFilter) {
+            case "date" -> repository.findDTOByDate(LocalDate.parse(params));
+            case "status" -> repository.findDTOByStatus(OrderStatus.of(params));
+            default -> throw new NotFoundException("Unexpected value: " + nameFilter);
+        };
+    }
+
+    private Order changeOrderStatus(int id, OrderStatus status, Long version) {
+        final List<Short> sources = SOURCES.get(status).stream().map(OrderStatus::getCode).toList();
+        if (!sources.isEmpty()) {
+            final Optional<Order> updatedOrder = version == null
+                    ? repository.updateStatus(id, status.getCode(), sources)
+                    : repository.updateStatus(id, status.getCode(), sources, version);
+            if (updatedOrder.isPresent()) {
+                outbox.append(OrderEvent.Type.STATUS_CHANGED, OrderMapper.INSTANCE.getOdderDTO(updatedOrder.get()));
+                analyticsRefresher.markStale();
+                return updatedOrder.get();
+            }
         }
-        throw new NotFoundException("Order with id " + id + " not found");
+        final Order order = repository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Order with id " + id + " not found"));
+        if (version != null && order.getVersion() != version) {
+            throw new ConflictException("Order with id " + id + " was modified, expected version " + version);
+        }
+        throw new ConflictException("Order with id " + id + " cannot change status from '" + order.getStatus()
+                + "' to '" + status + "'");
+    }
+
+    /**
+     * Возвращает для каждого статуса множество статусов, из которых в него допустим переход.
+     */
+    private static Map<OrderStatus, Set<OrderStatus>> sources(Map<OrderStatus, Set<OrderStatus>> transitions) {
+        final Map<OrderStatus, Set<OrderStatus>> sources = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            sources.put(status, EnumSet.noneOf(OrderStatus.class));
+        }
+        transitions.forEach((from, targets) -> targets.forEach(to -> sources.get(to).add(from)));
+        return sources;
+    }
+
+    private OrderBulkUpdateResultDTO bulkUpdateStatus(OrderBulkUpdateDTO request, OrderStatus status) {
+        final boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        final boolean hasFilter = request.getCurrentStatus() != null
+                || request.getDateFrom() != null || request.getDateTo() != null;
+        if (!hasIds && !hasFilter) {
+            throw new BadRequestException("ids or at least one of currentStatus, dateFrom, dateTo is required");
+        }
+        if (request.getDateFrom() != null && request.getDateTo() != null
+                && request.getDateFrom().isAfter(request.getDateTo())) {
+            throw new BadRequestException("dateFrom must not be after dateTo");
+        }
+        if (SOURCES.get(status).isEmpty()) {
+            throw new ConflictException("No order can change status to '" + status + "'");
+        }
+
+        int updated = 0;
+        if (hasIds) {
+            final List<Integer> ids = request.getIds().stream().distinct().sorted().toList();
+            for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                updated += updateChunk(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), request, status);
+            }
+        } else {
+            List<Integer> chunk = findChunk(request, status, 0);
+            while (!chunk.isEmpty()) {
+                updated += updateChunk(chunk, request, status);
+                chunk = chunk.size() < BULK_CHUNK_SIZE ? List.of() : findChunk(request, status, chunk.get(chunk.size() - 1));
+            }
+        }
+        if (updated > 0) {
+            analyticsRefresher.markStale();
+        }
+        return new OrderBulkUpdateResultDTO(updated);
     }
 
+    /**
+     * Возвращает идентификаторы следующей порции заказов, удовлетворяющих фильтру и допускающих переход в статус
+     * {@code status}, после идентификатора {@code afterId}.
+     */
+    private List<Integer> findChunk(OrderBulkUpdateDTO request, OrderStatus status, int afterId) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
+        final Root<Order> root = query.from(Order.class);
+        final List<Predicate> predicates = bulkPredicates(request, status, root, builder);
+        predicates.add(builder.greaterThan(root.get("orderId"), afterId));
+        query.select(root.get("orderId"))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(builder.asc(root.get("orderId")));
+        return entityManager.createQuery(query)
+                .setMaxResults(BULK_CHUNK_SIZE)
+                .getResultList();
+    }
+
+    /**
+     * Изменяет статус и версию заказов порции, для которых допустим переход в новый статус, в отдельной транзакции
+     * и записывает события об изменении статуса. Изменяемые заказы сначала выбираются с блокировкой строк
+     * в порядке идентификаторов, затем изменяются одним запросом.
+     */
+    private int updateChunk(List<Integer> ids, OrderBulkUpdateDTO request, OrderStatus status) {
+        final Integer updated = transactionTemplate.execute(transaction -> {
+            final List<OrderDTO> orders = lockChunk(ids, request, status);
+            if (orders.isEmpty()) {
+                return 0;
+            }
+            final List<Integer> lockedIds = orders.stream().map(OrderDTO::getOrderId).toList();
+            final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            final CriteriaUpdate<Order> update = builder.createCriteriaUpdate(Order.class);
+            final Root<Order> root = update.from(Order.class);
+            final List<Predicate> predicates = bulkPredicates(request, status, root, builder);
+            predicates.add(root.get("orderId").in(lockedIds));
+            update.set(root.<OrderStatus>get("status"), status)
+                    .set(root.<Long>get("version"), builder.sum(root.<Long>get("version"), 1L))
+                    .where(predicates.toArray(Predicate[]::new));
+            final int count = entityManager.createQuery(update).executeUpdate();
+            orders.forEach(order -> {
+                order.setStatus(status);
+                order.setVersion(order.getVersion() + 1);
+            });
+            outbox.appendAll(OrderEvent.Type.STATUS_CHANGED, orders);
+            return count;
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    /**
+     * Выбирает с блокировкой строк заказы порции, для которых допустим переход в статус {@code status}.
+     */
+    private List<OrderDTO> lockChunk(List<Integer> ids, OrderBulkUpdateDTO request, OrderStatus status) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<OrderDTO> query = builder.createQuery(OrderDTO.class);
+        final Root<Order> root = query.from(Order.class);
+        final List<Predicate> predicates = bulkPredicates(request, status, root, builder);
+        predicates.add(root.get("orderId").in(ids));
+        query.select(builder.construct(OrderDTO.class, root.get("orderId"), root.get("userId"), root.get("carId"),
+                        root.get("date"), root.get("status"), root.get("version")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(builder.asc(root.get("orderId")));
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    private static List<Predicate> bulkPredicates(OrderBulkUpdateDTO request, OrderStatus status,
+                                                  Root<Order> root, CriteriaBuilder builder) {
+        final List<Predicate> predicates = new ArrayList<>();
+        predicates.add(root.get("status").in(SOURCES.get(status)));
+        if (request.getCurrentStatus() != null) {
+            predicates.add(builder.equal(root.get("status"), request.getCurrentStatus()));
+        }
+        if (request.getDateFrom() != null) {
+            predicates.add(builder.greaterThanOrEqualTo(root.<LocalDate>get("date"), request.getDateFrom()));
+        }
+        if (request.getDateTo() != null) {
+            predicates.add(builder.lessThanOrEqualTo(root.<LocalDate>get("date"), request.getDateTo()));
+        }
+        return predicates;
+    }
 }
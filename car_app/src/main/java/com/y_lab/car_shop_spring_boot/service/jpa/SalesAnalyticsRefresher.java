@@ -0,0 +1,82 @@
+package com.y_lab.car_shop_spring_boot.service.jpa;
+
+import com.y_lab.car_shop_spring_boot.service.SalesAnalyticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Пересчёт сводки продаж по расписанию и после изменения заказов.
+ * <p>
+ * Сервис заказов вызывает {@link #markStale()} при каждом изменении заказов; отметка ставится после фиксации
+ * транзакции, чтобы пересчёт увидел изменение. Метод {@link #refreshIfStale()} выполняется с интервалом
+ * {@code analytics.refresh.check-interval} и пересчитывает сводку, если она отмечена устаревшей или не
+ * пересчитывалась дольше {@code analytics.refresh.max-age}. Второе условие учитывает изменения, сделанные в обход
+ * сервиса заказов, например изменение цены автомобиля. Сколько бы заказов ни изменилось за интервал, сводка
+ * пересчитывается один раз, поэтому частые изменения заказов не приводят к частым пересчётам.
+ * </p>
+ *
+ * <p>
+ * Отметка снимается до пересчёта: изменение, зафиксированное во время пересчёта, снова отмечает сводку, и она
+ * пересчитывается при следующей проверке. При ошибке пересчёта отметка восстанавливается. Пересчёт по расписанию
+ * отключается свойством {@code analytics.refresh.enabled=false}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class SalesAnalyticsRefresher {
+    private final SalesAnalyticsService service;
+    private final boolean enabled;
+    private final long maxAgeNanos;
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private volatile long lastRefresh = System.nanoTime();
+
+    public SalesAnalyticsRefresher(SalesAnalyticsService service,
+                                   @Value("${analytics.refresh.enabled:true}") boolean enabled,
+                                   @Value("${analytics.refresh.max-age:10m}") Duration maxAge) {
+        this.service = service;
+        this.enabled = enabled;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * Отмечает сводку устаревшей после фиксации текущей транзакции или сразу, если транзакции нет.
+     */
+    public void markStale() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stale.set(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stale.set(true);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.refresh.check-interval:PT10S}",
+            initialDelayString = "${analytics.refresh.check-interval:PT10S}")
+    public void refreshIfStale() {
+        if (!enabled) {
+            return;
+        }
+        final long startedAt = System.nanoTime();
+        if (!stale.getAndSet(false) && startedAt - lastRefresh < maxAgeNanos) {
+            return;
+        }
+        try {
+            service.refresh();
+            lastRefresh = startedAt;
+        } catch (RuntimeException e) {
+            stale.set(true);
+            log.warn("Sales summary refresh failed", e);
+        }
+    }
+}
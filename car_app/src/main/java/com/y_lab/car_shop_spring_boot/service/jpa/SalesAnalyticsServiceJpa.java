@@ -0,0 +1,55 @@
+package com.y_lab.car_shop_spring_boot.service.jpa;
+
+import com.y_lab.car_shop_spring_boot.dao.SalesSummaryRepository;
+import com.y_lab.car_shop_spring_boot.dto.SalesDTO;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import com.y_lab.car_shop_spring_boot.service.SalesAnalyticsService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Реализация сервиса аналитики продаж с использованием JPA.
+ * <p>
+ * Читает итоги из материализованного представления {@code car_shop.sales_summary} через
+ * {@link SalesSummaryRepository}: представление уже сгруппировано по бренду, месяцу и статусу, поэтому каждый запрос
+ * суммирует небольшое количество строк и не обращается к таблицам {@code orders} и {@code car}.
+ * </p>
+ *
+ * <p>
+ * Метод {@link #refresh()} пересчитывает представление без блокировки чтения. Он вызывается
+ * {@link SalesAnalyticsRefresher} по расписанию и может быть вызван напрямую, если итоги нужны сразу после изменения.
+ * </p>
+ */
+@Service
+public class SalesAnalyticsServiceJpa implements SalesAnalyticsService {
+    private final SalesSummaryRepository repository;
+
+    public SalesAnalyticsServiceJpa(SalesSummaryRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesDTO> getSalesByBrand() {
+        return repository.sumByBrand(OrderStatus.CANCELLED);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesDTO> getSalesByMonth() {
+        return repository.sumByMonth(OrderStatus.CANCELLED);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesDTO> getSalesByStatus() {
+        return repository.sumByStatus();
+    }
+
+    @Override
+    public void refresh() {
+        repository.refresh();
+    }
+}
@@ -4,13 +4,30 @@ import com.y_lab.car_shop_spring_boot.dao.UserRepository;
 import com.y_lab.car_shop_spring_boot.dto.UserDTO;
 import com.y_lab.car_shop_spring_boot.mapper.UserMapper;
 import com.y_lab.car_shop_spring_boot.model.Car;
+import com.y_lab.car_shop_spring_boot.model.Roles;
 import com.y_lab.car_shop_spring_boot.model.User;
 import com.y_lab.car_shop_spring_boot.service.UserService;
+import com.y_lab.car_shop_spring_boot.util.BadRequestException;
+import com.y_lab.car_shop_spring_boot.util.Cursor;
+import com.y_lab.car_shop_spring_boot.util.CursorPage;
+import com.y_lab.car_shop_spring_boot.util.ETags;
 import com.y_lab.car_shop_spring_boot.util.NotFoundException;
+import com.y_lab.car_shop_spring_boot.util.PreconditionFailedException;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Реализация сервиса для управления пользователями с использованием JPA.
@@ -23,11 +40,19 @@ import java.util.Optional;
  * Использует {@link UserRepository} для взаимодействия с базой данных. В классе реализованы методы для:
  * <ul>
  *     <li>Получения списка всех пользователей {@link #getAll()}</li>
+ *     <li>Постраничного получения пользователей в порядке идентификаторов {@link #getPage(String, int)}
+ *     и {@link #getPageDTO(String, int)}</li>
  *     <li>Преобразования списка пользователей в список объектов {@link UserDTO} {@link #getAllDTO(List)}</li>
- *     <li>Получения пользователя по его идентификатору {@link #getById(int)}</li>
- *     <li>Обновления данных пользователя {@link #update(User)}</li>
+ *     <li>Потоковой выдачи всех пользователей в виде объектов {@link UserDTO} {@link #streamAllDTO(Consumer)}</li>
+ *     <li>Получения пользователя по его идентификатору без ролей {@link #getById(int)} и с ролями {@link #getByIdWithRoles(int)}</li>
+ *     <li>Получения версии пользователя {@link #getVersion(int)} и {@code ETag} страницы пользователей
+ *     {@link #getPageETag(String, int)}</li>
+ *     <li>Обновления данных пользователя {@link #update(User)} и условного обновления по версии {@link #update(User, Long)}</li>
  *     <li>Получения отсортированного списка пользователей {@link #getSortedUsers(String)}</li>
- *     <li>Получения отфильтрованного списка пользователей {@link #getFilteredUsers(String, String)}</li>
+ *     <li>Постраничного получения отсортированного списка пользователей {@link #getSortedPage(String, String, int)}
+ *     и {@link #getSortedPageDTO(String, String, int)}</li>
+ *     <li>Получения отфильтрованного списка пользователей {@link #getFilteredUsers(String, String)}
+ *     и {@link #getFilteredUsersDTO(String, String)}</li>
  * </ul>
  * </p>
  *
@@ -41,6 +66,11 @@ import java.util.Optional;
  * </p>
  *
  * <p>
+ * Метод {@link #getSortedPage(String, String, int)} поддерживает те же параметры сортировки. При совпадающих значениях
+ * поля сортировки пользователи упорядочиваются по идентификатору, а курсор страницы хранит пару (значение, идентификатор).
+ * </p>
+ *
+ * <p>
  * Метод {@link #getFilteredUsers(String, String)} поддерживает следующие параметры фильтрации:
  * <ul>
  *     <li><b>name</b> - фильтрация по имени пользователя</li>
@@ -50,7 +80,30 @@ import java.util.Optional;
  * </p>
  *
  * <p>
- * При получении пользователя по идентификатору {@link #getById(int)}, если пользователь с указанным идентификатором
+ * Списки пользователей возвращаются с загруженными ролями. Полные списки загружаются вместе с ролями одним запросом,
+ * а страницы {@link #getPage(String, int)} и {@link #getSortedPage(String, String, int)} — двумя запросами в одной
+ * транзакции: страница пользователей и роли всех пользователей страницы. Метод {@link #getById(int)} не загружает
+ * роли и используется, когда они не нужны; {@link #getByIdWithRoles(int)} загружает пользователя вместе с ролями
+ * одним запросом.
+ * </p>
+ *
+ * <p>
+ * Методы {@link #getPageDTO(String, int)}, {@link #getSortedPageDTO(String, String, int)} и
+ * {@link #getFilteredUsersDTO(String, String)} выбирают пользователей из базы данных сразу в объекты {@link UserDTO}
+ * и дополняют их ролями вторым запросом по идентификаторам выбранных пользователей. Сущности при этом не создаются,
+ * но оба запроса выполняются в одной транзакции только для чтения, чтобы роли соответствовали выбранной странице.
+ * </p>
+ *
+ * <p>
+ * Метод {@link #update(User, Long)} изменяет имя, возраст и город пользователя одним запросом {@code UPDATE ... RETURNING}
+ * с условием на версию, не читая пользователя перед изменением, и заменяет его роли в той же транзакции. Если пользователь
+ * не изменён, версия читается отдельным запросом: при отсутствии пользователя генерируется исключение
+ * {@link NotFoundException}, иначе — {@link PreconditionFailedException}. Изменяемые поля проверяются ограничениями
+ * сущности {@link User}; при ошибке генерируется исключение {@link BadRequestException}.
+ * </p>
+ *
+ * <p>
+ * При получении пользователя по идентификатору {@link #getById(int)} или {@link #getByIdWithRoles(int)}, если пользователь с указанным идентификатором
  * не найден, генерируется исключение {@link NotFoundException}.
  * </p>
  *
@@ -62,17 +115,44 @@ import java.util.Optional;
 @Service
 public class UserServiceJpa implements UserService {
 
+    private static final List<String> UPDATABLE_PROPERTIES = List.of("name", "age", "city");
+
     private final UserRepository repository;
+    private final EntityManager entityManager;
+    private final Validator validator;
 
-    public UserServiceJpa(UserRepository repository) {
+    public UserServiceJpa(UserRepository repository, EntityManager entityManager, Validator validator) {
         this.repository = repository;
+        this.entityManager = entityManager;
+        this.validator = validator;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getAll() {
         return repository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<User> getPage(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final List<User> users = withRoles(repository.findByUserIdGreaterThanOrderByUserIdAsc(
+                cursor == null ? 0 : cursor.getId(), Limit.of(pageSize + 1)));
+        return CursorPage.of(users, pageSize, user -> new Cursor(user.getUserId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDTO> getPageDTO(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final List<UserDTO> users = withRolesDTO(repository.findDTOByUserIdGreaterThan(
+                cursor == null ? 0 : cursor.getId(), Limit.of(pageSize + 1)));
+        return CursorPage.of(users, pageSize, user -> new Cursor(user.getUserId()));
+    }
+
     @Override
     public List<UserDTO> getAllDTO(List<User> users) {
         return users.stream()
@@ -80,6 +160,17 @@ public class UserServiceJpa implements UserService {
                 .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllDTO(Consumer<UserDTO> consumer) {
+        try (Stream<User> users = repository.streamAll()) {
+            users.forEach(user -> {
+                consumer.accept(UserMapper.INSTANCE.getUserDTO(user));
+                entityManager.detach(user);
+            });
+        }
+    }
+
     @Override
     public User getById(int id) {
         final Optional<User> optionalUser = repository.findById(id);
@@ -89,12 +180,47 @@ public class UserServiceJpa implements UserService {
         throw new NotFoundException("User with id " + id + " not found");
     }
 
+    @Override
+    public User getByIdWithRoles(int id) {
+        return repository.findWithRoleByUserId(id)
+                .orElseThrow(() -> new NotFoundException("User with id " + id + " not found"));
+    }
+
+    @Override
+    public long getVersion(int id) {
+        return repository.findVersionByUserId(id)
+                .orElseThrow(() -> new NotFoundException("User with id " + id + " not found"));
+    }
+
+    @Override
+    public String getPageETag(String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        return ETags.quote(repository.pageVersionHash(cursor == null ? 0 : cursor.getId(),
+                CursorPage.normalizeLimit(limit) + 1));
+    }
+
     @Override
     public User update(User user) {
         return repository.save(user);
     }
 
     @Override
+    @Transactional
+    public User update(User user, Long version) {
+        validate(user);
+        final User updatedUser = (version == null ? repository.update(user) : repository.update(user, version))
+                .orElseThrow(() -> new PreconditionFailedException("User with id " + user.getUserId()
+                        + " was modified, expected version " + version + " but was " + getVersion(user.getUserId())));
+        final Set<Roles> roles = user.getRole() == null ? new HashSet<>() : new HashSet<>(user.getRole());
+        repository.deleteRoles(user.getUserId());
+        roles.forEach(role -> repository.insertRole(user.getUserId(), role.name()));
+        entityManager.detach(updatedUser);
+        updatedUser.setRole(roles);
+        return updatedUser;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<User> getSortedUsers(String paramsSort) {
         return switch (paramsSort) {
             case "name" -> repository.getSortByName();
@@ -105,6 +231,53 @@ public class UserServiceJpa implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<User> getSortedPage(String paramsSort, String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final Limit fetchLimit = Limit.of(pageSize + 1);
+        return switch (paramsSort) {
+            case "name" -> CursorPage.of(withRoles(cursor == null
+                            ? repository.getSortByName(fetchLimit)
+                            : repository.getSortByNameAfter(cursor.requireKey(), cursor.getId(), fetchLimit)),
+                    pageSize, user -> new Cursor(user.getUserId(), user.getName()));
+            case "age" -> CursorPage.of(withRoles(cursor == null
+                            ? repository.getSortByAge(fetchLimit)
+                            : repository.getSortByAgeAfter(cursor.requireIntKey(), cursor.getId(), fetchLimit)),
+                    pageSize, user -> new Cursor(user.getUserId(), String.valueOf(user.getAge())));
+            case "city" -> CursorPage.of(withRoles(cursor == null
+                            ? repository.getSortByCity(fetchLimit)
+                            : repository.getSortByCityAfter(cursor.requireKey(), cursor.getId(), fetchLimit)),
+                    pageSize, user -> new Cursor(user.getUserId(), user.getCity()));
+            default -> throw new NotFoundException("Unexpected value: " + paramsSort);
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDTO> getSortedPageDTO(String paramsSort, String after, int limit) {
+        final Cursor cursor = Cursor.decode(after);
+        final int pageSize = CursorPage.normalizeLimit(limit);
+        final Limit fetchLimit = Limit.of(pageSize + 1);
+        return switch (paramsSort) {
+            case "name" -> CursorPage.of(withRolesDTO(cursor == null
+                            ? repository.getSortDTOByName(fetchLimit)
+                            : repository.getSortDTOByNameAfter(cursor.requireKey(), cursor.getId(), fetchLimit)),
+                    pageSize, user -> new Cursor(user.getUserId(), user.getName()));
+            case "age" -> CursorPage.of(withRolesDTO(cursor == null
+                            ? repository.getSortDTOByAge(fetchLimit)
+                            : repository.getSortDTOByAgeAfter(cursor.requireIntKey(), cursor.getId(), fetchLimit)),
+                    pageSize, user -> new Cursor(user.getUserId(), String.valueOf(user.getAge())));
+            case "city" -> CursorPage.of(withRolesDTO(cursor == null
+                            ? repository.getSortDTOByCity(fetchLimit)
+                            : repository.getSortDTOByCityAfter(cursor.requireKey(), cursor.getId(), fetchLimit)),
+                    pageSize, user -> new Cursor(user.getUserId(), user.getCity()));
+            default -> throw new NotFoundException("Unexpected value: " + paramsSort);
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<User> getFilteredUsers(String nameFilter, String params) {
         return switch (nameFilter) {
             case "name" -> repository.getByName(params);
@@ -113,4 +286,51 @@ public class UserServiceJpa implements UserService {
             default -> throw new NotFoundException("Unexpected value: " + nameFilter);
         };
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> getFilteredUsersDTO(String nameFilter, String params) {
+        return withRolesDTO(switch (nameFilter) {
+            case "name" -> repository.getDTOByName(params);
+            case "age" -> repository.getDTOByAge(Integer.parseInt(params));
+            case "city" -> repository.getDTOByCity(params);
+            default -> throw new NotFoundException("Unexpected value: " + nameFilter);
+        });
+    }
+
+    private void validate(User user) {
+        final String violations = UPDATABLE_PROPERTIES.stream()
+                .flatMap(property -> validator.validateProperty(user, property).stream())
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        if (!violations.isEmpty()) {
+            throw new BadRequestException(violations);
+        }
+    }
+
+    /**
+     * Загружает роли пользователей страницы одним запросом в текущей транзакции.
+     */
+    private List<User> withRoles(List<User> users) {
+        if (!users.isEmpty()) {
+            repository.fetchRoles(users.stream().map(User::getUserId).toList());
+        }
+        return users;
+    }
+
+    /**
+     * Дополняет объекты {@link UserDTO} ролями, загружая роли всех пользователей одним запросом.
+     */
+    private List<UserDTO> withRolesDTO(List<UserDTO> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        final Map<Integer, UserDTO> byId = new HashMap<>();
+        users.forEach(user -> byId.put(user.getUserId(), user));
+        for (Object[] row : repository.findRoles(byId.keySet())) {
+            byId.get((Integer) row[0]).getRole().add((Roles) row[1]);
+        }
+        return users;
+    }
 }
@@ -0,0 +1,84 @@
+package com.y_lab.car_shop_spring_boot.service.r2dbc;
+
+import com.y_lab.car_shop_spring_boot.dao.CarCriteria;
+import com.y_lab.car_shop_spring_boot.dao.ReactiveCarRepository;
+import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import com.y_lab.car_shop_spring_boot.mapper.CarMapper;
+import com.y_lab.car_shop_spring_boot.model.CarRow;
+import com.y_lab.car_shop_spring_boot.service.ReactiveCarService;
+import com.y_lab.car_shop_spring_boot.util.BadRequestException;
+import com.y_lab.car_shop_spring_boot.util.NotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Реализация сервиса {@link ReactiveCarService} с использованием R2DBC.
+ * <p>
+ * Использует {@link ReactiveCarRepository} для получения автомобилей по идентификатору и всех автомобилей
+ * и {@link R2dbcEntityTemplate} для фильтрации и составного поиска по условиям {@link CarCriteria}. Результаты
+ * упорядочены по идентификатору. Фильтры {@code brand}, {@code condition} и {@code price} метода
+ * {@link #getFilteredCars(String, String)} совпадают с фильтрами {@code CarServiceJpa}.
+ * </p>
+ *
+ * <p>
+ * Результаты не кэшируются: сервис предназначен для сравнения с блокирующим чтением через JPA. Если автомобиль
+ * не найден, {@link #getById(int)} завершается ошибкой {@link NotFoundException}; при некорректных критериях поиска —
+ * ошибкой {@link BadRequestException}.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(value = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCarServiceR2dbc implements ReactiveCarService {
+    private static final Sort BY_ID = Sort.by("carId");
+
+    private final ReactiveCarRepository repository;
+    private final R2dbcEntityTemplate template;
+
+    public ReactiveCarServiceR2dbc(ReactiveCarRepository repository, R2dbcEntityTemplate template) {
+        this.repository = repository;
+        this.template = template;
+    }
+
+    @Override
+    public Flux<CarDTO> getAll() {
+        return repository.findAllByOrderByCarIdAsc()
+                .map(CarMapper.INSTANCE::getCarDTO);
+    }
+
+    @Override
+    public Mono<CarDTO> getById(int id) {
+        return repository.findById(id)
+                .map(CarMapper.INSTANCE::getCarDTO)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Car with id " + id + " not found")));
+    }
+
+    @Override
+    public Flux<CarDTO> getFilteredCars(String nameFilter, String params) {
+        final CarSearchCriteria criteria = new CarSearchCriteria();
+        switch (nameFilter) {
+            case "brand" -> criteria.setBrand(params);
+            case "condition" -> criteria.setCondition(params);
+            case "price" -> {
+                criteria.setPriceMin(Double.parseDouble(params));
+                criteria.setPriceMax(criteria.getPriceMin());
+            }
+            default -> throw new NotFoundException("Unexpected value: " + nameFilter);
+        }
+        return search(criteria);
+    }
+
+    @Override
+    public Flux<CarDTO> search(CarSearchCriteria criteria) {
+        criteria.validate();
+        return template.select(CarRow.class)
+                .matching(Query.query(CarCriteria.matching(criteria)).sort(BY_ID))
+                .all()
+                .map(CarMapper.INSTANCE::getCarDTO);
+    }
+}
@@ -0,0 +1,51 @@
+package com.y_lab.car_shop_spring_boot.service.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y_lab.car_shop_spring_boot.dto.OrderEventDTO;
+import com.y_lab.car_shop_spring_boot.service.OrderEventSink;
+import com.y_lab.car_shop_spring_boot.util.NdjsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Доставка событий заказов дописыванием в файл в формате NDJSON (по одному событию на строку).
+ * <p>
+ * После записи порции файл сбрасывается на диск ({@link FileChannel#force(boolean)}), поэтому порция считается
+ * доставленной, только если она сохранена. Каталог файла создаётся при необходимости.
+ * </p>
+ */
+public class FileOrderEventSink implements OrderEventSink {
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileOrderEventSink(ObjectMapper objectMapper, Path path) {
+        this.objectMapper = objectMapper;
+        this.path = path;
+    }
+
+    @Override
+    public synchronized void deliver(List<OrderEventDTO> events) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                OutputStream output = Channels.newOutputStream(channel);
+                events.forEach(new NdjsonWriter<>(objectMapper, output));
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
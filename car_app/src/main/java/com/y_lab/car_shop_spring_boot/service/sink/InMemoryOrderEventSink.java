@@ -0,0 +1,31 @@
+package com.y_lab.car_shop_spring_boot.service.sink;
+
+import com.y_lab.car_shop_spring_boot.dto.OrderEventDTO;
+import com.y_lab.car_shop_spring_boot.service.OrderEventSink;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Доставка событий заказов в список в памяти.
+ * <p>
+ * Заменяет внешнюю систему в тестах и при локальном запуске: доставленные события возвращаются методом
+ * {@link #getEvents()} в порядке доставки и удаляются методом {@link #clear()}.
+ * </p>
+ */
+public class InMemoryOrderEventSink implements OrderEventSink {
+    private final List<OrderEventDTO> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void deliver(List<OrderEventDTO> events) {
+        this.events.addAll(events);
+    }
+
+    public List<OrderEventDTO> getEvents() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,42 @@
+package com.y_lab.car_shop_spring_boot.service.sink;
+
+import com.y_lab.car_shop_spring_boot.dto.OrderEventDTO;
+import com.y_lab.car_shop_spring_boot.service.OrderEventSink;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Доставка событий заказов HTTP-запросом {@code POST} с JSON-массивом событий порции.
+ * <p>
+ * Порция считается доставленной, если получатель ответил кодом 2xx; иначе, а также при ошибке соединения
+ * или превышении {@code timeout}, генерируется исключение, и порция доставляется повторно.
+ * </p>
+ */
+public class WebhookOrderEventSink implements OrderEventSink {
+    private final RestClient client;
+    private final URI url;
+
+    public WebhookOrderEventSink(RestClient.Builder builder, URI url, Duration timeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(timeout).build());
+        requestFactory.setReadTimeout(timeout);
+        this.client = builder.requestFactory(requestFactory).build();
+        this.url = url;
+    }
+
+    @Override
+    public void deliver(List<OrderEventDTO> events) {
+        client.post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(events)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
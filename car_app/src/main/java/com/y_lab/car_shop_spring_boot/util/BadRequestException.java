@@ -0,0 +1,22 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Исключение, которое выбрасывается, когда параметры запроса некорректны.
+ * <p>
+ * Аннотация {@code @ResponseStatus} указывает, что при выбросе исключения из контроллера клиенту
+ * возвращается ответ с кодом состояния 400 (Bad Request).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
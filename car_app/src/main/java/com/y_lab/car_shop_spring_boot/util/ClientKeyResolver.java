@@ -0,0 +1,71 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Определение клиента HTTP-запроса для ограничения частоты запросов и сохранения идемпотентных ответов.
+ * <p>
+ * Клиент определяется по первому доступному признаку:
+ * <ul>
+ *     <li>имени аутентифицированного пользователя {@link HttpServletRequest#getUserPrincipal()};</li>
+ *     <li>ключу API из заголовка {@code keyHeader}, если ключ зарегистрирован в {@code apiKeys};</li>
+ *     <li>адресу клиента {@link HttpServletRequest#getRemoteAddr()}.</li>
+ * </ul>
+ * Незарегистрированный ключ API не учитывается: иначе клиент мог бы получать новую корзину ограничения частоты,
+ * передавая в каждом запросе новый ключ. Зарегистрированные ключи хранятся и сравниваются в виде хэшей SHA-256,
+ * поэтому результат {@link #resolve(HttpServletRequest)} не содержит сам ключ.
+ * </p>
+ */
+public class ClientKeyResolver {
+    private static final String USER_PREFIX = "user:";
+    private static final String API_KEY_PREFIX = "key:";
+    private static final String ADDRESS_PREFIX = "ip:";
+
+    private final String keyHeader;
+    private final Set<String> apiKeyHashes;
+
+    public ClientKeyResolver(String keyHeader, Collection<String> apiKeys) {
+        this.keyHeader = keyHeader;
+        this.apiKeyHashes = apiKeys.stream()
+                .filter(StringUtils::hasText)
+                .map(ClientKeyResolver::sha256)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Возвращает ключ клиента запроса с префиксом признака, по которому клиент определён.
+     */
+    public String resolve(HttpServletRequest request) {
+        final Principal principal = request.getUserPrincipal();
+        if (principal != null && StringUtils.hasText(principal.getName())) {
+            return USER_PREFIX + principal.getName();
+        }
+        final String apiKey = keyHeader == null ? null : request.getHeader(keyHeader);
+        if (StringUtils.hasText(apiKey)) {
+            final String hash = sha256(apiKey);
+            if (apiKeyHashes.contains(hash)) {
+                return API_KEY_PREFIX + hash;
+            }
+        }
+        return ADDRESS_PREFIX + request.getRemoteAddr();
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
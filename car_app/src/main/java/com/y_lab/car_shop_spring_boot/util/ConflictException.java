@@ -0,0 +1,18 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Исключение, которое выбрасывается, когда ресурс был изменён другим запросом после того, как клиент его получил.
+ * <p>
+ * Аннотация {@code @ResponseStatus} указывает, что при выбросе исключения из контроллера клиенту
+ * возвращается ответ с кодом состояния 409 (Conflict). Клиент должен получить ресурс заново и повторить запрос.
+ * </p>
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,139 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Фильтр, ограничивающий количество одновременно обрабатываемых запросов размером пула соединений с базой данных.
+ * <p>
+ * При выполнении запросов на виртуальных потоках ({@code spring.threads.virtual.enabled=true}) количество потоков
+ * Tomcat не ограничено, и при всплеске нагрузки тысячи запросов одновременно ждут соединения в пуле Hikari, пока
+ * не истечёт {@code connectionTimeout}. Фильтр пропускает к контроллерам не более
+ * {@code maximumPoolSize * perConnection} запросов; остальные ждут разрешения не дольше {@code acquireTimeout},
+ * после чего получают ответ 503 (Service Unavailable) с заголовком {@code Retry-After}.
+ * </p>
+ *
+ * <p>
+ * Разрешение удерживается до завершения запроса, в том числе асинхронного (например, выдачи NDJSON через
+ * {@code StreamingResponseBody}). Запросы к {@code /actuator} не ограничиваются, чтобы проверки состояния
+ * и сбор метрик работали под нагрузкой.
+ * </p>
+ */
+@Slf4j
+public class ConnectionPoolLimitFilter extends OncePerRequestFilter {
+    private static final String ACTUATOR_PATH = "/actuator";
+
+    private final Semaphore permits;
+    private final int limit;
+    private final long acquireTimeoutNanos;
+    private final String retryAfterSeconds;
+
+    public ConnectionPoolLimitFilter(DataSource dataSource, int perConnection, Duration acquireTimeout)
+            throws SQLException {
+        this(dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() * perConnection, acquireTimeout);
+    }
+
+    ConnectionPoolLimitFilter(int limit, Duration acquireTimeout) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        this.permits = new Semaphore(limit, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.retryAfterSeconds = Long.toString(Math.max(1, acquireTimeout.toSeconds()));
+        log.info("Concurrent requests are limited to {}", limit);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + ACTUATOR_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        final Release release = new Release();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(release);
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает разрешение ровно один раз: асинхронный запрос может завершиться и с ошибкой, и по таймауту.
+     */
+    private final class Release implements AsyncListener, Runnable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
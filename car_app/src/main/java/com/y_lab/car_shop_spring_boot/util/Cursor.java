@@ -0,0 +1,71 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор для постраничной выборки по ключу (keyset pagination).
+ * <p>
+ * Курсор хранит идентификатор последней записи предыдущей страницы и, при сортировке по другому полю,
+ * значение этого поля. Клиенту курсор передаётся в непрозрачном виде — строкой Base64 (URL-safe),
+ * которую он возвращает в параметре {@code after} при запросе следующей страницы.
+ * </p>
+ *
+ * <p>
+ * При некорректном значении курсора генерируется исключение {@link BadRequestException}.
+ * </p>
+ */
+@Getter
+public class Cursor {
+    private static final char SEPARATOR = ':';
+
+    private final int id;
+    private final String key;
+
+    public Cursor(int id, String key) {
+        this.id = id;
+        this.key = key;
+    }
+
+    public Cursor(int id) {
+        this(id, null);
+    }
+
+    public String encode() {
+        String raw = key == null ? String.valueOf(id) : id + String.valueOf(SEPARATOR) + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new Cursor(Integer.parseInt(raw));
+            }
+            return new Cursor(Integer.parseInt(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String requireKey() {
+        if (key == null) {
+            throw new BadRequestException("Cursor does not contain a sort key");
+        }
+        return key;
+    }
+
+    public int requireIntKey() {
+        try {
+            return Integer.parseInt(requireKey());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cursor sort key is not a number: " + key, e);
+        }
+    }
+}
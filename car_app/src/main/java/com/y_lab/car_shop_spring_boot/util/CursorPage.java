@@ -0,0 +1,61 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница результатов постраничной выборки по ключу.
+ * <p>
+ * Содержит элементы страницы и непрозрачный курсор следующей страницы {@code nextCursor}.
+ * Если следующей страницы нет, {@code nextCursor} равен {@code null}.
+ * </p>
+ *
+ * <p>
+ * В HTTP-ответе элементы страницы передаются телом в виде массива, а курсор следующей страницы —
+ * в заголовке {@value #NEXT_CURSOR_HEADER}. Размер страницы по умолчанию {@value #DEFAULT_LIMIT},
+ * максимальный — {@value #MAX_LIMIT}.
+ * </p>
+ *
+ * @param <T> тип элементов страницы
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String DEFAULT_LIMIT = "100";
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    /**
+     * Формирует страницу из выборки, запрошенной с лимитом {@code limit + 1}:
+     * наличие лишнего элемента означает, что следующая страница существует.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, limit);
+        return new CursorPage<>(content, cursorOf.apply(content.get(limit - 1)).encode());
+    }
+
+    /**
+     * Приводит запрошенный размер страницы к допустимому диапазону {@code [1, MAX_LIMIT]}.
+     */
+    public static int normalizeLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    public <R> ResponseEntity<List<R>> toResponse(Function<List<T>, List<R>> mapper) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(mapper.apply(content));
+    }
+}
@@ -0,0 +1,46 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+/**
+ * Формирование и разбор значений заголовков {@code ETag} и {@code If-Match}.
+ * <p>
+ * {@code ETag} отдельного ресурса — его версия в кавычках, например {@code "3"}; версия увеличивается каждым
+ * изменением ресурса. {@code ETag} страницы списка — хэш идентификаторов и версий записей страницы, вычисленный
+ * базой данных (методы {@code getPageETag} сервисов). Оба значения строгие (без префикса {@code W/}).
+ * </p>
+ *
+ * <p>
+ * Метод {@link #parseIfMatch(String)} возвращает версию, которую должен иметь ресурс, чтобы запрос изменения был
+ * выполнен, или {@code null}, если заголовок не задан или равен {@code *}. Слабый, некорректный или составной
+ * {@code ETag} не может совпасть с текущей версией ресурса, поэтому для него генерируется исключение
+ * {@link PreconditionFailedException}.
+ * </p>
+ */
+public final class ETags {
+    private static final String ANY = "*";
+
+    private ETags() {
+    }
+
+    public static String of(long version) {
+        return quote(String.valueOf(version));
+    }
+
+    public static String quote(String value) {
+        return '"' + value + '"';
+    }
+
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals(ANY)) {
+            return null;
+        }
+        final String etag = ifMatch.trim();
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            try {
+                return Long.parseLong(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // такой ETag не выдаётся ни одним ресурсом
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current version");
+    }
+}
@@ -0,0 +1,288 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.y_lab.car_shop_spring_boot.dao.IdempotencyRecordRepository;
+import com.y_lab.car_shop_spring_boot.model.IdempotencyRecord;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Фильтр, выполняющий запросы {@code POST} с заголовком {@code Idempotency-Key} не более одного раза.
+ * <p>
+ * Клиент, повторяющий запрос создания после таймаута, передаёт тот же ключ, что и в первой попытке. Ключ действует
+ * в пределах клиента, определённого {@link ClientKeyResolver} так же, как для ограничения частоты запросов: запрос
+ * другого клиента с тем же ключом выполняется отдельно и не получает чужой сохранённый ответ. Успешный
+ * (2xx) ответ на первый запрос сохраняется вместе с хэшем SHA-256 метода, пути и тела запроса; повтор с тем же
+ * ключом не доходит до контроллера и получает сохранённый ответ с заголовком {@code Idempotent-Replayed: true}.
+ * Повтор с тем же ключом, но другим запросом, получает ответ 422 (Unprocessable Entity). Неуспешные ответы
+ * не сохраняются, и запрос с тем же ключом можно повторить.
+ * </p>
+ *
+ * <p>
+ * Ответы хранятся в памяти в кэше Caffeine, ограниченном количеством ключей и сроком хранения, и в таблице
+ * {@code car_shop.idempotency_key} ({@link IdempotencyRecordRepository}), из которой читаются после перезапуска
+ * или вытеснения из кэша. В кэше по ключу хранится {@link CompletableFuture} ответа, который помещается туда до
+ * выполнения запроса, поэтому одновременные запросы того же клиента с тем же ключом ждут завершения первого, не дольше
+ * {@code waitTimeout}, после чего получают ответ 409 (Conflict). Одновременные запросы к разным экземплярам
+ * приложения так не объединяются: повторная вставка сохранённого ответа в таблицу игнорируется.
+ * </p>
+ *
+ * <p>
+ * Фильтр применяется только к запросам {@code POST} к путям {@code paths} с заголовком {@code Idempotency-Key};
+ * остальные запросы выполняются без изменений. Устаревшие строки таблицы удаляются {@link #deleteExpired()}.
+ * </p>
+ */
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ClientKeyResolver clientKeyResolver;
+    private final Set<String> paths;
+    private final Duration ttl;
+    private final long waitTimeoutNanos;
+    private final Cache<IdempotencyRecord.Key, CompletableFuture<StoredResponse>> responses;
+
+    public IdempotencyFilter(IdempotencyRecordRepository repository, ClientKeyResolver clientKeyResolver,
+                             Collection<String> paths, Duration ttl, int maxEntries, Duration waitTimeout) {
+        this.repository = repository;
+        this.clientKeyResolver = clientKeyResolver;
+        this.paths = Set.copyOf(paths);
+        this.ttl = ttl;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        log.info("Idempotency keys are accepted for POST {}, responses are kept for {}", this.paths, ttl);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !paths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (!StringUtils.hasText(idempotencyKey) || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters long");
+            return;
+        }
+        IdempotencyRecord.Key key = new IdempotencyRecord.Key(clientKeyResolver.resolve(request), idempotencyKey);
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String requestHash = hash(cachedRequest);
+        while (true) {
+            CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = responses.asMap().putIfAbsent(key, pending);
+            if (existing == null) {
+                execute(key, requestHash, cachedRequest, response, chain, pending);
+                return;
+            }
+            StoredResponse stored;
+            try {
+                stored = existing.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.CONFLICT.value(),
+                        "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return;
+            } catch (ExecutionException e) {
+                stored = null;
+            }
+            if (stored != null) {
+                replay(stored, requestHash, response);
+                return;
+            }
+            // Первый запрос завершился неуспешно и освободил ключ: выполняем запрос заново.
+        }
+    }
+
+    /**
+     * Удаляет из таблицы ответы старше срока хранения.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:PT1H}")
+    public void deleteExpired() {
+        int deleted = repository.deleteCreatedBefore(Instant.now().minus(ttl));
+        if (deleted > 0) {
+            log.debug("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private void execute(IdempotencyRecord.Key key, String requestHash, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain chain, CompletableFuture<StoredResponse> pending)
+            throws ServletException, IOException {
+        StoredResponse stored = null;
+        try {
+            Optional<StoredResponse> durable = load(key);
+            if (durable.isPresent()) {
+                stored = durable.get();
+                replay(stored, requestHash, response);
+                return;
+            }
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+                stored = new StoredResponse(requestHash, wrapper.getStatus(), wrapper.getContentType(),
+                        wrapper.getContentAsByteArray());
+                save(key, stored);
+            }
+            wrapper.copyBodyToResponse();
+        } finally {
+            if (stored == null) {
+                responses.asMap().remove(key, pending);
+            }
+            pending.complete(stored);
+        }
+    }
+
+    private Optional<StoredResponse> load(IdempotencyRecord.Key key) {
+        try {
+            return repository.findById(key)
+                    .filter(record -> record.getCreatedAt().isAfter(Instant.now().minus(ttl)))
+                    .map(record -> new StoredResponse(record.getRequestHash(), record.getStatus(),
+                            record.getContentType(), record.getBody()));
+        } catch (DataAccessException e) {
+            log.warn("Failed to read idempotency key {}: {}", key.getKey(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void save(IdempotencyRecord.Key key, StoredResponse stored) {
+        try {
+            repository.insert(key.getClientKey(), key.getKey(), stored.requestHash(), (short) stored.status(),
+                    stored.contentType(), stored.body(), Instant.now());
+        } catch (DataAccessException e) {
+            log.warn("Failed to store idempotency key {}: {}", key.getKey(), e.getMessage());
+        }
+    }
+
+    private static void replay(StoredResponse stored, String requestHash, HttpServletResponse response)
+            throws IOException {
+        if (!stored.requestHash().equals(requestHash)) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                    IDEMPOTENCY_KEY_HEADER + " was already used with a different request");
+            return;
+        }
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static String hash(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + ' ' + request.getRequestURI() + '?' + request.getQueryString() + '\n')
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ответ, выдаваемый повторам запроса: хэш запроса, код ответа, тип содержимого и тело.
+     */
+    record StoredResponse(String requestHash, int status, String contentType, byte[] body) {
+    }
+
+    /**
+     * Запрос с телом, прочитанным заранее: тело нужно для хэша до выполнения запроса и читается контроллером повторно.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
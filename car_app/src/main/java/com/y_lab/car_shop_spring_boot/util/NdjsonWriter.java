@@ -0,0 +1,41 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Запись объектов в поток ответа в формате NDJSON (по одному JSON-объекту на строку).
+ * <p>
+ * Каждый переданный объект сериализуется и сразу записывается в выходной поток, поэтому объём
+ * используемой памяти не зависит от количества записываемых объектов. Ошибки ввода-вывода
+ * оборачиваются в {@link UncheckedIOException}.
+ * </p>
+ *
+ * @param <T> тип записываемых объектов
+ */
+public class NdjsonWriter<T> implements Consumer<T> {
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final ObjectWriter writer;
+    private final OutputStream output;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream output) {
+        this.writer = objectMapper.writer();
+        this.output = output;
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            output.write(writer.writeValueAsBytes(value));
+            output.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
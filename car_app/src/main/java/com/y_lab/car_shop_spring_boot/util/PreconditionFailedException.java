@@ -0,0 +1,19 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Исключение, которое выбрасывается, когда условие заголовка {@code If-Match} запроса не выполнено.
+ * <p>
+ * Аннотация {@code @ResponseStatus} указывает, что при выбросе исключения из контроллера клиенту
+ * возвращается ответ с кодом состояния 412 (Precondition Failed): ресурс был изменён после того, как клиент получил
+ * его {@code ETag}. Клиент должен получить ресурс заново и повторить запрос.
+ * </p>
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,46 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Фильтр, считающий SQL-запросы каждого HTTP-запроса для {@link QueryMonitor}.
+ * <p>
+ * HTTP-запросы группируются по методу и шаблону пути контроллера, например {@code GET /users/{id}}; запросы без
+ * контроллера — по пути. Учитываются SQL-запросы, выполненные в потоке запроса, поэтому выдача NDJSON через
+ * {@code StreamingResponseBody} в отдельном потоке не учитывается. Запросы к {@code /actuator} не учитываются.
+ * Регистрируется {@code QueryMonitorConfiguration}.
+ * </p>
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+    private static final String ACTUATOR_PATH = "/actuator";
+
+    private final QueryMonitor monitor;
+
+    public QueryCountFilter(QueryMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + ACTUATOR_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        monitor.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            monitor.endRequest(request.getMethod() + ' ' + (pattern != null ? pattern : request.getRequestURI()));
+        }
+    }
+}
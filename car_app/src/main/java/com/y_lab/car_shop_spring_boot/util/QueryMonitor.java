@@ -0,0 +1,414 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import com.y_lab.car_shop_spring_boot.dto.QueryReportDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Мониторинг SQL-запросов на уровне JDBC: время выполнения, медленные запросы с планом выполнения и признаки N+1.
+ * <p>
+ * Метод {@link #wrap(DataSource)} оборачивает источник соединений так, что каждый запрос проходит через
+ * этот слушатель (библиотека datasource-proxy). Время выполнения записывается в таймер Micrometer
+ * {@code jdbc.statements} с тегом типа запроса ({@code select}, {@code insert}, {@code update}, {@code delete},
+ * {@code other}) и в статистику по тексту запроса. Запрос, выполнявшийся дольше {@code slowThreshold}, записывается
+ * в журнал и в счётчик {@code jdbc.statements.slow}, а его план выполнения запрашивается у PostgreSQL
+ * в фоновом потоке: {@code EXPLAIN (ANALYZE, BUFFERS)} для {@code SELECT} без блокировки строк и {@code EXPLAIN}
+ * для остальных запросов, которые иначе выполнились бы повторно. План запрашивается в отдельной транзакции,
+ * которая откатывается, с ограничением времени {@code explainTimeout}, не чаще одного раза в
+ * {@code explainInterval} для одного запроса; если фоновый поток занят, план не запрашивается.
+ * </p>
+ *
+ * <p>
+ * Методы {@link #beginRequest()} и {@link #endRequest(String)} вызываются {@link QueryCountFilter} в начале и в конце
+ * HTTP-запроса и считают SQL-запросы, выполненные в потоке запроса. Запрос, выполненный в одном HTTP-запросе
+ * {@code nPlusOneThreshold} и более раз, — признак загрузки связанных объектов по одному (N+1); он записывается
+ * в журнал при первом обнаружении и в отчёт {@link #report(int)}.
+ * </p>
+ *
+ * <p>
+ * Статистика хранится для не более чем {@code maxQueries} различных запросов и HTTP-запросов; после этого новые
+ * запросы учитываются только в метриках Micrometer.
+ * </p>
+ */
+@Slf4j
+public class QueryMonitor implements QueryExecutionListener, MeterBinder, DisposableBean {
+    private static final String STARTED_AT = QueryMonitor.class.getName() + ".startedAt";
+    private static final Pattern LOCKING_CLAUSE =
+            Pattern.compile("\\bfor\\s+(update|share|no\\s+key\\s+update|key\\s+share)\\b");
+    private static final ThreadLocal<RequestQueries> REQUEST = new ThreadLocal<>();
+
+    /**
+     * Способ получения плана медленного запроса.
+     */
+    public enum Explain {
+        OFF, PLAN, ANALYZE
+    }
+
+    private final long slowThresholdNanos;
+    private final Explain explain;
+    private final long explainIntervalNanos;
+    private final Duration explainTimeout;
+    private final int nPlusOneThreshold;
+    private final int maxQueries;
+    private final Map<String, QueryStats> queries = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, RepeatedStats> repeated = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor;
+    private volatile DataSource explainDataSource;
+    private volatile Boolean postgres;
+    private volatile Map<QueryType, Timer> timers = Map.of();
+    private volatile Counter slowCounter;
+
+    public QueryMonitor(Duration slowThreshold, Explain explain, Duration explainInterval, Duration explainTimeout,
+                        int nPlusOneThreshold, int maxQueries) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.explain = explain;
+        this.explainIntervalNanos = explainInterval.toNanos();
+        this.explainTimeout = explainTimeout;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.maxQueries = maxQueries;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Возвращает источник соединений, запросы через который учитываются этим монитором. Метаданные и
+     * {@code unwrap} относятся к исходному источнику, планы запросов запрашиваются через него же.
+     */
+    public DataSource wrap(DataSource dataSource) {
+        explainDataSource = dataSource;
+        final ProxyDataSource proxy = ProxyDataSourceBuilder.create(dataSource).listener(this).build();
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return proxy.getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return proxy.getConnection(username, password);
+            }
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        final Map<QueryType, Timer> typeTimers = new EnumMap<>(QueryType.class);
+        for (QueryType type : QueryType.values()) {
+            typeTimers.put(type, Timer.builder("jdbc.statements")
+                    .description("JDBC statement execution time")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        timers = typeTimers;
+        slowCounter = Counter.builder("jdbc.statements.slow")
+                .description("JDBC statements slower than query-monitor.slow-threshold")
+                .register(registry);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        final Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+        if (startedAt == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        final long elapsed = (System.nanoTime() - startedAt) / queryInfoList.size();
+        final RequestQueries request = REQUEST.get();
+        for (QueryInfo queryInfo : queryInfoList) {
+            final String sql = queryInfo.getQuery();
+            final Timer timer = timers.get(QueryUtils.getQueryType(sql));
+            if (timer != null) {
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+            if (request != null) {
+                request.add(sql);
+            }
+            final QueryStats stats = stats(queries, sql, key -> new QueryStats());
+            if (stats != null) {
+                stats.record(elapsed);
+            }
+            if (elapsed >= slowThresholdNanos) {
+                slow(sql, elapsed, stats, execInfo.isBatch() ? null : queryInfo.getParametersList());
+            }
+        }
+    }
+
+    /**
+     * Начинает подсчёт SQL-запросов HTTP-запроса в текущем потоке.
+     */
+    public void beginRequest() {
+        REQUEST.set(new RequestQueries());
+    }
+
+    /**
+     * Завершает подсчёт SQL-запросов HTTP-запроса в текущем потоке и учитывает его под именем {@code endpoint}.
+     */
+    public void endRequest(String endpoint) {
+        final RequestQueries request = REQUEST.get();
+        REQUEST.remove();
+        if (request == null) {
+            return;
+        }
+        final EndpointStats endpointStats = stats(endpoints, endpoint, key -> new EndpointStats());
+        if (endpointStats != null) {
+            endpointStats.record(request.total);
+        }
+        request.counts.forEach((sql, count) -> {
+            if (count.get() < nPlusOneThreshold) {
+                return;
+            }
+            final RepeatedStats repeatedStats = stats(repeated, endpoint + '\n' + sql,
+                    key -> new RepeatedStats(endpoint, sql));
+            if (repeatedStats != null && repeatedStats.record(count.get())) {
+                log.warn("Possible N+1 in {}: statement executed {} times: {}", endpoint, count.get(), sql);
+            }
+        });
+    }
+
+    /**
+     * Возвращает отчёт: не более {@code limit} запросов с наибольшим суммарным временем, повторяющихся запросов
+     * и HTTP-запросов с наибольшим количеством SQL-запросов.
+     */
+    public QueryReportDTO report(int limit) {
+        final List<QueryReportDTO.Statement> statements = queries.entrySet().stream()
+                .map(entry -> entry.getValue().toDTO(entry.getKey()))
+                .sorted(Comparator.comparingDouble(QueryReportDTO.Statement::getTotalMillis).reversed())
+                .limit(limit)
+                .toList();
+        final List<QueryReportDTO.NPlusOne> repeatedStatements = repeated.values().stream()
+                .map(RepeatedStats::toDTO)
+                .sorted(Comparator.comparingLong(QueryReportDTO.NPlusOne::getOccurrences).reversed()
+                        .thenComparing(Comparator.comparingInt(QueryReportDTO.NPlusOne::getMaxRepetitions).reversed()))
+                .limit(limit)
+                .toList();
+        final List<QueryReportDTO.Endpoint> endpointStatements = endpoints.entrySet().stream()
+                .map(entry -> entry.getValue().toDTO(entry.getKey()))
+                .sorted(Comparator.comparingInt(QueryReportDTO.Endpoint::getMaxStatements).reversed())
+                .limit(limit)
+                .toList();
+        return new QueryReportDTO(statements, repeatedStatements, endpointStatements);
+    }
+
+    /**
+     * Удаляет накопленную статистику; метрики Micrometer не сбрасываются.
+     */
+    public void reset() {
+        queries.clear();
+        endpoints.clear();
+        repeated.clear();
+    }
+
+    @Override
+    public void destroy() {
+        explainExecutor.shutdownNow();
+    }
+
+    private void slow(String sql, long elapsed, QueryStats stats, List<List<ParameterSetOperation>> parameters) {
+        final Counter counter = slowCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        log.warn("Slow statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(elapsed), sql);
+        if (stats == null) {
+            return;
+        }
+        stats.slow.increment();
+        if (explain == Explain.OFF || parameters == null || parameters.size() > 1
+                || !stats.claimExplain(System.nanoTime(), explainIntervalNanos)) {
+            return;
+        }
+        final List<ParameterSetOperation> operations = parameters.isEmpty() ? List.of() : parameters.get(0);
+        explainExecutor.execute(() -> captureExplain(sql, operations, stats));
+    }
+
+    private void captureExplain(String sql, List<ParameterSetOperation> operations, QueryStats stats) {
+        final String normalized = sql.stripLeading().toLowerCase(Locale.ROOT);
+        final boolean select = normalized.startsWith("select");
+        if (!(select || normalized.startsWith("insert") || normalized.startsWith("update")
+                || normalized.startsWith("delete"))
+                || operations.stream().anyMatch(ParameterSetOperation::isRegisterOutParameterOperation)) {
+            return;
+        }
+        final boolean analyze = explain == Explain.ANALYZE && select && !LOCKING_CLAUSE.matcher(normalized).find();
+        final DataSource dataSource = explainDataSource;
+        try (Connection connection = dataSource.getConnection()) {
+            if (!isPostgres(connection)) {
+                return;
+            }
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement timeout = connection.createStatement()) {
+                    timeout.execute("SET LOCAL statement_timeout = " + explainTimeout.toMillis());
+                }
+                try (PreparedStatement statement = connection.prepareStatement(
+                        (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + sql)) {
+                    for (ParameterSetOperation operation : operations) {
+                        operation.getMethod().invoke(statement, operation.getArgs());
+                    }
+                    final StringBuilder plan = new StringBuilder();
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            plan.append(resultSet.getString(1)).append('\n');
+                        }
+                    }
+                    stats.plan = plan.toString();
+                    log.warn("Plan of slow statement {}:\n{}", sql, stats.plan);
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not explain statement {}", sql, e);
+        }
+    }
+
+    private boolean isPostgres(Connection connection) throws SQLException {
+        Boolean result = postgres;
+        if (result == null) {
+            result = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            postgres = result;
+        }
+        return result;
+    }
+
+    private <T> T stats(Map<String, T> map, String key, Function<String, T> factory) {
+        final T stats = map.get(key);
+        if (stats != null || map.size() >= maxQueries) {
+            return stats;
+        }
+        return map.computeIfAbsent(key, factory);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * SQL-запросы одного HTTP-запроса; используется только потоком этого запроса.
+     */
+    private static final class RequestQueries {
+        private final Map<String, AtomicInteger> counts = new HashMap<>();
+        private int total;
+
+        private void add(String sql) {
+            total++;
+            counts.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    private static final class QueryStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder slow = new LongAdder();
+        private final AtomicLong explainedAt = new AtomicLong();
+        private volatile String plan;
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private boolean claimExplain(long now, long intervalNanos) {
+            final long last = explainedAt.get();
+            return (last == 0 || now - last >= intervalNanos) && explainedAt.compareAndSet(last, now);
+        }
+
+        private QueryReportDTO.Statement toDTO(String sql) {
+            final long executions = count.sum();
+            final long total = totalNanos.sum();
+            return new QueryReportDTO.Statement(sql, executions, millis(total),
+                    executions == 0 ? 0 : millis(total / executions), millis(maxNanos.get()), slow.sum(), plan);
+        }
+    }
+
+    private static final class EndpointStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final AtomicInteger maxStatements = new AtomicInteger();
+
+        private void record(int count) {
+            requests.increment();
+            statements.add(count);
+            maxStatements.accumulateAndGet(count, Math::max);
+        }
+
+        private QueryReportDTO.Endpoint toDTO(String endpoint) {
+            final long total = requests.sum();
+            return new QueryReportDTO.Endpoint(endpoint, total,
+                    total == 0 ? 0 : (double) statements.sum() / total, maxStatements.get());
+        }
+    }
+
+    private static final class RepeatedStats {
+        private final String endpoint;
+        private final String sql;
+        private final LongAdder occurrences = new LongAdder();
+        private final AtomicInteger maxRepetitions = new AtomicInteger();
+
+        private RepeatedStats(String endpoint, String sql) {
+            this.endpoint = endpoint;
+            this.sql = sql;
+        }
+
+        /**
+         * Учитывает повторения запроса и возвращает {@code true} при первом обнаружении.
+         */
+        private boolean record(int repetitions) {
+            occurrences.increment();
+            return maxRepetitions.getAndAccumulate(repetitions, Math::max) == 0;
+        }
+
+        private QueryReportDTO.NPlusOne toDTO() {
+            return new QueryReportDTO.NPlusOne(endpoint, sql, occurrences.sum(), maxRepetitions.get());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Фильтр, ограничивающий частоту запросов каждого клиента к заданным маршрутам алгоритмом token bucket.
+ * <p>
+ * Клиент определяется {@link ClientKeyResolver}: аутентифицированным пользователем, зарегистрированным ключом API
+ * или адресом клиента. Незарегистрированный ключ API не учитывается, поэтому новый ключ в каждом запросе не даёт
+ * новой корзины. Для каждого маршрута ({@link Route}: метод, шаблон пути,
+ * ёмкость корзины и скорость пополнения) у каждого клиента своя корзина; к запросу применяется первый подходящий
+ * маршрут, запросы, не подходящие ни к одному маршруту, и запросы к {@code /actuator} не ограничиваются. Запрос,
+ * для которого в корзине нет маркера, получает ответ 429 (Too Many Requests) с заголовком {@code Retry-After}
+ * и учитывается метрикой {@value #THROTTLED_METRIC} с тегом {@code route}.
+ * </p>
+ *
+ * <p>
+ * Корзина хранится одним {@link AtomicLong} в форме GCRA: вместо количества маркеров и времени последнего
+ * пополнения хранится момент, когда корзина снова станет полной. Запрос сдвигает этот момент на интервал одного
+ * маркера одной операцией {@code compareAndSet}, поэтому проверка не требует блокировок, а корзины разных клиентов
+ * не мешают друг другу. Корзины маршрута хранятся в кэше Caffeine, ограниченном {@code maxClients} корзинами
+ * и удаляющем корзину, к которой не обращались дольше времени её полного пополнения: такая корзина полна и не
+ * отличается от отсутствующей. Поэтому память не растёт с количеством клиентов; при переполнении кэша вытесняется
+ * корзина, к которой дольше всего не обращались, и её клиент получает полную корзину.
+ * </p>
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    public static final String THROTTLED_METRIC = "http.server.requests.throttled";
+    private static final String ACTUATOR_PATH = "/actuator";
+
+    private final List<Limiter> limiters;
+    private final ClientKeyResolver clientKeyResolver;
+    private final LongSupplier nanoClock;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    public RateLimitFilter(ClientKeyResolver clientKeyResolver, List<Route> routes, long maxClients,
+                           MeterRegistry registry) {
+        this(clientKeyResolver, routes, maxClients, registry, System::nanoTime);
+    }
+
+    RateLimitFilter(ClientKeyResolver clientKeyResolver, List<Route> routes, long maxClients, MeterRegistry registry,
+                    LongSupplier nanoClock) {
+        this.clientKeyResolver = clientKeyResolver;
+        this.nanoClock = nanoClock;
+        this.limiters = routes.stream().map(route -> new Limiter(route, maxClients, registry, nanoClock)).toList();
+        routes.forEach(route -> log.info("Rate limit {}: {} {} capacity {}, {} per second",
+                route.name(), route.method() == null ? "*" : route.method(), route.path(),
+                route.capacity(), route.refillPerSecond()));
+    }
+
+    /**
+     * Возвращает количество корзин клиентов по всем маршрутам.
+     */
+    public long getBucketCount() {
+        return limiters.stream().mapToLong(limiter -> {
+            limiter.buckets.cleanUp();
+            return limiter.buckets.estimatedSize();
+        }).sum();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + ACTUATOR_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Limiter limiter = match(request);
+        if (limiter != null) {
+            long waitNanos = limiter.acquire(clientKeyResolver.resolve(request), nanoClock.getAsLong());
+            if (waitNanos > 0) {
+                limiter.throttled.increment();
+                response.setHeader(HttpHeaders.RETRY_AFTER,
+                        Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Limiter match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Limiter limiter : limiters) {
+            Route route = limiter.route;
+            if ((route.method() == null || route.method().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(route.path(), path)) {
+                return limiter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Маршрут с ограничением частоты запросов.
+     *
+     * @param name            имя маршрута, значение тега {@code route} метрики
+     * @param method          HTTP-метод или {@code null} для любого метода
+     * @param path            шаблон пути в формате {@link AntPathMatcher}, например {@code /cars/**}
+     * @param capacity        ёмкость корзины - сколько запросов клиент может выполнить подряд
+     * @param refillPerSecond сколько маркеров добавляется в корзину в секунду
+     */
+    public record Route(String name, String method, String path, int capacity, double refillPerSecond) {
+        public Route {
+            if (!StringUtils.hasText(path)) {
+                throw new IllegalArgumentException("Rate limit path must not be empty: " + name);
+            }
+            if (capacity < 1 || !(refillPerSecond > 0)) {
+                throw new IllegalArgumentException("Rate limit capacity and refill rate must be positive: " + name);
+            }
+        }
+    }
+
+    private static final class Limiter {
+        private final Route route;
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Cache<String, AtomicLong> buckets;
+        private final Counter throttled;
+
+        private Limiter(Route route, long maxClients, MeterRegistry registry, LongSupplier nanoClock) {
+            this.route = route;
+            this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / route.refillPerSecond()));
+            this.burstNanos = intervalNanos * route.capacity();
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxClients)
+                    .expireAfterAccess(burstNanos, TimeUnit.NANOSECONDS)
+                    .ticker(nanoClock::getAsLong)
+                    .build();
+            this.throttled = Counter.builder(THROTTLED_METRIC)
+                    .description("Requests rejected by the rate limit")
+                    .tag("route", route.name() == null ? route.path() : route.name())
+                    .register(registry);
+        }
+
+        /**
+         * Забирает маркер из корзины клиента.
+         *
+         * @return 0, если маркер получен, иначе время в наносекундах до появления маркера
+         */
+        private long acquire(String client, long now) {
+            AtomicLong bucket = buckets.getIfPresent(client);
+            if (bucket == null) {
+                bucket = buckets.get(client, key -> new AtomicLong(now));
+            }
+            while (true) {
+                long full = bucket.get();
+                long next = (full - now > 0 ? full : now) + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (bucket.compareAndSet(full, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
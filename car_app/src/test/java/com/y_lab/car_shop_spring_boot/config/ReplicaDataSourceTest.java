@@ -0,0 +1,151 @@
+package com.y_lab.car_shop_spring_boot.config;
+
+import com.y_lab.car_shop_spring_boot.util.ClientKeyResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaDataSourceTest {
+    private final CountingDataSource primary = new CountingDataSource();
+    private final CountingDataSource first = new CountingDataSource();
+    private final CountingDataSource second = new CountingDataSource();
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Connections are balanced between replicas")
+    void balancesReplicas() throws Exception {
+        ReplicaDataSource replicas = new ReplicaDataSource(List.of(first, second), primary, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            replicas.getConnection();
+        }
+
+        assertThat(first.connections).isEqualTo(2);
+        assertThat(second.connections).isEqualTo(2);
+        assertThat(primary.connections).isZero();
+    }
+
+    @Test
+    @DisplayName("Unavailable replica is skipped until retry interval passes, primary is used when all replicas are down")
+    void fallsBackToPrimary() throws Exception {
+        first.down = true;
+        ReplicaDataSource replicas = new ReplicaDataSource(List.of(first, second), primary, Duration.ofMinutes(1));
+
+        replicas.getConnection();
+        replicas.getConnection();
+        assertThat(first.attempts).isEqualTo(1);
+        assertThat(second.connections).isEqualTo(2);
+        assertThat(replicas.getAvailableReplicas()).isEqualTo(1);
+
+        second.down = true;
+        replicas.getConnection();
+        assertThat(primary.connections).isEqualTo(1);
+        assertThat(replicas.getAvailableReplicas()).isZero();
+    }
+
+    @Test
+    @DisplayName("Replica is used again after retry interval")
+    void retriesReplica() throws Exception {
+        first.down = true;
+        ReplicaDataSource replicas = new ReplicaDataSource(List.of(first), primary, Duration.ZERO);
+
+        replicas.getConnection();
+        first.down = false;
+        replicas.getConnection();
+
+        assertThat(primary.connections).isEqualTo(1);
+        assertThat(first.connections).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Request that wrote in a read-write transaction reads from primary")
+    void readsOwnWritesFromPrimary() throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        ReplicaDataSource replicas = new ReplicaDataSource(List.of(first), primary, Duration.ofMinutes(1));
+
+        replicas.getConnection();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            replicas.primary(primary).getConnection();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        replicas.getConnection();
+
+        assertThat(first.connections).isEqualTo(1);
+        assertThat(primary.connections).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Client that wrote reads from primary in later requests until sticky window passes")
+    void readsOwnWritesFromPrimaryInLaterRequests() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        ReplicaDataSource replicas = new ReplicaDataSource(List.of(first), primary, Duration.ofMinutes(1),
+                new ClientKeyResolver("X-API-Key", List.of()), Duration.ofSeconds(5), 100, clock::get);
+
+        startRequest("10.0.0.1");
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            replicas.primary(primary).getConnection();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        startRequest("10.0.0.1");
+        replicas.getConnection();
+        startRequest("10.0.0.2");
+        replicas.getConnection();
+        assertThat(primary.connections).isEqualTo(2);
+        assertThat(first.connections).isEqualTo(1);
+
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        startRequest("10.0.0.1");
+        replicas.getConnection();
+        assertThat(first.connections).isEqualTo(2);
+    }
+
+    private static void startRequest(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static class CountingDataSource extends AbstractDataSource {
+        private boolean down;
+        private int attempts;
+        private int connections;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts++;
+            if (down) {
+                throw new SQLTransientConnectionException("Connection is not available");
+            }
+            connections++;
+            return null;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
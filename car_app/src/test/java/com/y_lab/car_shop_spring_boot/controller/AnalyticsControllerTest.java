@@ -0,0 +1,94 @@
+package com.y_lab.car_shop_spring_boot.controller;
+
+import com.y_lab.car_shop_spring_boot.service.OrderService;
+import com.y_lab.car_shop_spring_boot.service.SalesAnalyticsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Тестовый класс для проверки работы {@link AnalyticsController} с использованием Spring Boot Test.
+ * <p>
+ * Этот класс содержит тесты для проверки итогов продаж:
+ * - По брендам в порядке убывания выручки
+ * - По месяцам без учёта отменённых заказов
+ * - По статусам заказов
+ * - После отмены заказа и пересчёта сводки
+ * </p>
+ * <p>
+ * Сводка строится по тестовым данным Liquibase: четыре заказа автомобилей BMW, Volvo, Volvo и Audi.
+ * Пересчёт в тесте выполняется в транзакции теста и откатывается вместе с ней.
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Тестирование AnalyticsController")
+class AnalyticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesAnalyticsService analyticsService;
+
+    @Test
+    @DisplayName("Проверка итогов продаж по брендам")
+    void getSalesByBrand() throws Exception {
+        mockMvc.perform(get("/analytics/sales/by-brand"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].brand").value("Volvo"))
+                .andExpect(jsonPath("$[0].orders").value(2))
+                .andExpect(jsonPath("$[0].revenue").value(42500))
+                .andExpect(jsonPath("$[0].month").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Проверка итогов продаж по месяцам")
+    void getSalesByMonth() throws Exception {
+        mockMvc.perform(get("/analytics/sales/by-month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].month").value("2024-07-01"))
+                .andExpect(jsonPath("$[0].orders").value(1))
+                .andExpect(jsonPath("$[1].month").value("2024-08-01"))
+                .andExpect(jsonPath("$[1].orders").value(3))
+                .andExpect(jsonPath("$[1].revenue").value(62000.8));
+    }
+
+    @Test
+    @DisplayName("Проверка итогов продаж по статусам")
+    void getSalesByStatus() throws Exception {
+        mockMvc.perform(get("/analytics/sales/by-status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value("заказ оформлен"))
+                .andExpect(jsonPath("$[0].orders").value(2));
+    }
+
+    @Test
+    @DisplayName("Проверка итогов продаж после отмены заказа и пересчёта сводки")
+    void getSalesAfterRefresh() throws Exception {
+        orderService.canceled(2);
+        analyticsService.refresh();
+
+        mockMvc.perform(get("/analytics/sales/by-brand"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].brand").value("BMW"))
+                .andExpect(jsonPath("$[?(@.brand == 'Volvo')].orders").value(1));
+        mockMvc.perform(get("/analytics/sales/by-status"))
+                .andExpect(jsonPath("$[?(@.status == 'cancelled')].revenue").value(17500.0));
+    }
+}
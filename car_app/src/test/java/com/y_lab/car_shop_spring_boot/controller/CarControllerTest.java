@@ -1,17 +1,30 @@
 package com.y_lab.car_shop_spring_boot.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.y_lab.car_shop_spring_boot.dao.CarRepository;
 import com.y_lab.car_shop_spring_boot.dto.CarDTO;
+import com.y_lab.car_shop_spring_boot.util.IdempotencyFilter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -19,11 +32,21 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Тестовый класс для проверки работы {@link CarController} с использованием Spring Boot Test.
  * <p>
  * Этот класс включает в себя тесты для проверки различных операций с автомобилями через контроллер:
- * - Получение списка всех автомобилей
+ * - Получение списка всех автомобилей, в том числе в формате CBOR
+ * - Постраничное получение автомобилей по курсору
+ * - Потоковое получение автомобилей в формате NDJSON
  * - Фильтрация автомобилей по бренду
+ * - Составной поиск автомобилей по диапазонам цены и года выпуска
+ * - Подсчёт фасетов каталога
  * - Получение автомобиля по идентификатору
+ * - Запись таймера вызовов метода сервиса в метрики Actuator
  * - Создание нового автомобиля
- * - Обновление существующего автомобиля
+ * - Повтор создания автомобиля с тем же заголовком Idempotency-Key без повторной вставки
+ * - Выполнение запросов разных клиентов с одинаковым Idempotency-Key без обмена ответами
+ * - Импорт автомобилей из CSV с полями в кавычках и отчётом об ошибках по строкам
+ * - Обновление существующего автомобиля, в том числе с заголовком If-Match
+ * - Ответ 304 на условные запросы с заголовком If-None-Match
+ * - Ответ на условный запрос закэшированного автомобиля без обращения к базе данных
  * - Удаление автомобиля
  * </p>
  * <p>
@@ -47,6 +70,12 @@ class CarControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("Проверка получения всех автомобилей")
         void getAll() throws Exception {
@@ -56,7 +85,52 @@ class CarControllerTest {
                 .andExpect(content().string(containsString("BMW")))
                 .andExpect(content().string(containsString("Audi")))
                 .andExpect(content().string(containsString("Volvo")))
-                .andExpect(jsonPath("$.length()").value(5));
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].carId").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Проверка получения всех автомобилей в формате CBOR")
+    void getAllCbor() throws Exception {
+        MvcResult result = mockMvc.perform(get("/cars").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        List<CarDTO> cars = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(),
+                new TypeReference<List<CarDTO>>() {
+                });
+        assertThat(cars).hasSize(5)
+                .extracting(CarDTO::getBrand)
+                .contains("BMW", "Audi", "Volvo");
+    }
+
+    @Test
+    @DisplayName("Проверка постраничного получения автомобилей по курсору")
+    void getAllPaged() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/cars").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andReturn();
+        String cursor = firstPage.getResponse().getHeader("X-Next-Cursor");
+        mockMvc.perform(get("/cars").param("limit", "3").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(content().string(not(containsString("BMW"))))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @DisplayName("Проверка потокового получения автомобилей в формате NDJSON")
+    void streamAll() throws Exception {
+        MvcResult result = mockMvc.perform(get("/cars").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("{\"brand\":\"BMW\"")))
+                .andExpect(content().string(containsString("\n{\"brand\":\"Volvo\"")));
     }
 
     @Test
@@ -69,6 +143,36 @@ class CarControllerTest {
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    @DisplayName("Проверка составного поиска автомобилей с сортировкой по цене")
+    void search() throws Exception {
+        mockMvc.perform(get("/cars/search")
+                        .param("brand", "Volvo")
+                        .param("priceMin", "10000")
+                        .param("priceMax", "20000")
+                        .param("yearMin", "2020")
+                        .param("sort", "price,desc"))
+                .andExpect(content().contentType("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].model").value("S40"))
+                .andExpect(jsonPath("$.page.totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Проверка подсчёта фасетов каталога с фильтром по бренду")
+    void facets() throws Exception {
+        mockMvc.perform(get("/cars/facets")
+                        .param("brand", "Volvo")
+                        .param("yearBucket", "10"))
+                .andExpect(content().contentType("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.brands.Volvo").value(2))
+                .andExpect(jsonPath("$.brands.BMW").value(1))
+                .andExpect(jsonPath("$.conditions.good").value(2));
+    }
+
     @Test
     @DisplayName("Проверка получения автомобиля по идентификатору")
     void getById() throws Exception {
@@ -78,6 +182,59 @@ class CarControllerTest {
                 .andExpect(content().string(containsString("BMW")));
     }
 
+    @Test
+    @DisplayName("Проверка условного запроса закэшированного автомобиля без запросов к базе данных")
+    void getNotModifiedFromCache() throws Exception {
+        String etag = mockMvc.perform(get("/cars/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get("/cars/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка ответа 304 на условный запрос автомобиля и страницы автомобилей")
+    void getNotModified() throws Exception {
+        mockMvc.perform(get("/cars/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+        String etag = mockMvc.perform(get("/cars").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/cars").param("limit", "3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(put("/cars/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CarDTO("Volvo", "S60", 2020, 18000, "good"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/cars").param("limit", "3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    @DisplayName("Проверка записи времени выполнения метода сервиса в метрики")
+    void serviceMethodMetrics() throws Exception {
+        mockMvc.perform(get("/cars/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/service.method")
+                        .param("tag", "class:CarServiceJpa")
+                        .param("tag", "method:getById"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value").isNotEmpty());
+    }
+
     @Test
     @DisplayName("Проверка создания и удаления автомобиля")
     void createAndDeleteCar() throws Exception {
@@ -89,6 +246,84 @@ class CarControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    @DisplayName("Проверка повтора создания автомобиля с тем же Idempotency-Key")
+    void createCarWithIdempotencyKey() throws Exception {
+        String carJson = objectMapper.writeValueAsString(new CarDTO("Toyota", "Corolla", 2021, 12000, "new"));
+        long count = carRepository.count();
+        byte[] created = mockMvc.perform(post("/cars")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "car-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(carJson))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        mockMvc.perform(post("/cars")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "car-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(carJson))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().bytes(created));
+        assertThat(carRepository.count()).isEqualTo(count + 1);
+    }
+
+    @Test
+    @DisplayName("Проверка независимости Idempotency-Key разных клиентов")
+    void idempotencyKeyIsScopedToClient() throws Exception {
+        String carJson = objectMapper.writeValueAsString(new CarDTO("Skoda", "Octavia", 2022, 14000, "new"));
+        long count = carRepository.count();
+        mockMvc.perform(post("/cars")
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.1");
+                            return request;
+                        })
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "shared-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(carJson))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/cars")
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.2");
+                            return request;
+                        })
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "shared-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(carJson))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        assertThat(carRepository.count()).isEqualTo(count + 2);
+    }
+
+    @Test
+    @DisplayName("Проверка импорта автомобилей из CSV")
+    void importCsv() throws Exception {
+        String csv = """
+                brand,model,year,price,condition
+                Toyota,Camry,2022,15888,good
+                Kia,Rio,2031,9000,new
+                Haval,Jolion,2023,abc,new
+                Lada,Vesta,2021,12000,used
+                "Mercedes","GLE 350d, AMG",2020,70000,new
+                Audi,"A6 ""Allroad"",2019,30000,used
+                """;
+        mockMvc.perform(post("/cars/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(content().contentType("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[1].line").value(4))
+                .andExpect(jsonPath("$.errors[2].line").value(7))
+                .andExpect(jsonPath("$.errors[2].message").value(containsString("quoted field")));
+        mockMvc.perform(get("/cars/search").param("brand", "Mercedes"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("GLE 350d, AMG")));
+    }
+
     @Test
     @DisplayName("Проверка обновления автомобиля")
     void update() throws Exception {
@@ -101,6 +336,23 @@ class CarControllerTest {
                 .andExpect(content().string(containsString("Haval")));
     }
 
+    @Test
+    @DisplayName("Проверка обновления автомобиля с заголовком If-Match")
+    void updateIfMatch() throws Exception {
+        String carJson = objectMapper.writeValueAsString(new CarDTO("Haval", "3000", 2007, 15888, "new"));
+        mockMvc.perform(put("/cars/3")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(carJson))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(put("/cars/3")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(carJson))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("Проверка удаления автомобиля")
     void deleteCar() throws Exception {
@@ -1,18 +1,24 @@
 package com.y_lab.car_shop_spring_boot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateDTO;
 import com.y_lab.car_shop_spring_boot.dto.OrderDTO;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import com.y_lab.car_shop_spring_boot.util.IdempotencyFilter;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,8 +31,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * - Фильтрация заказов по статусу
  * - Получение заказа по идентификатору
  * - Создание нового заказа
+ * - Статус нового заказа: по умолчанию "заказ оформлен", другой начальный статус отклоняется с ответом 400
+ * - Повтор создания заказа с тем же заголовком Idempotency-Key без повторной вставки
  * - Изменение статуса заказа
  * - Установка статуса заказа в "отменён"
+ * - Изменение статуса заказа с проверкой версии и ответ 409 при устаревшей версии
+ * - Ответ 409 при недопустимом переходе статуса и 400 при неизвестном статусе
+ * - Массовое изменение статуса по идентификаторам и массовая отмена по фильтру
+ * - Ответ 409 на массовое изменение в статус, в который не допускается переход
  * </p>
  * <p>
  * Тесты выполняются с использованием {@link MockMvc} для имитации HTTP-запросов и проверок ответов.
@@ -80,10 +92,24 @@ class OrderControllerTest {
                 .andExpect(content().string(containsString("2024-08-12")));
     }
 
+    @Test
+    @DisplayName("Проверка ответа 304 на условный запрос заказа после изменения статуса")
+    void getByIdNotModified() throws Exception {
+        mockMvc.perform(get("/orders/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(put("/orders/change-status")
+                        .param("id", "1")
+                        .param("status", "в пути"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/orders/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
     @Test
     @DisplayName("Проверка создания нового заказа")
     void create() throws Exception {
-        OrderDTO orderDTO = new OrderDTO(4, 1, LocalDate.parse("2024-08-12"), "заказ оформлен");
+        OrderDTO orderDTO = new OrderDTO(4, 1, LocalDate.parse("2024-08-12"), OrderStatus.CREATED);
         String orderJson = objectMapper.writeValueAsString(orderDTO);
         mockMvc.perform(post("/orders")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -91,6 +117,52 @@ class OrderControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    @DisplayName("Проверка статуса нового заказа: по умолчанию 'заказ оформлен', другой статус отклоняется")
+    void createWithInitialStatus() throws Exception {
+        mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": 4, \"carId\": 1, \"date\": \"2024-08-12\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value(OrderStatus.CREATED.toString()));
+        for (OrderStatus initialStatus : List.of(OrderStatus.ISSUED, OrderStatus.CANCELLED)) {
+            mockMvc.perform(post("/orders")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new OrderDTO(4, 1, LocalDate.parse("2024-08-12"), initialStatus))))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка повтора создания заказа с тем же Idempotency-Key")
+    void createWithIdempotencyKey() throws Exception {
+        String orderJson = objectMapper.writeValueAsString(
+                new OrderDTO(4, 1, LocalDate.parse("2024-08-12"), OrderStatus.CREATED));
+        byte[] created = mockMvc.perform(post("/orders")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "order-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        mockMvc.perform(post("/orders")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "order-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().bytes(created));
+
+        mockMvc.perform(post("/orders")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "order-retry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new OrderDTO(3, 1, LocalDate.parse("2024-08-12"), OrderStatus.CREATED))))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     @DisplayName("Проверка изменения статуса заказа на 'отменен'")
     void canceled() throws Exception {
@@ -104,7 +176,88 @@ class OrderControllerTest {
     void changeStatus() throws Exception {
         mockMvc.perform(put("/orders/change-status")
                         .param("id", "2")
-                        .param("status", "выдано"))
+                        .param("status", "выдан"))
                 .andExpect(status().isCreated());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Проверка изменения статуса заказа с проверкой версии и конфликта устаревшей версии")
+    void changeStatusWithVersion() throws Exception {
+        mockMvc.perform(put("/orders/change-status")
+                        .param("id", "2")
+                        .param("status", "выдан")
+                        .param("version", "0"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value("выдан"))
+                .andExpect(jsonPath("$.version").value(1));
+        mockMvc.perform(put("/orders/canceled")
+                        .param("id", "2")
+                        .param("version", "0"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Проверка недопустимого перехода статуса заказа и неизвестного статуса")
+    void changeStatusInvalid() throws Exception {
+        mockMvc.perform(put("/orders/change-status")
+                        .param("id", "4")
+                        .param("status", "заказ оформлен"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/orders/change-status")
+                        .param("id", "4")
+                        .param("status", "потерян"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/orders/4"))
+                .andExpect(jsonPath("$.status").value("в пути"))
+                .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    @DisplayName("Проверка массового изменения статуса заказов по идентификаторам")
+    void bulkChangeStatus() throws Exception {
+        OrderBulkUpdateDTO request = new OrderBulkUpdateDTO(List.of(1, 2, 2, 999), null, null, null, OrderStatus.IN_TRANSIT);
+        mockMvc.perform(put("/orders/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+        mockMvc.perform(get("/orders/filter/status/в пути"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(put("/orders/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"в пути\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Проверка ответа 409 на массовое изменение в статус, в который не допускается переход")
+    void bulkChangeStatusToUnreachableStatus() throws Exception {
+        OrderBulkUpdateDTO request = new OrderBulkUpdateDTO(List.of(2, 4), null, null, null, OrderStatus.CREATED);
+        mockMvc.perform(put("/orders/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(result -> assertThat(result.getResolvedException())
+                        .hasMessageContaining("'" + OrderStatus.CREATED + "'"));
+        mockMvc.perform(get("/orders/4"))
+                .andExpect(jsonPath("$.status").value("в пути"))
+                .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    @DisplayName("Проверка массовой отмены заказов по статусу и диапазону дат")
+    void bulkCanceled() throws Exception {
+        OrderBulkUpdateDTO request = new OrderBulkUpdateDTO(null, OrderStatus.CREATED, null, LocalDate.parse("2024-08-01"), null);
+        mockMvc.perform(put("/orders/bulk/canceled")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+        mockMvc.perform(get("/orders/3"))
+                .andExpect(jsonPath("$.status").value("cancelled"))
+                .andExpect(jsonPath("$.version").value(1));
+        mockMvc.perform(get("/orders/1"))
+                .andExpect(jsonPath("$.status").value("заказ оформлен"));
+    }
+}
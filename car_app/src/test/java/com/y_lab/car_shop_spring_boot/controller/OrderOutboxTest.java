@@ -0,0 +1,156 @@
+package com.y_lab.car_shop_spring_boot.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y_lab.car_shop_spring_boot.dto.OrderBulkUpdateDTO;
+import com.y_lab.car_shop_spring_boot.dao.OrderEventRepository;
+import com.y_lab.car_shop_spring_boot.dto.OrderEventDTO;
+import com.y_lab.car_shop_spring_boot.model.OrderEvent;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
+import com.y_lab.car_shop_spring_boot.service.jpa.OrderOutboxRelay;
+import com.y_lab.car_shop_spring_boot.service.sink.InMemoryOrderEventSink;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тестовый класс для проверки записи и доставки событий заказов через таблицу исходящих событий.
+ * <p>
+ * Этот класс содержит тесты для проверки:
+ * - Доставки событий изменения статуса одного заказа по порядку
+ * - Записи событий массового изменения статуса только для изменённых заказов
+ * - Отсутствия событий при отклонённом изменении статуса
+ * - Доставки событий заказа по версии заказа, когда идентификаторы выданы из разных блоков последовательности
+ * </p>
+ * <p>
+ * События доставляются получателем {@link InMemoryOrderEventSink} вызовом {@link OrderOutboxRelay#dispatchBatch()}
+ * в транзакции теста; доставка по расписанию отключена. В таблице могут оставаться события других заказов,
+ * поэтому проверяются только события заказов теста.
+ * </p>
+ */
+@SpringBootTest(properties = {"outbox.sink=memory", "outbox.relay.enabled=false"})
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Тестирование событий заказов")
+class OrderOutboxTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderOutboxRelay relay;
+
+    @Autowired
+    private InMemoryOrderEventSink sink;
+
+    @Autowired
+    private OrderEventRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void clearSink() {
+        sink.clear();
+    }
+
+    @Test
+    @DisplayName("Проверка доставки событий одного заказа по порядку")
+    void deliversEventsInOrder() throws Exception {
+        mockMvc.perform(put("/orders/change-status").param("id", "1").param("status", "в пути"))
+                .andExpect(status().isCreated());
+        OrderBulkUpdateDTO request = new OrderBulkUpdateDTO(List.of(1), null, null, null, null);
+        mockMvc.perform(put("/orders/bulk/canceled")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        relay.dispatchBatch();
+        assertThat(eventsOf(1)).hasSize(1);
+        relay.dispatchBatch();
+
+        List<OrderEventDTO> events = eventsOf(1);
+        assertThat(events).extracting(OrderEventDTO::getType)
+                .containsExactly(OrderEvent.Type.STATUS_CHANGED, OrderEvent.Type.STATUS_CHANGED);
+        assertThat(events.get(0).getEventId()).isLessThan(events.get(1).getEventId());
+        assertThat(objectMapper.readTree(events.get(0).getOrder()).get("status").asText()).isEqualTo("в пути");
+        assertThat(objectMapper.readTree(events.get(1).getOrder()).get("status").asText()).isEqualTo("cancelled");
+        assertThat(objectMapper.readTree(events.get(1).getOrder()).get("version").asLong()).isEqualTo(2);
+
+        relay.dispatchBatch();
+        assertThat(eventsOf(1)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Проверка событий массового изменения статуса только для изменённых заказов")
+    void bulkChangeStatusWritesEventsForUpdatedOrders() throws Exception {
+        OrderBulkUpdateDTO request = new OrderBulkUpdateDTO(List.of(1, 2), null, null, null, OrderStatus.IN_TRANSIT);
+        mockMvc.perform(put("/orders/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        relay.dispatchBatch();
+
+        assertThat(eventsOf(1)).hasSize(1);
+        assertThat(objectMapper.readTree(eventsOf(1).get(0).getOrder()).get("version").asLong()).isEqualTo(1);
+        assertThat(eventsOf(2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Проверка отсутствия события при отклонённом изменении статуса")
+    void rejectedChangeWritesNoEvent() throws Exception {
+        mockMvc.perform(put("/orders/change-status").param("id", "4").param("status", "заказ оформлен"))
+                .andExpect(status().isConflict());
+
+        relay.dispatchBatch();
+
+        assertThat(eventsOf(4)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Проверка порядка событий заказа с идентификаторами из разных блоков последовательности")
+    void deliversEventsInVersionOrderAcrossIdPools() {
+        int orderId = 1_000_001;
+        // Блок этого экземпляра выделен раньше: более позднее изменение заказа получает меньший идентификатор
+        OrderEvent later = repository.saveAndFlush(new OrderEvent(orderId, 2, OrderEvent.Type.STATUS_CHANGED,
+                "{\"version\":2}", Instant.now()));
+        // Другой экземпляр приложения выделяет следующий блок и записывает более раннее изменение
+        long otherPoolId = ((Number) entityManager
+                .createNativeQuery("SELECT nextval('car_shop.order_outbox_event_id_seq')")
+                .getSingleResult()).longValue();
+        entityManager.createNativeQuery("INSERT INTO car_shop.order_outbox " +
+                        "(event_id, order_id, order_version, type, payload, created_at) " +
+                        "VALUES (:eventId, :orderId, 1, 'ORDER_UPDATED', '{\"version\":1}', now())")
+                .setParameter("eventId", otherPoolId)
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+        assertThat(later.getEventId()).isLessThan(otherPoolId);
+
+        relay.dispatchBatch();
+        assertThat(eventsOf(orderId)).extracting(OrderEventDTO::getEventId).containsExactly(otherPoolId);
+        relay.dispatchBatch();
+
+        assertThat(eventsOf(orderId)).extracting(OrderEventDTO::getOrderVersion).containsExactly(1L, 2L);
+    }
+
+    private List<OrderEventDTO> eventsOf(int orderId) {
+        return sink.getEvents().stream().filter(event -> event.getOrderId() == orderId).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.y_lab.car_shop_spring_boot.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Тестовый класс для проверки работы {@link ReactiveCarController} с использованием Spring Boot Test.
+ * <p>
+ * Этот класс включает в себя тесты для проверки операций чтения каталога через R2DBC:
+ * - Потоковое получение всех автомобилей в формате NDJSON
+ * - Получение всех автомобилей одним JSON-массивом
+ * - Составной поиск автомобилей
+ * - Получение автомобиля по идентификатору
+ * </p>
+ * <p>
+ * Контроллер регистрируется только при {@code catalog.reactive.enabled=true}, поэтому свойство включается в аннотации
+ * {@code @SpringBootTest}. Ответы {@code Flux} и {@code Mono} обрабатываются асинхронно, поэтому результат проверяется
+ * после {@code asyncDispatch}.
+ * </p>
+ */
+@SpringBootTest(properties = "catalog.reactive.enabled=true")
+@AutoConfigureMockMvc
+@DisplayName("Тестирование ReactiveCarController")
+class ReactiveCarControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Проверка потокового получения автомобилей в формате NDJSON")
+    void streamAll() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reactive/cars").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("{\"brand\":\"BMW\"")))
+                .andExpect(content().string(containsString("{\"brand\":\"Audi\"")));
+    }
+
+    @Test
+    @DisplayName("Проверка получения всех автомобилей одним JSON-массивом")
+    void getAll() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reactive/cars").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5));
+    }
+
+    @Test
+    @DisplayName("Проверка составного поиска автомобилей")
+    void search() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reactive/cars/search")
+                        .param("brand", "Volvo")
+                        .param("priceMax", "20000")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].model").value("S40"));
+    }
+
+    @Test
+    @DisplayName("Проверка получения автомобиля по идентификатору")
+    void getById() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reactive/cars/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("BMW")))
+                .andExpect(content().string(not(containsString("Volvo"))));
+    }
+}
@@ -1,16 +1,24 @@
 package com.y_lab.car_shop_spring_boot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.y_lab.car_shop_spring_boot.config.BinaryFormatConfiguration;
 import com.y_lab.car_shop_spring_boot.dto.UserDTO;
+import com.y_lab.car_shop_spring_boot.model.Roles;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -23,8 +31,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * - Получение списка всех пользователей
  * - Фильтрация пользователей по имени
  * - Сортировка пользователей по возрасту
- * - Получение пользователя по идентификатору
- * - Обновление информации о пользователе
+ * - Получение пользователя по идентификатору, в том числе в формате Smile
+ * - Обновление информации о пользователе, в том числе с заголовком If-Match
  * </p>
  * <p>
  * Тесты выполняются с использованием {@link MockMvc} для имитации HTTP-запросов и проверок ответов.
@@ -86,6 +94,18 @@ class UserControllerTest {
                 .andExpect(content().string(containsString("Alexandr")));
     }
 
+    @Test
+    @DisplayName("Проверка получения пользователя по идентификатору в формате Smile")
+    void getByIdSmile() throws Exception {
+        MvcResult result = mockMvc.perform(get("/users/1").accept(BinaryFormatConfiguration.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryFormatConfiguration.APPLICATION_SMILE_VALUE))
+                .andReturn();
+        UserDTO user = new SmileMapper().readValue(result.getResponse().getContentAsByteArray(), UserDTO.class);
+        assertThat(user.getName()).isEqualTo("Alexandr");
+        assertThat(user.getRole()).containsExactlyInAnyOrder(Roles.ADMINISTRATOR, Roles.MANAGER);
+    }
+
     @Test
     @DisplayName("Проверка обновления данных пользователя")
     void update() throws Exception {
@@ -97,4 +117,29 @@ class UserControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(content().string(containsString("Pol")));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Проверка обновления пользователя с заголовком If-Match")
+    void updateIfMatch() throws Exception {
+        String userJson = objectMapper.writeValueAsString(new UserDTO("Pol", 33, "Moscow", Set.of(Roles.CLIENT)));
+        mockMvc.perform(put("/users/2")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.role[0]").value("CLIENT"));
+        mockMvc.perform(put("/users/2")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/users/2").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.name").value("Pol"))
+                .andExpect(jsonPath("$.role[0]").value("CLIENT"));
+        mockMvc.perform(get("/users/2").header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isNotModified());
+    }
+}
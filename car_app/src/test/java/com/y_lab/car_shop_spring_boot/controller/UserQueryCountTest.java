@@ -0,0 +1,125 @@
+package com.y_lab.car_shop_spring_boot.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тестовый класс для проверки количества SQL-запросов, выполняемых запросами чтения {@link UserController}.
+ * <p>
+ * Роли пользователей загружаются лениво, поэтому тесты проверяют, что списки пользователей выбираются в виде DTO
+ * и дополняются ролями ровно двумя запросами, независимо от числа пользователей, а пользователь по идентификатору
+ * загружается вместе с ролями одним запросом. Страница пользователей перед загрузкой проверяется ещё одним запросом
+ * {@code ETag}; при совпадении с {@code If-None-Match} выполняется только он. {@code ETag} пользователя по идентификатору
+ * строится по загруженному пользователю без отдельного запроса версии. Количество запросов считывается из статистики Hibernate {@link Statistics}.
+ * </p>
+ * <p>
+ * Класс не помечен {@code @Transactional}: каждый HTTP-запрос выполняется в собственном контексте персистентности,
+ * как в работающем приложении, поэтому роли, не загруженные сервисом, привели бы к ошибке при формировании ответа.
+ * Фоновые задачи, выполняющие запросы по расписанию (доставка событий заказов и пересчёт сводки продаж), отключены,
+ * чтобы их запросы не попадали в статистику.
+ * </p>
+ */
+@SpringBootTest(properties = {"outbox.relay.enabled=false", "analytics.refresh.enabled=false"})
+@AutoConfigureMockMvc
+@DisplayName("Тестирование количества SQL-запросов UserController")
+class UserQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("Страница пользователей загружается двумя запросами после запроса ETag")
+    void getPage() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(jsonPath("$[0].role", containsInAnyOrder("ADMINISTRATOR", "MANAGER")));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Отсортированная страница пользователей загружается двумя запросами")
+    void getSortedPage() throws Exception {
+        mockMvc.perform(get("/users/sort/city").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].role[0]").value("CLIENT"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Отфильтрованный список пользователей загружается двумя запросами")
+    void getFiltered() throws Exception {
+        mockMvc.perform(get("/users/filter/name/Alexandr"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[*].role[*]", containsInAnyOrder("ADMINISTRATOR", "MANAGER", "MANAGER")));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Пользователь по идентификатору загружается одним запросом")
+    void getById() throws Exception {
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.role", containsInAnyOrder("ADMINISTRATOR", "MANAGER")));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Условный запрос пользователя по идентификатору выполняет один запрос")
+    void getByIdNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/users/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Неизменённая страница пользователей не загружается")
+    void getPageNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/users"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -1,6 +1,7 @@
 package com.y_lab.car_shop_spring_boot.dataTest;
 
 import com.y_lab.car_shop_spring_boot.model.Order;
+import com.y_lab.car_shop_spring_boot.model.OrderStatus;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -17,15 +18,15 @@ import java.util.Map;
 public class Orders {
     public static int OrderId = 1;
     public static final int NOT_EXIST_ID = 800;
-    public static final Order order1 = new Order(OrderId++, 4, 1, LocalDate.parse("2024-08-12"), "заказ оформлен");
-    public static final Order order2 = new Order(OrderId++, 4, 2, LocalDate.parse("2024-08-13"), "готов к выдаче");
-    public static final Order order3 = new Order(1, 4, 1, LocalDate.parse("2024-08-12"), "заказ оформлен");
-    public static final Order order4 = new Order(2, 4, 2, LocalDate.parse("2024-08-13"), "готов к выдаче");
-    public static final Order newOrder = new Order(OrderId++, 3, 5, LocalDate.parse("2024-08-08"), "successfully");
-    public static final Order filterOrder = new Order(1, 4, 1, LocalDate.parse("2024-08-12"), "заказ оформлен");
+    public static final Order order1 = new Order(OrderId++, 4, 1, LocalDate.parse("2024-08-12"), OrderStatus.CREATED);
+    public static final Order order2 = new Order(OrderId++, 4, 2, LocalDate.parse("2024-08-13"), OrderStatus.READY);
+    public static final Order order3 = new Order(1, 4, 1, LocalDate.parse("2024-08-12"), OrderStatus.CREATED);
+    public static final Order order4 = new Order(2, 4, 2, LocalDate.parse("2024-08-13"), OrderStatus.READY);
+    public static final Order newOrder = new Order(OrderId++, 3, 5, LocalDate.parse("2024-08-08"), OrderStatus.CREATED);
+    public static final Order filterOrder = new Order(1, 4, 1, LocalDate.parse("2024-08-12"), OrderStatus.CREATED);
     public static final int NEW_SIZE = 3;
-    public static final String newStatus = "is ready";
-    public static final String canceledStatus = "cancelled";
+    public static final OrderStatus newStatus = OrderStatus.IN_TRANSIT;
+    public static final OrderStatus canceledStatus = OrderStatus.CANCELLED;
     public static List<Order> allListOrder = List.of(order3, order4);
     public static final Map<Integer, Order> orders = new HashMap<>();
 
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.jdbc.Sql;
@@ -34,6 +36,7 @@ import static org.junit.jupiter.api.Assertions.assertAll;
  * - Обновление существующего автомобиля
  * - Удаление автомобиля из базы данных
  * - Фильтрация автомобилей по различным критериям
+ * - Кэширование автомобилей по идентификатору и его инвалидация при обновлении и удалении
  * </p>
  * <p>
  * Тесты используют аннотации {@link DisplayName} для предоставления читаемых описаний тестов и {@link Transactional}
@@ -52,6 +55,9 @@ public class CarStorageTest {
     @Autowired
     private CarServiceJpa service;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Container
     public static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest")
             .withDatabaseName("testdb")
@@ -103,6 +109,21 @@ public class CarStorageTest {
     }
 
 
+    @Test
+    @DisplayName("Проверка кэширования автомобиля по идентификатору и инвалидации кэша")
+    void cache() {
+        Cache cache = cacheManager.getCache(CarServiceJpa.CAR_CACHE);
+        Car car = service.getById(car5.getCarId());
+        Car updated = service.saveOrUpdate(new Car(car5.getCarId(), "Audi", "Q5", 2021, 30000, "new"));
+        Car afterUpdate = service.getById(car5.getCarId());
+        service.delete(car5.getCarId());
+        assertAll(
+                () -> assertThat(car).isEqualTo(car5),
+                () -> assertThat(afterUpdate).isSameAs(updated),
+                () -> assertThat(cache.get(car5.getCarId())).isNull()
+        );
+    }
+
     @Test
     @DisplayName("Проверка фильтрации автомобилей")
     void filter() {
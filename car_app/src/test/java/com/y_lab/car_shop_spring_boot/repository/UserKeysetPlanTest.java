@@ -0,0 +1,93 @@
+package com.y_lab.car_shop_spring_boot.repository;
+
+import com.y_lab.car_shop_spring_boot.dao.UserRepository;
+import com.y_lab.car_shop_spring_boot.dto.QueryReportDTO;
+import com.y_lab.car_shop_spring_boot.util.QueryMonitor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тестовый класс для проверки планов выполнения запросов постраничной выборки отсортированных пользователей
+ * {@code UserRepository.getSortBy*After}.
+ * <p>
+ * Тесты выполняют метод репозитория, берут сгенерированный Hibernate SQL из {@link QueryMonitor} и проверяют, что
+ * условие курсора передано в базу данных сравнением строк {@code (столбец, user_id) > (?, ?)}, а PostgreSQL использует
+ * его как границу просмотра составного индекса ({@code Index Cond: (ROW(...) > ROW(...))}). План запрашивается
+ * командой {@code EXPLAIN} с теми же параметрами при {@code enable_seqscan = off}: в тестовой таблице несколько
+ * строк, и без этого планировщик выбрал бы последовательное чтение независимо от индекса. Схема создаётся миграциями
+ * Liquibase, поэтому индексы {@code idx_user_*_id} совпадают с рабочими.
+ * </p>
+ */
+@SpringBootTest(properties = {"outbox.relay.enabled=false", "analytics.refresh.enabled=false",
+        "query-monitor.enabled=true"})
+@DisplayName("Тестирование планов выполнения постраничной сортировки пользователей")
+class UserKeysetPlanTest {
+
+    @Autowired
+    private UserRepository repository;
+
+    @Autowired
+    private QueryMonitor queryMonitor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("Страница после курсора по имени читается из индекса idx_user_name_id")
+    void sortByNameAfterUsesIndex() {
+        queryMonitor.reset();
+        repository.getSortByNameAfter("Bob", 2, Limit.of(3));
+        assertIndexRangeScan("name", "idx_user_name_id", "Bob", 2, 3);
+    }
+
+    @Test
+    @DisplayName("Страница после курсора по возрасту читается из индекса idx_user_age_id")
+    void sortByAgeAfterUsesIndex() {
+        queryMonitor.reset();
+        repository.getSortDTOByAgeAfter(30, 2, Limit.of(3));
+        assertIndexRangeScan("age", "idx_user_age_id", 30, 2, 3);
+    }
+
+    @Test
+    @DisplayName("Страница после курсора по городу читается из индекса idx_user_city_id")
+    void sortByCityAfterUsesIndex() {
+        queryMonitor.reset();
+        repository.getSortByCityAfter("Moscow", 2, Limit.of(3));
+        assertIndexRangeScan("city", "idx_user_city_id", "Moscow", 2, 3);
+    }
+
+    private void assertIndexRangeScan(String column, String index, Object... parameters) {
+        final Pattern rowValue = Pattern.compile(
+                "\\(\\s*\\w+\\." + column + "\\s*,\\s*\\w+\\.user_id\\s*\\)\\s*>\\s*\\(\\s*\\?\\s*,\\s*\\?\\s*\\)");
+        final List<String> statements = queryMonitor.report(10).getStatements().stream()
+                .map(QueryReportDTO.Statement::getSql)
+                .filter(sql -> rowValue.matcher(sql).find())
+                .toList();
+        assertThat(statements).hasSize(1);
+        final String sql = statements.get(0);
+        final Object[] arguments = Arrays.copyOf(parameters, (int) sql.chars().filter(c -> c == '?').count());
+
+        final List<String> plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, arguments);
+        });
+        assertThat(String.join("\n", plan))
+                .contains("Index Scan using " + index)
+                .containsPattern("Index Cond: \\(ROW\\(" + column + ", user_id\\) > ROW\\(")
+                .doesNotContain("Sort");
+    }
+}
@@ -0,0 +1,147 @@
+package com.y_lab.car_shop_spring_boot.service.jpa;
+
+import com.y_lab.car_shop_spring_boot.dto.CarFacetsDTO;
+import com.y_lab.car_shop_spring_boot.dto.CarSearchCriteria;
+import com.y_lab.car_shop_spring_boot.model.Car;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CarFacetIndexTest {
+    private static final String[] BRANDS = {"BMW", "Audi", "Kia", "Lada"};
+    private static final String[] CONDITIONS = {"new", "used"};
+
+    private final Random random = new Random(42);
+    private final CarFacetIndex index = new CarFacetIndex();
+    private final Map<Integer, Car> cars = new HashMap<>();
+
+    @Test
+    @DisplayName("Facets match a full scan before and after the range bitmaps are rebuilt")
+    void facetsMatchFullScan() {
+        for (int id = 1; id <= 500; id++) {
+            cars.put(id, randomCar(id));
+        }
+        index.load(() -> new ArrayList<>(cars.values()).stream());
+        assertMatchesFullScan();
+
+        for (int i = 0; i < 300; i++) {
+            final int id = 1 + random.nextInt(700);
+            if (random.nextInt(4) == 0) {
+                cars.remove(id);
+                index.remove(id);
+            } else {
+                final Car car = randomCar(id);
+                cars.put(id, car);
+                index.put(car);
+            }
+            if (i % 50 == 0) {
+                assertMatchesFullScan();
+            }
+        }
+        assertMatchesFullScan();
+
+        index.rebuildIfChanged();
+        assertMatchesFullScan();
+    }
+
+    @Test
+    @DisplayName("Price ranges include both bounds and order fractional prices correctly")
+    void priceRangeBounds() {
+        index.load(() -> List.of(car(1, 2000, 999.5), car(2, 2000, 1000), car(3, 2000, 1000.25),
+                car(4, 2000, 2000)).stream());
+        index.put(car(5, 2000, 1000));
+
+        assertThat(index.filter(criteria(null, null, 1000.0, 1000.25, null, null)).toArray())
+                .containsExactly(2, 3, 5);
+        assertThat(index.facets(new CarSearchCriteria(), 10, 1000).getPrices())
+                .containsExactly(new CarFacetsDTO.Bucket(0, 1000, 1), new CarFacetsDTO.Bucket(1000, 2000, 3),
+                        new CarFacetsDTO.Bucket(2000, 3000, 1));
+    }
+
+    private void assertMatchesFullScan() {
+        for (int i = 0; i < 20; i++) {
+            final CarSearchCriteria criteria = criteria(
+                    random.nextBoolean() ? BRANDS[random.nextInt(BRANDS.length)] : null,
+                    random.nextInt(3) == 0 ? CONDITIONS[random.nextInt(CONDITIONS.length)] : null,
+                    random.nextBoolean() ? (double) random.nextInt(50_000) : null,
+                    random.nextBoolean() ? (double) random.nextInt(100_000) : null,
+                    random.nextBoolean() ? 1990 + random.nextInt(20) : null,
+                    random.nextBoolean() ? 2000 + random.nextInt(25) : null);
+            final int yearBucket = 1 + random.nextInt(10);
+            final int priceBucket = 1000 * (1 + random.nextInt(20));
+
+            assertThat(index.filter(criteria).toArray()).containsExactly(cars.keySet().stream()
+                    .filter(id -> matches(cars.get(id), criteria, -1)).sorted().mapToInt(Integer::intValue).toArray());
+            assertThat(index.facets(criteria, yearBucket, priceBucket)).isEqualTo(fullScan(criteria, yearBucket,
+                    priceBucket));
+        }
+    }
+
+    private CarFacetsDTO fullScan(CarSearchCriteria criteria, int yearBucket, int priceBucket) {
+        final Map<String, Integer> brands = new TreeMap<>();
+        final Map<String, Integer> conditions = new TreeMap<>();
+        int total = 0;
+        for (Car car : cars.values()) {
+            total += matches(car, criteria, -1) ? 1 : 0;
+            if (matches(car, criteria, 0)) {
+                brands.merge(car.getBrand(), 1, Integer::sum);
+            }
+            if (matches(car, criteria, 2)) {
+                conditions.merge(car.getCondition(), 1, Integer::sum);
+            }
+        }
+        return new CarFacetsDTO(total, brands, conditions,
+                fullScanBuckets(criteria, 4, car -> Math.floorDiv(car.getYear(), yearBucket) * (long) yearBucket,
+                        yearBucket),
+                fullScanBuckets(criteria, 3, car -> (long) Math.floor(car.getPrice() / priceBucket) * priceBucket,
+                        priceBucket));
+    }
+
+    private List<CarFacetsDTO.Bucket> fullScanBuckets(CarSearchCriteria criteria, int skip,
+                                                      ToLongFunction<Car> bucketOf, int width) {
+        final Map<Long, Integer> counts = new TreeMap<>();
+        cars.values().stream()
+                .filter(car -> matches(car, criteria, skip))
+                .forEach(car -> counts.merge(bucketOf.applyAsLong(car), 1, Integer::sum));
+        final List<CarFacetsDTO.Bucket> buckets = new ArrayList<>();
+        counts.forEach((from, count) -> buckets.add(new CarFacetsDTO.Bucket(from, from + width, count)));
+        return buckets;
+    }
+
+    /**
+     * Проверяет критерии в порядке {@code BRAND, MODEL, CONDITION, PRICE, YEAR}, кроме критерия с номером {@code skip}.
+     */
+    private static boolean matches(Car car, CarSearchCriteria criteria, int skip) {
+        return (skip == 0 || criteria.getBrand() == null || criteria.getBrand().equals(car.getBrand()))
+                && (skip == 2 || criteria.getCondition() == null || criteria.getCondition().equals(car.getCondition()))
+                && (skip == 3 || criteria.getPriceMin() == null || car.getPrice() >= criteria.getPriceMin())
+                && (skip == 3 || criteria.getPriceMax() == null || car.getPrice() <= criteria.getPriceMax())
+                && (skip == 4 || criteria.getYearMin() == null || car.getYear() >= criteria.getYearMin())
+                && (skip == 4 || criteria.getYearMax() == null || car.getYear() <= criteria.getYearMax());
+    }
+
+    private Car randomCar(int id) {
+        final Car car = car(id, 1990 + random.nextInt(35), 500 + random.nextInt(100_000) + random.nextInt(4) * 0.25);
+        car.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+        car.setCondition(CONDITIONS[random.nextInt(CONDITIONS.length)]);
+        return car;
+    }
+
+    private static Car car(int id, int year, double price) {
+        return new Car(id, "BMW", "X5", year, price, "new", 0);
+    }
+
+    private static CarSearchCriteria criteria(String brand, String condition, Double priceMin, Double priceMax,
+                                              Integer yearMin, Integer yearMax) {
+        return new CarSearchCriteria(brand, null, condition, priceMin, priceMax, yearMin, yearMax);
+    }
+}
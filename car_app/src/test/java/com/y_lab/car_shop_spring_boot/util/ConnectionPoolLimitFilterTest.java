@@ -0,0 +1,43 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolLimitFilterTest {
+    private final ConnectionPoolLimitFilter filter = new ConnectionPoolLimitFilter(1, Duration.ZERO);
+
+    @Test
+    @DisplayName("Request over the limit is rejected with 503 and permit is returned after the request")
+    void rejectsOverLimit() throws Exception {
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/cars"), new MockHttpServletResponse(), (req, res) -> {
+            assertThat(filter.getAvailablePermits()).isZero();
+            filter.doFilter(new MockHttpServletRequest("GET", "/cars"), rejected, (r, s) -> {
+                throw new AssertionError("Request over the limit must not reach the controller");
+            });
+        });
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(filter.getAvailablePermits()).isEqualTo(filter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Actuator requests are not limited")
+    void actuatorIsNotLimited() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        filter.doFilter(new MockHttpServletRequest("GET", "/cars"), new MockHttpServletResponse(), (req, res) ->
+                filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(),
+                        (r, s) -> handled.incrementAndGet()));
+
+        assertThat(handled).hasValue(1);
+    }
+}
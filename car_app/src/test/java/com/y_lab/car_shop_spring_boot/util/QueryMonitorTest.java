@@ -0,0 +1,96 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import com.y_lab.car_shop_spring_boot.dto.QueryReportDTO;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class QueryMonitorTest {
+    private static final String SELECT_USER = "select u.user_id, u.name from car_shop.\"user\" u where u.user_id=?";
+    private static final String SELECT_ROLES = "select r.user_id, r.role from car_shop.role r where r.user_id=?";
+
+    private final QueryMonitor monitor = new QueryMonitor(Duration.ofMinutes(1), QueryMonitor.Explain.OFF,
+            Duration.ofMinutes(10), Duration.ofSeconds(5), 3, 100);
+
+    @AfterEach
+    void destroy() {
+        monitor.destroy();
+    }
+
+    @Test
+    @DisplayName("Statements are counted and ordered by total time")
+    void recordsStatements() {
+        execute(SELECT_USER);
+        execute(SELECT_USER);
+        execute(SELECT_ROLES);
+
+        QueryReportDTO report = monitor.report(10);
+
+        assertThat(report.getStatements()).extracting(QueryReportDTO.Statement::getSql)
+                .containsExactlyInAnyOrder(SELECT_USER, SELECT_ROLES);
+        assertThat(report.getStatements()).filteredOn(statement -> statement.getSql().equals(SELECT_USER))
+                .singleElement()
+                .satisfies(statement -> {
+                    assertThat(statement.getCount()).isEqualTo(2);
+                    assertThat(statement.getSlow()).isZero();
+                });
+        assertThat(report.getRepeated()).isEmpty();
+        assertThat(report.getEndpoints()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Statement repeated in one request is reported as N+1")
+    void detectsNPlusOne() {
+        monitor.beginRequest();
+        execute(SELECT_USER);
+        for (int i = 0; i < 5; i++) {
+            execute(SELECT_ROLES);
+        }
+        monitor.endRequest("GET /users");
+
+        monitor.beginRequest();
+        execute(SELECT_USER);
+        execute(SELECT_ROLES);
+        monitor.endRequest("GET /users/{id}");
+
+        QueryReportDTO report = monitor.report(10);
+
+        assertThat(report.getRepeated()).singleElement().satisfies(repeated -> {
+            assertThat(repeated.getEndpoint()).isEqualTo("GET /users");
+            assertThat(repeated.getSql()).isEqualTo(SELECT_ROLES);
+            assertThat(repeated.getOccurrences()).isEqualTo(1);
+            assertThat(repeated.getMaxRepetitions()).isEqualTo(5);
+        });
+        assertThat(report.getEndpoints())
+                .extracting(QueryReportDTO.Endpoint::getEndpoint, QueryReportDTO.Endpoint::getMaxStatements)
+                .containsExactly(tuple("GET /users", 6), tuple("GET /users/{id}", 2));
+    }
+
+    @Test
+    @DisplayName("Statements outside of a request and after reset are not reported")
+    void resetsStatistics() {
+        execute(SELECT_USER);
+        monitor.endRequest("GET /users");
+        monitor.reset();
+
+        QueryReportDTO report = monitor.report(10);
+
+        assertThat(report.getStatements()).isEmpty();
+        assertThat(report.getEndpoints()).isEmpty();
+    }
+
+    private void execute(String sql) {
+        ExecutionInfo execution = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+        monitor.beforeQuery(execution, queries);
+        monitor.afterQuery(execution, queries);
+    }
+}
@@ -0,0 +1,115 @@
+package com.y_lab.car_shop_spring_boot.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ClientKeyResolver clientKeyResolver = new ClientKeyResolver("X-API-Key", List.of("partner", "other"));
+    private final RateLimitFilter filter = new RateLimitFilter(clientKeyResolver,
+            List.of(new RateLimitFilter.Route("create-order", "POST", "/orders", 2, 0.5)), 100, registry, clock::get);
+
+    @Test
+    @DisplayName("Requests over the bucket capacity get 429 with Retry-After until a token is refilled")
+    void rejectsOverCapacity() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        assertThat(send("POST", "/orders", null, handled).getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/orders", null, handled).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = send("POST", "/orders", null, handled);
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(handled).hasValue(2);
+        assertThat(registry.get(RateLimitFilter.THROTTLED_METRIC).tag("route", "create-order").counter().count())
+                .isEqualTo(1);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(send("POST", "/orders", null, handled).getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/orders", null, handled).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Clients with different API keys and unmatched routes are limited separately")
+    void limitsPerClientAndRoute() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        send("POST", "/orders", "partner", handled);
+        send("POST", "/orders", "partner", handled);
+
+        assertThat(send("POST", "/orders", "partner", handled).getStatus()).isEqualTo(429);
+        assertThat(send("POST", "/orders", "other", handled).getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/orders", null, handled).getStatus()).isEqualTo(200);
+        assertThat(send("GET", "/orders", "partner", handled).getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/cars", "partner", handled).getStatus()).isEqualTo(200);
+        assertThat(handled).hasValue(6);
+    }
+
+    @Test
+    @DisplayName("Unregistered API keys are ignored, so rotating keys does not reset the bucket")
+    void rotatingUnregisteredKeysAreLimitedByAddress() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        assertThat(send("POST", "/orders", "random-1", handled).getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/orders", "random-2", handled).getStatus()).isEqualTo(200);
+
+        assertThat(send("POST", "/orders", "random-3", handled).getStatus()).isEqualTo(429);
+        assertThat(send("POST", "/orders", "random-4", handled).getStatus()).isEqualTo(429);
+        assertThat(send("POST", "/orders", null, handled).getStatus()).isEqualTo(429);
+        assertThat(handled).hasValue(2);
+        assertThat(filter.getBucketCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Buckets expire once refilled")
+    void expiresIdleBuckets() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        send("POST", "/orders", "partner", handled);
+        send("POST", "/orders", null, handled);
+        assertThat(filter.getBucketCount()).isEqualTo(2);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(filter.getBucketCount()).isEqualTo(2);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(filter.getBucketCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("The number of buckets per route is bounded")
+    void boundsBucketCount() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        for (int client = 0; client < 1000; client++) {
+            send("POST", "/orders", null, "10.0." + client / 256 + "." + client % 256, handled);
+        }
+
+        assertThat(handled).hasValue(1000);
+        assertThat(filter.getBucketCount()).isLessThanOrEqualTo(100);
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String apiKey, AtomicInteger handled)
+            throws Exception {
+        return send(method, uri, apiKey, "127.0.0.1", handled);
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String apiKey, String remoteAddr,
+                                         AtomicInteger handled) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> handled.incrementAndGet());
+        return response;
+    }
+}
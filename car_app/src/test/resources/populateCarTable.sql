@@ -1,6 +1,7 @@
-INSERT INTO car_shop.car (brand, model, year, price, condition)
-VALUES ('Toyota', 'Camry', 2024, 25000.00, 'new'),
-       ('Volvo', 'S40', 2023, 17500.00, 'good'),
-       ('Mercedes', 'SLS', 2024, 25000.00, 'new'),
-       ('Volvo', 'S60', 2019, 25000.00, 'good'),
-       ('Audi', 'Q3', 2020, 19500.80, 'good');
\ No newline at end of file
+INSERT INTO car_shop.car (car_id, brand, model, year, price, condition)
+VALUES (1, 'Toyota', 'Camry', 2024, 25000.00, 'new'),
+       (2, 'Volvo', 'S40', 2023, 17500.00, 'good'),
+       (3, 'Mercedes', 'SLS', 2024, 25000.00, 'new'),
+       (4, 'Volvo', 'S60', 2019, 25000.00, 'good'),
+       (5, 'Audi', 'Q3', 2020, 19500.80, 'good');
+SELECT setval('car_shop.car_car_id_seq', 5);
\ No newline at end of file
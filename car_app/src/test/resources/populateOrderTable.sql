@@ -1,3 +1,3 @@
 INSERT INTO car_shop.orders (user_id, car_id, date, status)
-VALUES (4, 1, '2024-08-12', 'заказ оформлен'),
-       (4, 2, '2024-08-13', 'готов к выдаче');
\ No newline at end of file
+VALUES (4, 1, '2024-08-12', 0),
+       (4, 2, '2024-08-13', 2);
\ No newline at end of file